@@ -0,0 +1,241 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log that never blocks the threads writing to it.
+ *
+ * Callers only capture a {@link Record} (time, thread, message, error) and
+ * publish it into a bounded lock-free ring buffer. A single daemon thread
+ * drains the buffer, formats the records and writes them to the log file and
+ * the console, flushing once per batch instead of once per line. If the
+ * buffer is full the record is dropped and counted rather than waiting for
+ * the writer; the writer reports the number of dropped records.
+ *
+ * The ring follows the bounded multi-producer queue design in which every
+ * slot carries a sequence number: a producer claims a slot by advancing the
+ * tail with a CAS, fills it, and publishes it by storing the next sequence.
+ */
+public final class AsyncLog implements Closeable {
+
+    private static final int CAPACITY = 1 << 13;
+    private static final long IDLE_PARK_NANOS = 10_000_000L;
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    /**
+     * One log entry, captured on the calling thread and formatted by the writer.
+     */
+    public static final class Record {
+        private final long timeMillis;
+        private final String message;
+        private final Throwable error;
+
+        Record(long timeMillis, String message, Throwable error) {
+            this.timeMillis = timeMillis;
+            this.message = message;
+            this.error = error;
+        }
+
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+    }
+
+    private final Record[] slots = new Record[CAPACITY];
+    private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long head;
+
+    private final PrintWriter file;
+    private final PrintWriter console;
+    private final Thread writer;
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    // Formatted "yyyy-MM-dd HH:mm:ss." of the last second seen by the writer
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedPrefix;
+
+    /**
+     * Opens the log file for appending and starts the writer thread.
+     *
+     * @param fileName log file, created if it does not exist
+     * @param threadName name of the writer thread
+     * @throws IOException if the file cannot be opened
+     */
+    public AsyncLog(String fileName, String threadName) throws IOException {
+        this.file = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(fileName, true), StandardCharsets.UTF_8)), false);
+        this.console = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)), false);
+        for (int i = 0; i < CAPACITY; i++) {
+            sequences.set(i, i);
+        }
+
+        this.writer = new Thread(this::drainLoop, threadName);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Logs a message; never blocks.
+     */
+    public void log(String message) {
+        log(message, null);
+    }
+
+    /**
+     * Logs a message with an error whose stack trace goes to the log file only.
+     */
+    public void log(String message, Throwable error) {
+        Record record = new Record(System.currentTimeMillis(), message, error);
+        if (closed || !offer(record)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Returns the number of records dropped because the buffer was full.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Formats a time as {@code yyyy-MM-dd HH:mm:ss.SSS} with the cached formatter.
+     */
+    public static String formatTimestamp(long timeMillis) {
+        return TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(timeMillis));
+    }
+
+    /**
+     * Writes every pending record, then stops the writer and closes the file.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        file.close();
+        console.flush();
+    }
+
+    private boolean offer(Record record) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & (CAPACITY - 1);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = record;
+                    // The sequence store publishes the slot to the writer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    private Record poll() {
+        int index = (int) head & (CAPACITY - 1);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        Record record = slots[index];
+        slots[index] = null;
+        sequences.set(index, head + CAPACITY);
+        head++;
+        return record;
+    }
+
+    private void drainLoop() {
+        long reportedDrops = 0;
+        while (true) {
+            boolean wasClosed = closed;
+            int written = 0;
+            Record record;
+            while ((record = poll()) != null) {
+                write(record);
+                written++;
+            }
+
+            long drops = dropped.get();
+            if (drops != reportedDrops) {
+                write(new Record(System.currentTimeMillis(),
+                                 "WARNING: " + (drops - reportedDrops) + " log record(s) dropped", null));
+                reportedDrops = drops;
+                written++;
+            }
+            if (written > 0) {
+                file.flush();
+                console.flush();
+            }
+            if (wasClosed) {
+                return;
+            }
+
+            idle = true;
+            // Re-check after announcing idleness so a record published in between is not missed
+            if (sequences.get((int) head & (CAPACITY - 1)) != head + 1 && !closed) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            idle = false;
+        }
+    }
+
+    private void write(Record record) {
+        String line = "[" + timestamp(record.timeMillis) + "] " + record.message;
+        file.println(line);
+        console.println(line);
+        if (record.error != null) {
+            record.error.printStackTrace(file);
+        }
+    }
+
+    private String timestamp(long timeMillis) {
+        long second = Math.floorDiv(timeMillis, 1000);
+        if (second != cachedSecond) {
+            String full = formatTimestamp(timeMillis);
+            cachedPrefix = full.substring(0, full.length() - 3);
+            cachedSecond = second;
+        }
+        int millis = Math.floorMod(timeMillis, 1000);
+        return cachedPrefix + (millis < 100 ? (millis < 10 ? "00" : "0") : "") + millis;
+    }
+}
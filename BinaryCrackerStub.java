@@ -0,0 +1,307 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client side of the binary transport: a {@link CrackerInterface} whose
+ * calls go to a {@link BinaryTransportServer} instead of through RMI.
+ *
+ * All calls share one connection, each waiting only for its own reply, so
+ * a stop signal can overtake a running search call. A coordinator passed to
+ * {@link #leaseSearch} stays in this process: it is registered under an ID
+ * for the duration of the call, and the server's lease requests arrive as
+ * callbacks on the same connection. Callbacks are answered on the thread
+ * that reads the connection, saving a thread handoff per chunk, so a
+ * coordinator must not block in them; {@link ChunkLeaseCoordinator} only
+ * updates its own state.
+ */
+public final class BinaryCrackerStub implements CrackerInterface, Closeable {
+
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+
+    private final Socket socket;
+    private final OutputStream output;
+    // A lock rather than synchronized, so a virtual thread blocked in a write does not pin its carrier
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final BinaryEndpoint endpoint;
+    private final Map<Integer, ChunkCoordinator> coordinators = new ConcurrentHashMap<>();
+    private final AtomicInteger nextCoordinatorId = new AtomicInteger();
+    private String serverName;
+
+    private BinaryCrackerStub(Socket socket) throws IOException {
+        this.socket = socket;
+        this.output = socket.getOutputStream();
+        this.endpoint = new BinaryEndpoint(this::send, this::handleCallback, Runnable::run);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        Thread reader = new Thread(() -> readLoop(input), "Binary-Reader-" + socket.getRemoteSocketAddress());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Connects to a server's binary transport and checks that it is the expected server.
+     *
+     * @param expectedName name the server must report, or null to accept any
+     * @throws IOException if the connection or the handshake fails
+     */
+    public static BinaryCrackerStub connect(String host, int port, String expectedName) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+            socket.setTcpNoDelay(true);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        BinaryCrackerStub stub = new BinaryCrackerStub(socket);
+        try {
+            String name = BinaryProtocol.readString(stub.endpoint.call(BinaryProtocol.HELLO, out -> {
+                out.writeInt(BinaryProtocol.MAGIC);
+                out.writeInt(BinaryProtocol.VERSION);
+            }));
+            if (expectedName != null && !expectedName.equals(name)) {
+                throw new IOException("Port " + port + " belongs to server " + name);
+            }
+            stub.serverName = name;
+            return stub;
+        } catch (IOException e) {
+            stub.close();
+            throw e;
+        }
+    }
+
+    public String getServerName() {
+        return serverName;
+    }
+
+    @Override
+    public SearchResult searchPassword(String targetHash, int startCharIndex, int endCharIndex,
+                                       int numThreads, int passwordLength) throws RemoteException {
+        return searchPassword(null, targetHash, startCharIndex, endCharIndex, numThreads, passwordLength,
+                              JobScheduler.DEFAULT_PRIORITY);
+    }
+
+    @Override
+    public SearchResult searchPassword(String jobId, String targetHash, int startCharIndex, int endCharIndex,
+                                       int numThreads, int passwordLength, int priority) throws RemoteException {
+        DataInput in = endpoint.call(BinaryProtocol.SEARCH_PASSWORD, out -> {
+            BinaryProtocol.writeString(out, jobId);
+            BinaryProtocol.writeString(out, targetHash);
+            out.writeInt(startCharIndex);
+            out.writeInt(endCharIndex);
+            out.writeInt(numThreads);
+            out.writeInt(passwordLength);
+            out.writeInt(priority);
+        });
+        try {
+            return BinaryProtocol.readResult(in);
+        } catch (IOException e) {
+            throw malformed(e);
+        }
+    }
+
+    @Override
+    public SearchResult leaseSearch(ChunkCoordinator coordinator, int numThreads) throws RemoteException {
+        int coordinatorId = nextCoordinatorId.incrementAndGet();
+        coordinators.put(coordinatorId, coordinator);
+        try {
+            DataInput in = endpoint.call(BinaryProtocol.LEASE_SEARCH, out -> {
+                out.writeInt(coordinatorId);
+                out.writeInt(numThreads);
+            });
+            return BinaryProtocol.readResult(in);
+        } catch (RemoteException e) {
+            throw e;
+        } catch (IOException e) {
+            throw malformed(e);
+        } finally {
+            coordinators.remove(coordinatorId);
+        }
+    }
+
+    @Override
+    public SearchProgress getProgress(int foundCursor) throws RemoteException {
+        return getProgress(null, foundCursor);
+    }
+
+    @Override
+    public SearchProgress getProgress(String jobId, int foundCursor) throws RemoteException {
+        DataInput in = endpoint.call(BinaryProtocol.GET_PROGRESS, out -> {
+            BinaryProtocol.writeString(out, jobId);
+            out.writeInt(foundCursor);
+        });
+        try {
+            return BinaryProtocol.readProgress(in);
+        } catch (IOException e) {
+            throw malformed(e);
+        }
+    }
+
+    @Override
+    public List<SearchMetrics> getMetrics() throws RemoteException {
+        DataInput in = endpoint.call(BinaryProtocol.GET_METRICS, null);
+        try {
+            List<SearchMetrics> metrics = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                metrics.add(BinaryProtocol.readMetrics(in));
+            }
+            return metrics;
+        } catch (IOException e) {
+            throw malformed(e);
+        }
+    }
+
+    @Override
+    public SearchMetrics getMetrics(String jobId) throws RemoteException {
+        DataInput in = endpoint.call(BinaryProtocol.GET_JOB_METRICS, out -> BinaryProtocol.writeString(out, jobId));
+        try {
+            return BinaryProtocol.readMetrics(in);
+        } catch (IOException e) {
+            throw malformed(e);
+        }
+    }
+
+    @Override
+    public List<String> getActiveJobs() throws RemoteException {
+        try {
+            return BinaryProtocol.readStrings(endpoint.call(BinaryProtocol.GET_ACTIVE_JOBS, null));
+        } catch (RemoteException e) {
+            throw e;
+        } catch (IOException e) {
+            throw malformed(e);
+        }
+    }
+
+    @Override
+    public void stopSearch() throws RemoteException {
+        stopSearch(null);
+    }
+
+    @Override
+    public void stopSearch(String jobId) throws RemoteException {
+        endpoint.call(BinaryProtocol.STOP_SEARCH, out -> BinaryProtocol.writeString(out, jobId));
+    }
+
+    @Override
+    public String ping() throws RemoteException {
+        try {
+            return BinaryProtocol.readString(endpoint.call(BinaryProtocol.PING, null));
+        } catch (RemoteException e) {
+            throw e;
+        } catch (IOException e) {
+            throw malformed(e);
+        }
+    }
+
+    @Override
+    public int getBinaryPort() {
+        return socket.getPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        endpoint.close(new IOException("Connection closed"));
+        socket.close();
+    }
+
+    private void send(ByteBuffer frame) throws IOException {
+        writeLock.lock();
+        try {
+            output.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+            output.flush();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void readLoop(DataInputStream input) {
+        try {
+            while (true) {
+                int length = input.readInt();
+                if (length < BinaryProtocol.HEADER_BYTES - 4 || length > BinaryProtocol.MAX_FRAME_BYTES) {
+                    throw new IOException("Invalid frame length " + length);
+                }
+                byte[] frame = new byte[length];
+                input.readFully(frame);
+                endpoint.receive(frame);
+            }
+        } catch (EOFException e) {
+            endpoint.close(new EOFException("Connection closed by the server"));
+            closeSocket();
+        } catch (IOException e) {
+            endpoint.close(e);
+            closeSocket();
+        }
+    }
+
+    private void closeSocket() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Already failing every call
+        }
+    }
+
+    /**
+     * Answers a call from the server to a coordinator of a running leased search.
+     */
+    private void handleCallback(byte opcode, DataInput in, DataOutput out) throws IOException {
+        ChunkCoordinator coordinator = coordinators.get(in.readInt());
+        if (coordinator == null) {
+            throw new RemoteException("Leased search already ended");
+        }
+        switch (opcode) {
+            case BinaryProtocol.GET_JOB:
+                BinaryProtocol.writeJob(out, coordinator.getJob());
+                break;
+            case BinaryProtocol.NEXT_CHUNK: {
+                String serverName = BinaryProtocol.readString(in);
+                BinaryProtocol.writeLease(out, coordinator.nextChunk(serverName, in.readDouble()));
+                break;
+            }
+            case BinaryProtocol.REPORT_COMPLETED: {
+                String serverName = BinaryProtocol.readString(in);
+                coordinator.reportCompleted(serverName, BinaryProtocol.readLease(in));
+                break;
+            }
+            case BinaryProtocol.RELEASE_CHUNK: {
+                String serverName = BinaryProtocol.readString(in);
+                coordinator.releaseChunk(serverName, BinaryProtocol.readLease(in));
+                break;
+            }
+            case BinaryProtocol.REPORT_PROGRESS: {
+                String serverName = BinaryProtocol.readString(in);
+                BinaryProtocol.writeStrings(out, coordinator.reportProgress(serverName,
+                                                                            BinaryProtocol.readProgress(in)));
+                break;
+            }
+            case BinaryProtocol.REPORT_FOUND: {
+                String serverName = BinaryProtocol.readString(in);
+                ChunkLease lease = BinaryProtocol.readLease(in);
+                coordinator.reportFound(serverName, lease, BinaryProtocol.readResult(in));
+                break;
+            }
+            default:
+                throw new RemoteException("Unknown callback " + opcode);
+        }
+    }
+
+    private static RemoteException malformed(IOException e) {
+        return new RemoteException("Malformed reply: " + e.getMessage(), e);
+    }
+}
@@ -0,0 +1,168 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One end of a binary transport connection: matches replies to the calls
+ * it sent and answers the calls it receives.
+ *
+ * Any number of threads may call at once; each call gets its own ID and
+ * waits only for its own reply, so calls are pipelined over the single
+ * connection. Incoming requests run on the owner's executor: a pool when
+ * some of them (a search) take as long as the job, or the thread that reads
+ * the connection when all of them are quick. How frames are written and read is up to the owner, which
+ * passes every complete frame it reads to {@link #receive}.
+ */
+public final class BinaryEndpoint {
+
+    /**
+     * Writes a complete frame to the connection.
+     */
+    public interface Sender {
+        void send(ByteBuffer frame) throws IOException;
+    }
+
+    /**
+     * Answers one incoming request.
+     */
+    public interface Handler {
+        /**
+         * @param opcode method called
+         * @param in the request's arguments
+         * @param out receives the reply payload
+         * @throws RemoteException to send an error reply with its message
+         */
+        void handle(byte opcode, DataInput in, DataOutput out) throws IOException;
+    }
+
+    private final Sender sender;
+    private final Handler handler;
+    private final Executor executor;
+    private final Map<Integer, CompletableFuture<DataInput>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger nextCallId = new AtomicInteger();
+    private volatile IOException closed;
+
+    /**
+     * @param sender writes frames to the connection
+     * @param handler answers incoming requests, or null if the peer never sends any
+     * @param executor runs the handler
+     */
+    public BinaryEndpoint(Sender sender, Handler handler, Executor executor) {
+        this.sender = sender;
+        this.handler = handler;
+        this.executor = executor;
+    }
+
+    /**
+     * Calls a method on the peer and waits for its reply.
+     *
+     * @return the reply payload
+     * @throws RemoteException if the peer replied with an error or the connection failed
+     */
+    public DataInput call(byte opcode, BinaryProtocol.Payload arguments) throws RemoteException {
+        int callId = nextCallId.incrementAndGet();
+        CompletableFuture<DataInput> reply = new CompletableFuture<>();
+        pending.put(callId, reply);
+        try {
+            if (closed != null) {
+                throw closed;
+            }
+            sender.send(BinaryProtocol.frame(callId, BinaryProtocol.REQUEST, opcode, arguments));
+            return reply.get();
+        } catch (IOException e) {
+            throw new RemoteException("Binary transport call failed: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RemoteException) {
+                throw (RemoteException) cause;
+            }
+            throw new RemoteException("Binary transport call failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Binary transport call interrupted", e);
+        } finally {
+            pending.remove(callId);
+        }
+    }
+
+    /**
+     * Handles one complete frame read from the connection.
+     *
+     * @param frame the frame after its length field
+     * @throws IOException if the frame is malformed
+     */
+    public void receive(byte[] frame) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+        int callId = in.readInt();
+        byte kind = in.readByte();
+        byte opcode = in.readByte();
+        if (kind == BinaryProtocol.REQUEST) {
+            if (handler == null) {
+                throw new IOException("Unexpected request " + opcode);
+            }
+            executor.execute(() -> answer(callId, opcode, in));
+            return;
+        }
+        CompletableFuture<DataInput> reply = pending.get(callId);
+        if (reply == null) {
+            // The caller gave up, e.g. because the connection failed meanwhile
+            return;
+        }
+        if (kind == BinaryProtocol.REPLY) {
+            reply.complete(in);
+        } else if (kind == BinaryProtocol.ERROR) {
+            reply.completeExceptionally(new RemoteException(BinaryProtocol.readString(in)));
+        } else {
+            throw new IOException("Unknown frame kind " + kind);
+        }
+    }
+
+    /**
+     * Fails every call waiting for a reply; later calls fail at once.
+     */
+    public void close(IOException cause) {
+        closed = cause;
+        for (CompletableFuture<DataInput> reply : new ArrayList<>(pending.values())) {
+            reply.completeExceptionally(cause);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed != null;
+    }
+
+    private void answer(int callId, byte opcode, DataInput in) {
+        ByteBuffer frame;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            handler.handle(opcode, in, new DataOutputStream(bytes));
+            frame = BinaryProtocol.frame(callId, BinaryProtocol.REPLY, opcode, out -> out.write(bytes.toByteArray()));
+        } catch (IOException | RuntimeException e) {
+            try {
+                String message = e.getMessage() != null ? e.getMessage() : e.toString();
+                frame = BinaryProtocol.frame(callId, BinaryProtocol.ERROR, opcode,
+                                             out -> BinaryProtocol.writeString(out, message));
+            } catch (IOException impossible) {
+                return;
+            }
+        }
+        try {
+            sender.send(frame);
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Frame format and field encodings of the binary transport, an alternative
+ * to RMI for {@link CrackerInterface} and the {@link ChunkCoordinator}
+ * callbacks of a leased search.
+ *
+ * Every message is one frame with a fixed header:
+ * <pre>
+ * offset 0: length   (int)   bytes after this field
+ * offset 4: call ID  (int)   chosen by the caller, echoed in the reply
+ * offset 8: kind     (byte)  REQUEST, REPLY or ERROR
+ * offset 9: opcode   (byte)  method called; echoed in the reply
+ * offset 10: payload
+ * </pre>
+ * A request's payload holds the method's arguments in declaration order, a
+ * reply's holds the return value, and an error's holds a message. Both ends
+ * may send requests: the client calls the server, and during a leased
+ * search the server calls the client's coordinator on the same connection.
+ * Call IDs let any number of calls be in flight at once, and replies may
+ * arrive in any order.
+ *
+ * Fields are big-endian. Strings are an int byte count followed by UTF-8
+ * bytes, with -1 for null. Lists and maps are an int count followed by the
+ * elements. Objects that may be null start with a presence byte.
+ */
+public final class BinaryProtocol {
+
+    /** First field of a {@link #HELLO} request, so a stray connection is rejected. */
+    public static final int MAGIC = 0x4d443543; // "MD5C"
+    public static final int VERSION = 1;
+
+    /** Largest frame either end accepts. */
+    public static final int MAX_FRAME_BYTES = 16 << 20;
+
+    public static final int HEADER_BYTES = 10;
+
+    public static final byte REQUEST = 0;
+    public static final byte REPLY = 1;
+    public static final byte ERROR = 2;
+
+    // Client to server: CrackerInterface
+    public static final byte HELLO = 1;
+    public static final byte SEARCH_PASSWORD = 2;
+    public static final byte LEASE_SEARCH = 3;
+    public static final byte GET_PROGRESS = 4;
+    public static final byte GET_METRICS = 5;
+    public static final byte GET_JOB_METRICS = 6;
+    public static final byte GET_ACTIVE_JOBS = 7;
+    public static final byte STOP_SEARCH = 8;
+    public static final byte PING = 9;
+    public static final byte GET_BINARY_PORT = 10;
+
+    // Server to client: ChunkCoordinator of a leased search, named by the ID in LEASE_SEARCH
+    public static final byte GET_JOB = 32;
+    public static final byte NEXT_CHUNK = 33;
+    public static final byte REPORT_COMPLETED = 34;
+    public static final byte REPORT_PROGRESS = 35;
+    public static final byte REPORT_FOUND = 36;
+    public static final byte RELEASE_CHUNK = 37;
+
+    /**
+     * Writes a message payload.
+     */
+    public interface Payload {
+        void write(DataOutput out) throws IOException;
+    }
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * Builds a complete frame, length field included, ready to be written.
+     */
+    public static ByteBuffer frame(int callId, byte kind, byte opcode, Payload payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeInt(callId);
+        out.writeByte(kind);
+        out.writeByte(opcode);
+        if (payload != null) {
+            payload.write(out);
+        }
+        ByteBuffer frame = ByteBuffer.wrap(bytes.toByteArray());
+        if (frame.remaining() - 4 > MAX_FRAME_BYTES) {
+            throw new IOException("Frame of " + (frame.remaining() - 4) + " bytes exceeds the limit");
+        }
+        frame.putInt(0, frame.remaining() - 4);
+        return frame;
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeStrings(DataOutput out, List<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    public static List<String> readStrings(DataInput in) throws IOException {
+        int count = readCount(in);
+        if (count < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    public static void writeResult(DataOutput out, SearchResult result) throws IOException {
+        out.writeBoolean(result != null);
+        if (result == null) {
+            return;
+        }
+        out.writeBoolean(result.isFound());
+        writeString(out, result.getPassword());
+        writeString(out, result.getThreadName());
+        writeString(out, result.getServerName());
+        out.writeLong(result.getSearchTimeMs());
+        out.writeLong(result.getCandidatesTested());
+        out.writeLong(result.getEarlyExits());
+        out.writeLong(result.getStepsSaved());
+        writeString(out, result.getTargetHash());
+    }
+
+    public static SearchResult readResult(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return new SearchResult(in.readBoolean(), readString(in), readString(in), readString(in),
+                                in.readLong(), in.readLong(), in.readLong(), in.readLong(), readString(in));
+    }
+
+    public static void writeLease(DataOutput out, ChunkLease lease) throws IOException {
+        out.writeBoolean(lease != null);
+        if (lease != null) {
+            out.writeLong(lease.getLeaseId());
+            out.writeLong(lease.getStartPrefix());
+            out.writeLong(lease.getEndPrefix());
+        }
+    }
+
+    public static ChunkLease readLease(DataInput in) throws IOException {
+        return in.readBoolean() ? new ChunkLease(in.readLong(), in.readLong(), in.readLong()) : null;
+    }
+
+    public static void writeJob(DataOutput out, JobSpec job) throws IOException {
+        writeString(out, job.getJobId());
+        writeStrings(out, job.getTargetHashes());
+        out.writeInt(job.getMinLength());
+        out.writeInt(job.getPasswordLength());
+        writeString(out, job.getMask());
+        writeString(out, job.getWordlist());
+        out.writeLong(job.getWordlistSize());
+        writeStrings(out, job.getRules());
+        out.writeInt(job.getPriority());
+    }
+
+    public static JobSpec readJob(DataInput in) throws IOException {
+        return new JobSpec(readString(in), readStrings(in), in.readInt(), in.readInt(), readString(in),
+                           readString(in), in.readLong(), readStrings(in), in.readInt());
+    }
+
+    public static void writeProgress(DataOutput out, SearchProgress progress) throws IOException {
+        out.writeBoolean(progress != null);
+        if (progress == null) {
+            return;
+        }
+        writeString(out, progress.getServerName());
+        writeString(out, progress.getJobId());
+        out.writeBoolean(progress.isRunning());
+        out.writeLong(progress.getElapsedMs());
+        out.writeLong(progress.getCandidatesTested());
+        writeString(out, progress.getCurrentPrefix());
+        out.writeInt(progress.getFoundCount());
+        out.writeInt(progress.getNewlyFound().size());
+        for (SearchResult result : progress.getNewlyFound()) {
+            writeResult(out, result);
+        }
+        out.writeInt(progress.getNextCursor());
+    }
+
+    public static SearchProgress readProgress(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String serverName = readString(in);
+        String jobId = readString(in);
+        boolean running = in.readBoolean();
+        long elapsedMs = in.readLong();
+        long candidatesTested = in.readLong();
+        String currentPrefix = readString(in);
+        int foundCount = in.readInt();
+        int count = readCount(in);
+        List<SearchResult> newlyFound = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            newlyFound.add(readResult(in));
+        }
+        return new SearchProgress(serverName, jobId, running, elapsedMs, candidatesTested, currentPrefix,
+                                  foundCount, newlyFound, in.readInt());
+    }
+
+    public static void writeMetrics(DataOutput out, SearchMetrics metrics) throws IOException {
+        out.writeBoolean(metrics != null);
+        if (metrics == null) {
+            return;
+        }
+        writeString(out, metrics.getServerName());
+        writeString(out, metrics.getJobId());
+        out.writeBoolean(metrics.isRunning());
+        out.writeLong(metrics.getElapsedMs());
+        out.writeLong(metrics.getCandidatesTested());
+        out.writeLong(metrics.getScheduledPrefixes());
+        out.writeLong(metrics.getCompletedPrefixes());
+        out.writeDouble(metrics.getPrefixesPerSecond());
+        out.writeInt(metrics.getThreadCandidates().size());
+        for (Map.Entry<String, Long> entry : metrics.getThreadCandidates().entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        out.writeInt(metrics.getThreadRates().size());
+        for (Map.Entry<String, Double> entry : metrics.getThreadRates().entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeDouble(entry.getValue());
+        }
+    }
+
+    public static SearchMetrics readMetrics(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String serverName = readString(in);
+        String jobId = readString(in);
+        boolean running = in.readBoolean();
+        long elapsedMs = in.readLong();
+        long candidatesTested = in.readLong();
+        long scheduledPrefixes = in.readLong();
+        long completedPrefixes = in.readLong();
+        double prefixesPerSecond = in.readDouble();
+        Map<String, Long> threadCandidates = new LinkedHashMap<>();
+        for (int i = readCount(in); i > 0; i--) {
+            threadCandidates.put(readString(in), in.readLong());
+        }
+        Map<String, Double> threadRates = new LinkedHashMap<>();
+        for (int i = readCount(in); i > 0; i--) {
+            threadRates.put(readString(in), in.readDouble());
+        }
+        return new SearchMetrics(serverName, jobId, running, elapsedMs, candidatesTested, scheduledPrefixes,
+                                 completedPrefixes, prefixesPerSecond, threadCandidates, threadRates);
+    }
+
+    private static int readCount(DataInput in) throws IOException {
+        int count = in.readInt();
+        if (count > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid element count " + count);
+        }
+        return count;
+    }
+}
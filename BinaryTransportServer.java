@@ -0,0 +1,425 @@
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.channels.SelectionKey.OP_ACCEPT;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+
+/**
+ * Non-blocking server side of the binary transport ({@link BinaryProtocol}),
+ * serving a {@link CrackerInterface} next to its RMI export.
+ *
+ * One selector thread accepts connections and reads frames for every
+ * connection, so idle clients cost no thread. Decoded requests run on a
+ * shared pool of call threads, since a search call lasts as long as the
+ * job. A thread with a frame to send writes it straight to the socket when
+ * nothing is queued ahead of it; only what the socket does not take at once
+ * is queued for the selector thread.
+ * A client keeps one connection for all its calls and may pipeline them.
+ *
+ * For a leased search the client names a coordinator ID instead of passing
+ * an RMI stub. The server then reaches the coordinator through a
+ * {@link ChunkCoordinator} proxy whose calls travel back over the same
+ * connection, so chunk leases cost one small frame each way.
+ */
+public final class BinaryTransportServer implements Closeable {
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final CrackerInterface target;
+    private final String serverName;
+    private final ServerSocketChannel listener;
+    private final Selector selector;
+    private final ExecutorService calls;
+    private final Thread selectorThread;
+
+    // Connections with frames queued, whose keys the selector thread must watch for OP_WRITE
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final List<Connection> connections = new ArrayList<>();
+    private volatile boolean running = true;
+
+    /**
+     * Starts listening.
+     *
+     * @param target object whose methods the requests call
+     * @param serverName name sent in reply to the handshake, so clients can verify the server
+     * @param port TCP port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public BinaryTransportServer(CrackerInterface target, String serverName, int port) throws IOException {
+        this.target = target;
+        this.serverName = serverName;
+        this.listener = ServerSocketChannel.open();
+        this.selector = Selector.open();
+        try {
+            listener.bind(new InetSocketAddress(port));
+            listener.configureBlocking(false);
+            listener.register(selector, OP_ACCEPT);
+        } catch (IOException e) {
+            listener.close();
+            selector.close();
+            throw e;
+        }
+
+        AtomicInteger callThreads = new AtomicInteger();
+        this.calls = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, serverName + "-Binary-Call-" + callThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.selectorThread = new Thread(this::selectLoop, serverName + "-Binary");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     */
+    public int getPort() {
+        return listener.socket().getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        calls.shutdownNow();
+    }
+
+    private void selectLoop() {
+        try {
+            while (running) {
+                selector.select();
+                Connection connection;
+                while ((connection = pendingWrites.poll()) != null) {
+                    connection.watchWrites();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                    } catch (IOException e) {
+                        connection.close(e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // The selector failed; every connection is closed below
+        } finally {
+            for (Connection connection : new ArrayList<>(connections)) {
+                connection.close(new IOException("Binary transport closed"));
+            }
+            closeQuietly(listener);
+            closeQuietly(selector);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = listener.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        SelectionKey key = channel.register(selector, OP_READ);
+        Connection connection = new Connection(channel, key);
+        key.attach(connection);
+        connections.add(connection);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Nothing left to clean up
+        }
+    }
+
+    /**
+     * One client connection. Reads happen on the selector thread; writes
+     * happen on whichever thread holds the connection's lock.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final BinaryEndpoint endpoint;
+        // Frames not yet fully written, guarded by this connection's lock
+        private final Queue<ByteBuffer> writes = new ArrayDeque<>();
+        private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+            this.endpoint = new BinaryEndpoint(this::send, this::handle, calls);
+        }
+
+        /**
+         * Writes a frame, or queues the part the socket did not take and
+         * wakes the selector thread to write it once the socket drains.
+         */
+        void send(ByteBuffer frame) throws IOException {
+            synchronized (this) {
+                if (!channel.isOpen()) {
+                    throw new IOException("Connection closed");
+                }
+                if (writes.isEmpty()) {
+                    channel.write(frame);
+                    if (!frame.hasRemaining()) {
+                        return;
+                    }
+                }
+                writes.add(frame);
+            }
+            pendingWrites.add(this);
+            selector.wakeup();
+        }
+
+        synchronized void watchWrites() {
+            if (key.isValid() && !writes.isEmpty()) {
+                key.interestOps(OP_READ | OP_WRITE);
+            }
+        }
+
+        /**
+         * Reads what is available and hands every complete frame to the endpoint.
+         */
+        void read() throws IOException {
+            if (channel.read(readBuffer) < 0) {
+                throw new EOFException("Connection closed by client");
+            }
+            readBuffer.flip();
+            while (readBuffer.remaining() >= 4) {
+                int length = readBuffer.getInt(readBuffer.position());
+                if (length < BinaryProtocol.HEADER_BYTES - 4 || length > BinaryProtocol.MAX_FRAME_BYTES) {
+                    throw new IOException("Invalid frame length " + length);
+                }
+                if (readBuffer.remaining() < 4 + length) {
+                    if (4 + length > readBuffer.capacity()) {
+                        // A frame larger than the buffer: keep what was read in a buffer that fits it
+                        ByteBuffer larger = ByteBuffer.allocate(4 + length);
+                        larger.put(readBuffer);
+                        readBuffer = larger;
+                        return;
+                    }
+                    break;
+                }
+                readBuffer.getInt();
+                byte[] frame = new byte[length];
+                readBuffer.get(frame);
+                endpoint.receive(frame);
+            }
+            readBuffer.compact();
+        }
+
+        /**
+         * Writes queued frames until the socket buffer is full or the queue is empty.
+         */
+        synchronized void write() throws IOException {
+            ByteBuffer frame;
+            while ((frame = writes.peek()) != null) {
+                channel.write(frame);
+                if (frame.hasRemaining()) {
+                    return;
+                }
+                writes.poll();
+            }
+            key.interestOps(OP_READ);
+        }
+
+        void close(IOException cause) {
+            key.cancel();
+            closeQuietly(channel);
+            connections.remove(this);
+            endpoint.close(cause);
+        }
+
+        /**
+         * Decodes one request, calls the target and encodes its return value.
+         */
+        void handle(byte opcode, DataInput in, DataOutput out) throws IOException {
+            switch (opcode) {
+                case BinaryProtocol.HELLO:
+                    if (in.readInt() != BinaryProtocol.MAGIC || in.readInt() != BinaryProtocol.VERSION) {
+                        throw new RemoteException("Unsupported binary protocol");
+                    }
+                    BinaryProtocol.writeString(out, serverName);
+                    break;
+                case BinaryProtocol.SEARCH_PASSWORD: {
+                    String jobId = BinaryProtocol.readString(in);
+                    String targetHash = BinaryProtocol.readString(in);
+                    int startCharIndex = in.readInt();
+                    int endCharIndex = in.readInt();
+                    int numThreads = in.readInt();
+                    int passwordLength = in.readInt();
+                    int priority = in.readInt();
+                    BinaryProtocol.writeResult(out, jobId == null
+                        ? target.searchPassword(targetHash, startCharIndex, endCharIndex, numThreads, passwordLength)
+                        : target.searchPassword(jobId, targetHash, startCharIndex, endCharIndex, numThreads,
+                                                passwordLength, priority));
+                    break;
+                }
+                case BinaryProtocol.LEASE_SEARCH: {
+                    int coordinatorId = in.readInt();
+                    int numThreads = in.readInt();
+                    BinaryProtocol.writeResult(out, target.leaseSearch(
+                        new CoordinatorProxy(endpoint, coordinatorId), numThreads));
+                    break;
+                }
+                case BinaryProtocol.GET_PROGRESS: {
+                    String jobId = BinaryProtocol.readString(in);
+                    int foundCursor = in.readInt();
+                    BinaryProtocol.writeProgress(out, jobId == null ? target.getProgress(foundCursor)
+                                                                    : target.getProgress(jobId, foundCursor));
+                    break;
+                }
+                case BinaryProtocol.GET_METRICS: {
+                    List<SearchMetrics> metrics = target.getMetrics();
+                    out.writeInt(metrics.size());
+                    for (SearchMetrics job : metrics) {
+                        BinaryProtocol.writeMetrics(out, job);
+                    }
+                    break;
+                }
+                case BinaryProtocol.GET_JOB_METRICS:
+                    BinaryProtocol.writeMetrics(out, target.getMetrics(BinaryProtocol.readString(in)));
+                    break;
+                case BinaryProtocol.GET_ACTIVE_JOBS:
+                    BinaryProtocol.writeStrings(out, target.getActiveJobs());
+                    break;
+                case BinaryProtocol.STOP_SEARCH: {
+                    String jobId = BinaryProtocol.readString(in);
+                    if (jobId == null) {
+                        target.stopSearch();
+                    } else {
+                        target.stopSearch(jobId);
+                    }
+                    break;
+                }
+                case BinaryProtocol.PING:
+                    BinaryProtocol.writeString(out, target.ping());
+                    break;
+                case BinaryProtocol.GET_BINARY_PORT:
+                    out.writeInt(target.getBinaryPort());
+                    break;
+                default:
+                    throw new RemoteException("Unknown opcode " + opcode);
+            }
+        }
+    }
+
+    /**
+     * The client's coordinator of one leased search, called back over the
+     * connection the search was started on.
+     */
+    private static final class CoordinatorProxy implements ChunkCoordinator {
+        private final BinaryEndpoint endpoint;
+        private final int coordinatorId;
+
+        CoordinatorProxy(BinaryEndpoint endpoint, int coordinatorId) {
+            this.endpoint = endpoint;
+            this.coordinatorId = coordinatorId;
+        }
+
+        @Override
+        public JobSpec getJob() throws RemoteException {
+            DataInput in = endpoint.call(BinaryProtocol.GET_JOB, out -> out.writeInt(coordinatorId));
+            try {
+                return BinaryProtocol.readJob(in);
+            } catch (IOException e) {
+                throw new RemoteException("Malformed job", e);
+            }
+        }
+
+        @Override
+        public ChunkLease nextChunk(String serverName, double prefixesPerSecond) throws RemoteException {
+            DataInput in = endpoint.call(BinaryProtocol.NEXT_CHUNK, out -> {
+                out.writeInt(coordinatorId);
+                BinaryProtocol.writeString(out, serverName);
+                out.writeDouble(prefixesPerSecond);
+            });
+            try {
+                return BinaryProtocol.readLease(in);
+            } catch (IOException e) {
+                throw new RemoteException("Malformed lease", e);
+            }
+        }
+
+        @Override
+        public void reportCompleted(String serverName, ChunkLease lease) throws RemoteException {
+            endpoint.call(BinaryProtocol.REPORT_COMPLETED, out -> {
+                out.writeInt(coordinatorId);
+                BinaryProtocol.writeString(out, serverName);
+                BinaryProtocol.writeLease(out, lease);
+            });
+        }
+
+        @Override
+        public void releaseChunk(String serverName, ChunkLease lease) throws RemoteException {
+            endpoint.call(BinaryProtocol.RELEASE_CHUNK, out -> {
+                out.writeInt(coordinatorId);
+                BinaryProtocol.writeString(out, serverName);
+                BinaryProtocol.writeLease(out, lease);
+            });
+        }
+
+        @Override
+        public List<String> reportProgress(String serverName, SearchProgress progress) throws RemoteException {
+            DataInput in = endpoint.call(BinaryProtocol.REPORT_PROGRESS, out -> {
+                out.writeInt(coordinatorId);
+                BinaryProtocol.writeString(out, serverName);
+                BinaryProtocol.writeProgress(out, progress);
+            });
+            try {
+                return BinaryProtocol.readStrings(in);
+            } catch (IOException e) {
+                throw new RemoteException("Malformed reply", e);
+            }
+        }
+
+        @Override
+        public void reportFound(String serverName, ChunkLease lease, SearchResult result) throws RemoteException {
+            endpoint.call(BinaryProtocol.REPORT_FOUND, out -> {
+                out.writeInt(coordinatorId);
+                BinaryProtocol.writeString(out, serverName);
+                BinaryProtocol.writeLease(out, lease);
+                BinaryProtocol.writeResult(out, result);
+            });
+        }
+    }
+}
@@ -0,0 +1,54 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cancellation flag of one search job.
+ *
+ * Worker threads poll the token at chunk boundaries and every few prefixes,
+ * while it is written at most once. The state lives in the middle of a small
+ * array so that the cache line it sits on holds nothing else; frequently
+ * written job fields such as statistics or the current prefix therefore never
+ * invalidate the line the workers keep reading.
+ */
+public final class CancellationToken {
+
+    /**
+     * Why a job was cancelled.
+     */
+    public enum Reason {
+        /** Every target was cracked. */
+        ALL_FOUND,
+        /** A client asked the server to stop the job. */
+        STOPPED
+    }
+
+    // 8 longs (64 bytes) of padding on either side of the state
+    private static final int PADDING = 8;
+    private static final long ACTIVE = -1;
+
+    private final AtomicLongArray cells = new AtomicLongArray(2 * PADDING + 1);
+
+    public CancellationToken() {
+        cells.set(PADDING, ACTIVE);
+    }
+
+    /**
+     * Cancels the job; only the first reason is kept.
+     *
+     * @return true if this call cancelled the job
+     */
+    public boolean cancel(Reason reason) {
+        return cells.compareAndSet(PADDING, ACTIVE, reason.ordinal());
+    }
+
+    public boolean isCancelled() {
+        return cells.get(PADDING) != ACTIVE;
+    }
+
+    /**
+     * Returns why the job was cancelled, or null while it is active.
+     */
+    public Reason getReason() {
+        long state = cells.get(PADDING);
+        return state == ACTIVE ? null : Reason.values()[(int) state];
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Odometer-style enumerator over a range of prefix indices of a {@link Keyspace}.
+ *
+ * Each prefix position walks its own character set, and the last position
+ * is swept by {@link #sweepLastPosition()}. When the odometer advances,
+ * only the positions that actually changed are written into the kernel,
+ * and the kernel's per-prefix state is refreshed once for the whole sweep
+ * of the last position instead of once per candidate.
+ */
+public final class CandidateEnumerator {
+
+    private final HashKernel kernel;
+    private final Keyspace keyspace;
+    private final int length;
+    private final char[] lastCharset;
+
+    // Charset index of every prefix position (all positions except the last)
+    private final int[] digits;
+    private final long startPrefix;
+    private long remaining;
+    private boolean started;
+
+    /**
+     * @param kernel kernel prepared for candidates of the keyspace's length
+     * @param keyspace search space the indices refer to
+     * @param startPrefix first prefix index of the range (inclusive)
+     * @param endPrefix last prefix index of the range (exclusive)
+     */
+    public CandidateEnumerator(HashKernel kernel, Keyspace keyspace, long startPrefix, long endPrefix) {
+        this.kernel = kernel;
+        this.keyspace = keyspace;
+        this.length = keyspace.getLength();
+        this.lastCharset = keyspace.getCharset(length - 1);
+        this.digits = new int[length - 1];
+        this.startPrefix = startPrefix;
+        this.remaining = Math.max(0, endPrefix - startPrefix);
+    }
+
+    /**
+     * Advances to the next prefix and prepares the kernel for it.
+     *
+     * @return false once every prefix of the range has been visited
+     */
+    public boolean nextPrefix() {
+        if (remaining == 0) {
+            return false;
+        }
+        remaining--;
+
+        if (!started) {
+            started = true;
+            keyspace.decode(startPrefix, digits);
+            for (int pos = 0; pos < digits.length; pos++) {
+                kernel.setByte(pos, keyspace.getCharset(pos)[digits[pos]]);
+            }
+            kernel.prepare();
+            return true;
+        }
+
+        // Increment the prefix odometer, rewriting only the positions that roll over
+        for (int pos = digits.length - 1; pos >= 0; pos--) {
+            char[] charset = keyspace.getCharset(pos);
+            if (++digits[pos] < charset.length) {
+                kernel.setByte(pos, charset[digits[pos]]);
+                break;
+            }
+            digits[pos] = 0;
+            kernel.setByte(pos, charset[0]);
+        }
+        kernel.prepare();
+        return true;
+    }
+
+    /**
+     * Hashes every candidate of the current prefix.
+     *
+     * @return charset index of the matching last character, or -1
+     */
+    public int sweepLastPosition() {
+        return sweepLastPosition(0);
+    }
+
+    /**
+     * Hashes the candidates of the current prefix whose last character index is
+     * at least {@code from}, so a sweep can resume after a match.
+     *
+     * @return charset index of the next matching last character, or -1
+     */
+    public int sweepLastPosition(int from) {
+        return kernel.sweepLastPosition(lastCharset, from, lastCharset.length);
+    }
+
+    /**
+     * Builds the candidate string for the current prefix and the given last character.
+     */
+    public String candidate(int lastIndex) {
+        char[] chars = new char[length];
+        for (int pos = 0; pos < digits.length; pos++) {
+            chars[pos] = keyspace.getCharset(pos)[digits[pos]];
+        }
+        chars[length - 1] = lastCharset[lastIndex];
+        return new String(chars);
+    }
+}
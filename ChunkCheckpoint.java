@@ -0,0 +1,263 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Memory-mapped record of which parts of a job's prefix index space have
+ * been searched, so a restarted server or client can resume the job.
+ *
+ * The index space is divided into at most {@link #MAX_BLOCKS} equal blocks.
+ * The file holds one counter of searched prefixes per block; a block is done
+ * once its counter reaches the block length. Completed chunks only add to
+ * the counters, so writing a checkpoint is a few stores into the mapping and
+ * survives a crash of the JVM; {@link #markSearched} also forces the mapping
+ * to disk at most once per {@link #FORCE_INTERVAL_MS}.
+ *
+ * Progress inside a block that was not finished is not tracked by position,
+ * so such blocks are reset when the file is reopened and searched again.
+ *
+ * <pre>
+ * offset  0: magic        (long)
+ * offset  8: job key hash (long)
+ * offset 16: prefix count (long)
+ * offset 24: block size   (long)
+ * offset 32: block count  (int), 4 bytes padding
+ * offset 40: searched prefixes of every block (long each)
+ * </pre>
+ */
+public final class ChunkCheckpoint implements Closeable {
+
+    /** Upper bound on blocks per job; keeps the file at most 8 MiB. */
+    public static final int MAX_BLOCKS = 1 << 20;
+
+    private static final long MAGIC = 0x4d4435434b505431L; // "MD5CKPT1"
+    private static final int HEADER_BYTES = 40;
+    private static final long FORCE_INTERVAL_MS = 1000;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long prefixCount;
+    private final long blockSize;
+    private final int blockCount;
+
+    private long searchedPrefixes;
+    private int doneBlocks;
+    private long lastForce;
+
+    private ChunkCheckpoint(Path file, FileChannel channel, MappedByteBuffer buffer,
+                            long prefixCount, long blockSize, int blockCount) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.prefixCount = prefixCount;
+        this.blockSize = blockSize;
+        this.blockCount = blockCount;
+    }
+
+    /**
+     * Opens the checkpoint of a job, creating it if it does not exist or
+     * belongs to a different job.
+     *
+     * @param directory directory holding checkpoint files
+     * @param jobKey string that identifies the job's target and keyspace
+     * @param prefixCount size of the job's prefix index space
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static ChunkCheckpoint open(Path directory, String jobKey, long prefixCount) throws IOException {
+        long keyHash = keyHash(jobKey);
+        long blockSize = Math.max(1, (prefixCount + MAX_BLOCKS - 1) / MAX_BLOCKS);
+        int blockCount = (int) ((prefixCount + blockSize - 1) / blockSize);
+
+        Files.createDirectories(directory);
+        Path file = directory.resolve(String.format("%016x.ckpt", keyHash));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = HEADER_BYTES + 8L * blockCount;
+        boolean reuse = channel.size() == size;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        if (reuse) {
+            reuse = buffer.getLong(0) == MAGIC && buffer.getLong(8) == keyHash
+                    && buffer.getLong(16) == prefixCount && buffer.getLong(24) == blockSize
+                    && buffer.getInt(32) == blockCount;
+        }
+        if (!reuse) {
+            for (int offset = HEADER_BYTES; offset < size; offset += 8) {
+                buffer.putLong(offset, 0);
+            }
+            buffer.putLong(8, keyHash);
+            buffer.putLong(16, prefixCount);
+            buffer.putLong(24, blockSize);
+            buffer.putInt(32, blockCount);
+            // The magic goes last so a half-written header is never trusted
+            buffer.putLong(0, MAGIC);
+        }
+
+        ChunkCheckpoint checkpoint = new ChunkCheckpoint(file, channel, buffer, prefixCount,
+                                                         blockSize, blockCount);
+        checkpoint.resetPartialBlocks();
+        buffer.force();
+        return checkpoint;
+    }
+
+    /**
+     * Records that prefixes [start, end) were searched completely.
+     */
+    public synchronized void markSearched(long start, long end) {
+        long position = start;
+        while (position < end) {
+            int block = (int) (position / blockSize);
+            long blockEnd = Math.min(blockStart(block + 1), end);
+            long count = counter(block) + (blockEnd - position);
+            setCounter(block, count);
+            if (count == blockLength(block)) {
+                searchedPrefixes += count;
+                doneBlocks++;
+            }
+            position = blockEnd;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastForce >= FORCE_INTERVAL_MS) {
+            buffer.force();
+            lastForce = now;
+        }
+    }
+
+    /**
+     * Returns the first prefix in [from, to) whose block is not done, or {@code to}.
+     */
+    public synchronized long firstPending(long from, long to) {
+        long position = from;
+        while (position < to && isDone((int) (position / blockSize))) {
+            position = blockStart((int) (position / blockSize) + 1);
+        }
+        return Math.min(position, to);
+    }
+
+    /**
+     * Returns the end of the run of pending blocks that starts at the pending prefix {@code from}, capped at {@code to}.
+     */
+    public synchronized long pendingRunEnd(long from, long to) {
+        long position = from;
+        while (position < to && !isDone((int) (position / blockSize))) {
+            position = blockStart((int) (position / blockSize) + 1);
+        }
+        return Math.min(position, to);
+    }
+
+    /**
+     * Returns the smallest e in [from, to] such that [e, to) holds only done
+     * blocks, i.e. the end of the last pending prefix before {@code to}.
+     */
+    public synchronized long lastPendingEnd(long from, long to) {
+        long position = to;
+        while (position > from && isDone((int) ((position - 1) / blockSize))) {
+            position = blockStart((int) ((position - 1) / blockSize));
+        }
+        return Math.max(position, from);
+    }
+
+    /**
+     * Returns the start of the run of pending blocks that ends at {@code to}, no lower than {@code from}.
+     */
+    public synchronized long pendingRunStart(long from, long to) {
+        long position = to;
+        while (position > from && !isDone((int) ((position - 1) / blockSize))) {
+            position = blockStart((int) ((position - 1) / blockSize));
+        }
+        return Math.max(position, from);
+    }
+
+    /**
+     * Returns the number of prefixes in completed blocks.
+     */
+    public synchronized long getSearchedPrefixes() {
+        return searchedPrefixes;
+    }
+
+    public synchronized int getDoneBlocks() {
+        return doneBlocks;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    public long getPrefixCount() {
+        return prefixCount;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Closes and removes the checkpoint once its job needs no resuming.
+     */
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    private void resetPartialBlocks() {
+        for (int block = 0; block < blockCount; block++) {
+            long count = counter(block);
+            if (count == blockLength(block)) {
+                searchedPrefixes += count;
+                doneBlocks++;
+            } else if (count != 0) {
+                setCounter(block, 0);
+            }
+        }
+    }
+
+    private boolean isDone(int block) {
+        return counter(block) == blockLength(block);
+    }
+
+    private long blockStart(int block) {
+        return Math.min(prefixCount, block * blockSize);
+    }
+
+    private long blockLength(int block) {
+        return blockStart(block + 1) - blockStart(block);
+    }
+
+    private long counter(int block) {
+        return buffer.getLong(HEADER_BYTES + 8 * block);
+    }
+
+    private void setCounter(int block, long value) {
+        buffer.putLong(HEADER_BYTES + 8 * block, value);
+    }
+
+    private static long keyHash(String jobKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(jobKey.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
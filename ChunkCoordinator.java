@@ -0,0 +1,62 @@
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+/**
+ * Remote interface exported by the client for pull-based work distribution.
+ * Servers lease keyspace chunks from the coordinator at their own pace and
+ * report each chunk back, so fast machines simply lease more often.
+ */
+public interface ChunkCoordinator extends Remote {
+    
+    /**
+     * Returns the job every lease refers to.
+     * 
+     * @throws RemoteException if RMI communication fails
+     */
+    JobSpec getJob() throws RemoteException;
+    
+    /**
+     * Leases the next chunk of the keyspace.
+     * 
+     * @param serverName name of the requesting server
+     * @param prefixesPerSecond throughput the server measured on its previous
+     *                          lease, or 0 if it has not completed one yet
+     * @return the next chunk; an empty chunk if nothing can be leased now but
+     *         chunks are still being searched elsewhere, in which case the
+     *         server should ask again shortly; or null when the job is finished
+     * @throws RemoteException if RMI communication fails
+     */
+    ChunkLease nextChunk(String serverName, double prefixesPerSecond) throws RemoteException;
+    
+    /**
+     * Reports that a leased chunk was searched without finding the password.
+     * A chunk may have been leased to two servers; only the first report counts.
+     * 
+     * @throws RemoteException if RMI communication fails
+     */
+    void reportCompleted(String serverName, ChunkLease lease) throws RemoteException;
+    
+    /**
+     * Gives back a leased chunk that was not fully searched, e.g. after a
+     * search error, so that it is leased again to the next server that asks.
+     * 
+     * @throws RemoteException if RMI communication fails
+     */
+    void releaseChunk(String serverName, ChunkLease lease) throws RemoteException;
+    
+    /**
+     * Receives a periodic progress snapshot from a server.
+     * 
+     * @return hashes cracked so far by any server; the caller stops searching for them
+     * @throws RemoteException if RMI communication fails
+     */
+    List<String> reportProgress(String serverName, SearchProgress progress) throws RemoteException;
+    
+    /**
+     * Reports that the password was found inside a leased chunk.
+     * 
+     * @throws RemoteException if RMI communication fails
+     */
+    void reportFound(String serverName, ChunkLease lease, SearchResult result) throws RemoteException;
+}
@@ -0,0 +1,39 @@
+import java.io.Serializable;
+
+/**
+ * A range of prefix indices handed to one server by the coordinator.
+ */
+public class ChunkLease implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private final long leaseId;
+    private final long startPrefix;
+    private final long endPrefix;
+    
+    public ChunkLease(long leaseId, long startPrefix, long endPrefix) {
+        this.leaseId = leaseId;
+        this.startPrefix = startPrefix;
+        this.endPrefix = endPrefix;
+    }
+    
+    public long getLeaseId() {
+        return leaseId;
+    }
+    
+    public long getStartPrefix() {
+        return startPrefix;
+    }
+    
+    public long getEndPrefix() {
+        return endPrefix;
+    }
+    
+    public long size() {
+        return endPrefix - startPrefix;
+    }
+    
+    @Override
+    public String toString() {
+        return "Lease#" + leaseId + "[" + startPrefix + ", " + endPrefix + ")";
+    }
+}
@@ -0,0 +1,508 @@
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Client-side coordinator that hands out prefix ranges of one job on demand.
+ *
+ * The prefix index space is first split into one contiguous home range per
+ * server, proportional to the server weights. Every server pulls its next
+ * chunk from the front of its home range when the previous one is finished;
+ * once its home range is empty it steals from the back of the range with the
+ * most work left. Lease sizes follow each server's measured throughput so
+ * that a lease takes about {@link #TARGET_LEASE_SECONDS} on any machine, and
+ * they shrink near the end of the keyspace so that no single server is left
+ * with a long tail. Because the split is over prefix indices rather than
+ * first characters, any number of servers can take part.
+ *
+ * A job that sweeps a range of lengths is split per length: every server
+ * gets a home range in each length, walks them shortest first, and thieves
+ * steal from the shortest length with work left, so short passwords are
+ * found before long lengths take over the whole cluster.
+ *
+ * For batch jobs every cracked hash is streamed in through
+ * {@link #reportFound} while the servers keep searching for the others; the
+ * job ends once every target is cracked or the keyspace is exhausted.
+ *
+ * For a dictionary job the index space is the wordlist's byte offsets, and
+ * each server reads the words that start inside the ranges it leases.
+ *
+ * With a {@link ChunkCheckpoint}, completed leases are recorded in it and
+ * blocks already searched by an earlier run are never leased again.
+ *
+ * Every lease stays outstanding until one of its holders reports it
+ * completed. The leases of a server declared dead through
+ * {@link #serverFailed} are handed out again, ahead of new work, so its
+ * part of the keyspace is still searched. Once nothing is left to lease, an
+ * idle server gets a speculative copy of a lease that has run more than
+ * {@link #SPECULATION_FACTOR} times its expected duration on another
+ * server; whichever copy completes first counts. Otherwise, while leases
+ * are still out, idle servers get an empty lease and ask again, so they
+ * are around to take over the work of a server that fails late.
+ */
+public class ChunkLeaseCoordinator extends UnicastRemoteObject implements ChunkCoordinator {
+    private static final long serialVersionUID = 1L;
+
+    private static final double TARGET_LEASE_SECONDS = 2.0;
+    private static final long INITIAL_LEASE_PREFIXES = 1024;
+    private static final long MAX_GROWTH = 4;
+    private static final double RATE_SMOOTHING = 0.5;
+    private static final double SPECULATION_FACTOR = 3.0;
+
+    private final JobSpec job;
+    private final long prefixCount;
+    private final int expectedServers;
+    private final ChunkCheckpoint checkpoint;
+
+    // Unleased part of every server's home ranges, in cluster order, one per length
+    private final Map<String, List<Range>> homeRanges = new LinkedHashMap<>();
+    private long unleasedPrefixes;
+    private long nextLeaseId = 1;
+    private long completedPrefixes;
+
+    // Leases not completed yet by any holder, in the order they were first leased
+    private final Map<Long, Outstanding> outstanding = new LinkedHashMap<>();
+    private long reassignedLeases;
+    private long speculativeLeases;
+
+    // Cracked hashes in the order they were reported
+    private final Map<String, SearchResult> foundResults = new LinkedHashMap<>();
+    private final Consumer<SearchResult> foundListener;
+
+    // Latest progress snapshot of every server, in the order they first reported
+    private final Map<String, SearchProgress> serverProgress = new LinkedHashMap<>();
+
+    // Smoothed throughput and last lease size of every server that leased work
+    private final Map<String, Double> serverRates = new HashMap<>();
+    private final Map<String, Long> lastLeaseSizes = new HashMap<>();
+
+    /**
+     * @param job job to distribute
+     * @param serverWeights relative weight of every server expected to join, in
+     *                      cluster order; servers not listed can still steal work
+     * @throws RemoteException if the coordinator cannot be exported
+     */
+    public ChunkLeaseCoordinator(JobSpec job, Map<String, Double> serverWeights) throws RemoteException {
+        this(job, serverWeights, null);
+    }
+
+    /**
+     * @param job job to distribute
+     * @param serverWeights relative weight of every server expected to join, in
+     *                      cluster order; servers not listed can still steal work
+     * @param foundListener called once for every newly cracked hash, or null
+     * @throws RemoteException if the coordinator cannot be exported
+     */
+    public ChunkLeaseCoordinator(JobSpec job, Map<String, Double> serverWeights,
+                                 Consumer<SearchResult> foundListener) throws RemoteException {
+        this(job, serverWeights, foundListener, null);
+    }
+
+    /**
+     * @param job job to distribute
+     * @param serverWeights relative weight of every server expected to join, in
+     *                      cluster order; servers not listed can still steal work
+     * @param foundListener called once for every newly cracked hash, or null
+     * @param checkpoint checkpoint of the job to resume from and record into, or null
+     * @throws RemoteException if the coordinator cannot be exported
+     */
+    public ChunkLeaseCoordinator(JobSpec job, Map<String, Double> serverWeights,
+                                 Consumer<SearchResult> foundListener,
+                                 ChunkCheckpoint checkpoint) throws RemoteException {
+        super();
+        this.job = job;
+        this.foundListener = foundListener;
+        this.checkpoint = checkpoint;
+        this.prefixCount = job.getPrefixCount();
+        this.expectedServers = Math.max(1, serverWeights.size());
+        this.completedPrefixes = checkpoint == null ? 0 : checkpoint.getSearchedPrefixes();
+        this.unleasedPrefixes = prefixCount - completedPrefixes;
+
+        // Without expected servers everything starts out as one stealable range
+        Map<String, Double> weights = serverWeights.isEmpty() 
+                                      ? Collections.singletonMap("", 1.0) : serverWeights;
+        double totalWeight = 0;
+        for (Map.Entry<String, Double> entry : weights.entrySet()) {
+            totalWeight += entry.getValue();
+            homeRanges.put(entry.getKey(), new ArrayList<>());
+        }
+
+        // A wordlist is one segment of byte offsets
+        List<long[]> segments = new ArrayList<>();
+        if (job.getWordlist() != null) {
+            segments.add(new long[] {0, prefixCount});
+        } else {
+            KeyspaceSequence keyspaces = job.createKeyspaces();
+            for (int i = 0; i < keyspaces.getSegmentCount(); i++) {
+                segments.add(new long[] {keyspaces.getOffset(i), keyspaces.getEnd(i)});
+            }
+        }
+        
+        for (int segment = 0; segment < segments.size(); segment++) {
+            long segmentStart = segments.get(segment)[0];
+            long segmentEnd = segments.get(segment)[1];
+            long segmentSize = segmentEnd - segmentStart;
+            
+            // Cumulative weight boundaries; the last range always ends at the segment's end
+            double cumulativeWeight = 0;
+            long start = segmentStart;
+            int index = 0;
+            for (Map.Entry<String, Double> entry : weights.entrySet()) {
+                cumulativeWeight += entry.getValue();
+                long end = ++index == weights.size() ? segmentEnd
+                           : Math.min(segmentEnd, Math.max(start, segmentStart
+                                     + (long) (segmentSize * (cumulativeWeight / totalWeight))));
+                homeRanges.get(entry.getKey()).add(new Range(segment, start, end));
+                start = end;
+            }
+        }
+    }
+
+    @Override
+    public JobSpec getJob() {
+        return job;
+    }
+
+    @Override
+    public synchronized ChunkLease nextChunk(String serverName, double prefixesPerSecond) {
+        if (isAllFound()) {
+            return null;
+        }
+        long size = leaseSize(serverName, prefixesPerSecond);
+
+        // Work of failed servers goes first: it was leased before anything still unleased
+        for (Outstanding lease : outstanding.values()) {
+            if (lease.holders.isEmpty()) {
+                if (!lease.released) {
+                    reassignedLeases++;
+                }
+                return lease.hold(serverName);
+            }
+        }
+        if (unleasedPrefixes == 0) {
+            return speculate(serverName);
+        }
+
+        long start;
+        long end;
+
+        // Ranges may start or end in blocks a previous run already searched;
+        // those are dropped without being leased
+        List<Range> homes = homeRanges.get(serverName);
+        while (true) {
+            Range home = homes == null ? null : firstRemaining(homes);
+            if (home != null) {
+                start = firstPending(home.next, home.end);
+                end = Math.min(pendingRunEnd(start, home.end), start + size);
+                home.next = end;
+            } else {
+                // Steal from the back so the owner keeps walking its range in order
+                Range victim = stealTarget();
+                if (victim == null) {
+                    return speculate(serverName);
+                }
+                end = lastPendingEnd(victim.next, victim.end);
+                size = Math.min(size, Math.max(1, (end - victim.next) / 2));
+                start = Math.max(pendingRunStart(victim.next, end), end - size);
+                victim.end = start;
+            }
+            if (end > start) {
+                break;
+            }
+        }
+
+        unleasedPrefixes -= end - start;
+        lastLeaseSizes.put(serverName, end - start);
+
+        ChunkLease lease = new ChunkLease(nextLeaseId++, start, end);
+        outstanding.put(lease.getLeaseId(), new Outstanding(lease));
+        return outstanding.get(lease.getLeaseId()).hold(serverName);
+    }
+
+    @Override
+    public synchronized void reportCompleted(String serverName, ChunkLease lease) {
+        // The other copy of a speculative lease, or a lease reported twice, counts only once
+        if (outstanding.remove(lease.getLeaseId()) == null) {
+            return;
+        }
+        if (checkpoint != null) {
+            checkpoint.markSearched(lease.getStartPrefix(), lease.getEndPrefix());
+        }
+        completedPrefixes += lease.size();
+        if (completedPrefixes >= prefixCount) {
+            notifyAll();
+        }
+    }
+
+    @Override
+    public synchronized void releaseChunk(String serverName, ChunkLease lease) {
+        // An empty holder set puts the lease first in line for the next request
+        Outstanding held = outstanding.get(lease.getLeaseId());
+        if (held != null && held.holders.remove(serverName)) {
+            held.released = held.holders.isEmpty();
+        }
+    }
+
+    @Override
+    public synchronized List<String> reportProgress(String serverName, SearchProgress progress) {
+        if (progress != null) {
+            serverProgress.put(serverName, progress);
+        }
+        return new ArrayList<>(foundResults.keySet());
+    }
+
+    @Override
+    public void reportFound(String serverName, ChunkLease lease, SearchResult result) {
+        String hash = result.getTargetHash() != null ? result.getTargetHash() : job.getTargetHash();
+        synchronized (this) {
+            if (foundResults.putIfAbsent(hash, result) != null) {
+                return;
+            }
+            notifyAll();
+        }
+        // Outside the lock so a slow listener never blocks lease requests
+        if (foundListener != null) {
+            foundListener.accept(result);
+        }
+    }
+
+    /**
+     * Declares a server dead: the leases it holds are handed to the next
+     * servers that ask for work. Nothing is lost if the server was only
+     * slow; a completion it reports later still counts, unless another
+     * server completed the same lease first.
+     *
+     * @return the number of leases taken from the server
+     */
+    public synchronized int serverFailed(String serverName) {
+        int taken = 0;
+        for (Outstanding lease : outstanding.values()) {
+            if (lease.holders.remove(serverName)) {
+                taken++;
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Returns the number of leases handed out again after their server failed.
+     */
+    public synchronized long getReassignedLeases() {
+        return reassignedLeases;
+    }
+
+    /**
+     * Returns the number of speculative copies of slow leases handed out.
+     */
+    public synchronized long getSpeculativeLeases() {
+        return speculativeLeases;
+    }
+
+    /**
+     * Returns the first result that found a password, or null.
+     */
+    public synchronized SearchResult getFoundResult() {
+        return foundResults.isEmpty() ? null : foundResults.values().iterator().next();
+    }
+
+    /**
+     * Returns every cracked hash's result, in the order they were reported.
+     */
+    public synchronized List<SearchResult> getFoundResults() {
+        return new ArrayList<>(foundResults.values());
+    }
+
+    /**
+     * Returns the latest progress snapshot of every server that reported one.
+     */
+    public synchronized List<SearchProgress> getServerProgress() {
+        return new ArrayList<>(serverProgress.values());
+    }
+
+    /**
+     * Returns true once every target hash was cracked.
+     */
+    public synchronized boolean isAllFound() {
+        return foundResults.size() >= job.getTargetCount();
+    }
+
+    /**
+     * Returns true once every target was cracked or every prefix was searched.
+     */
+    public synchronized boolean isFinished() {
+        return isAllFound() || completedPrefixes >= prefixCount;
+    }
+
+    /**
+     * Returns the number of prefixes reported as searched.
+     */
+    public synchronized long getCompletedPrefixes() {
+        return completedPrefixes;
+    }
+
+    public long getPrefixCount() {
+        return prefixCount;
+    }
+
+    /**
+     * Blocks until every target was cracked or every prefix was searched.
+     */
+    public synchronized void awaitFinished() throws InterruptedException {
+        while (!isFinished()) {
+            wait();
+        }
+    }
+
+    /**
+     * Sizes a lease so that it takes about {@link #TARGET_LEASE_SECONDS} at the
+     * server's smoothed rate. Growth per lease is limited so one fast sample
+     * cannot grab a huge range, and the lease never exceeds half of the
+     * remaining keyspace's fair share per server.
+     */
+    private long leaseSize(String serverName, double prefixesPerSecond) {
+        long size = INITIAL_LEASE_PREFIXES;
+
+        if (prefixesPerSecond > 0) {
+            Double previous = serverRates.get(serverName);
+            double rate = previous == null ? prefixesPerSecond
+                          : RATE_SMOOTHING * prefixesPerSecond + (1 - RATE_SMOOTHING) * previous;
+            serverRates.put(serverName, rate);
+
+            long last = lastLeaseSizes.getOrDefault(serverName, INITIAL_LEASE_PREFIXES);
+            size = Math.min((long) (rate * TARGET_LEASE_SECONDS), last * MAX_GROWTH);
+        }
+
+        long tailCap = Math.max(1, unleasedPrefixes / (2L * expectedServers));
+        return Math.max(1, Math.min(size, tailCap));
+    }
+
+    /**
+     * Returns a copy of the oldest lease that is overdue on another server
+     * and has no copy yet, an empty lease to ask again later while other
+     * leases are still out, or null once every lease was completed.
+     */
+    private ChunkLease speculate(String serverName) {
+        if (outstanding.isEmpty()) {
+            return null;
+        }
+        long now = System.nanoTime();
+        for (Outstanding lease : outstanding.values()) {
+            if (lease.holders.size() == 1 && !lease.holders.contains(serverName)
+                    && now - lease.heldSince > expectedNanos(lease) * SPECULATION_FACTOR) {
+                speculativeLeases++;
+                return lease.hold(serverName);
+            }
+        }
+        return new ChunkLease(0, 0, 0);
+    }
+
+    /**
+     * Returns how long a lease should take at its holder's smoothed rate,
+     * and at least {@link #TARGET_LEASE_SECONDS}.
+     */
+    private long expectedNanos(Outstanding lease) {
+        double seconds = TARGET_LEASE_SECONDS;
+        for (String holder : lease.holders) {
+            Double rate = serverRates.get(holder);
+            if (rate != null && rate > 0) {
+                seconds = Math.max(seconds, lease.lease.size() / rate);
+            }
+        }
+        return (long) (seconds * 1e9);
+    }
+
+    private long firstPending(long from, long to) {
+        return checkpoint == null ? from : checkpoint.firstPending(from, to);
+    }
+
+    private long pendingRunEnd(long from, long to) {
+        return checkpoint == null ? to : checkpoint.pendingRunEnd(from, to);
+    }
+
+    private long lastPendingEnd(long from, long to) {
+        return checkpoint == null ? to : checkpoint.lastPendingEnd(from, to);
+    }
+
+    private long pendingRunStart(long from, long to) {
+        return checkpoint == null ? from : checkpoint.pendingRunStart(from, to);
+    }
+
+    private static Range firstRemaining(List<Range> ranges) {
+        for (Range range : ranges) {
+            if (range.remaining() > 0) {
+                return range;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the range with the most work left in the shortest length that
+     * still has any, or null once every range is leased.
+     */
+    private Range stealTarget() {
+        Range target = null;
+        for (List<Range> ranges : homeRanges.values()) {
+            Range range = firstRemaining(ranges);
+            if (range == null) {
+                continue;
+            }
+            if (target == null || range.segment < target.segment
+                    || (range.segment == target.segment && range.remaining() > target.remaining())) {
+                target = range;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * A lease that no holder has completed yet. Holders are the servers
+     * searching it: usually one, two while a speculative copy runs, none
+     * after its server failed or released it.
+     */
+    private static final class Outstanding {
+        final ChunkLease lease;
+        final Set<String> holders = new HashSet<>();
+        long heldSince;
+        // Given back unsearched by its last holder rather than lost with a failed server
+        boolean released;
+
+        Outstanding(ChunkLease lease) {
+            this.lease = lease;
+        }
+
+        ChunkLease hold(String serverName) {
+            holders.add(serverName);
+            heldSince = System.nanoTime();
+            released = false;
+            return lease;
+        }
+    }
+
+    /**
+     * Unleased prefixes [next, end) of one home range within one length.
+     */
+    private static final class Range {
+        final int segment;
+        long next;
+        long end;
+
+        Range(int segment, long next, long end) {
+            this.segment = segment;
+            this.next = next;
+            this.end = end;
+        }
+
+        long remaining() {
+            return end - next;
+        }
+    }
+}
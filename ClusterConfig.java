@@ -0,0 +1,125 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * List of cracker servers loaded from a cluster file.
+ *
+ * One server per line: {@code name host port [weight]}. Blank lines and
+ * lines starting with '#' are ignored. The weight defaults to 1 and sets the
+ * server's share of the keyspace relative to the other servers.
+ *
+ * <pre>
+ * # name    host           port  weight
+ * Server1   192.168.0.26   1099  2
+ * Server2   192.168.0.29   1100
+ * </pre>
+ */
+public class ClusterConfig {
+
+    private final List<Node> nodes;
+
+    public ClusterConfig(List<Node> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Cluster has no servers");
+        }
+        Set<String> names = new HashSet<>();
+        for (Node node : nodes) {
+            if (!names.add(node.getName())) {
+                throw new IllegalArgumentException("Duplicate server name: " + node.getName());
+            }
+        }
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+    }
+
+    /**
+     * Parses a cluster file.
+     *
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line is malformed
+     */
+    public static ClusterConfig load(Path file) throws IOException {
+        List<Node> nodes = new ArrayList<>();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.split("\\s+");
+            if (fields.length < 3 || fields.length > 4) {
+                throw new IllegalArgumentException(file + ":" + (i + 1)
+                    + ": expected 'name host port [weight]'");
+            }
+            try {
+                int port = Integer.parseInt(fields[2]);
+                double weight = fields.length == 4 ? Double.parseDouble(fields[3]) : 1.0;
+                nodes.add(new Node(fields[0], fields[1], port, weight));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(file + ":" + (i + 1) + ": " + e.getMessage());
+            }
+        }
+
+        return new ClusterConfig(nodes);
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * One server entry of the cluster.
+     */
+    public static final class Node {
+        private final String name;
+        private final String host;
+        private final int port;
+        private final double weight;
+
+        public Node(String name, String host, int port, double weight) {
+            if (port < 1 || port > 65535) {
+                throw new IllegalArgumentException("Invalid port: " + port);
+            }
+            if (!(weight > 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Weight must be positive: " + weight);
+            }
+            this.name = name;
+            this.host = host;
+            this.port = port;
+            this.weight = weight;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        @Override
+        public String toString() {
+            return name + " at " + host + ":" + port;
+        }
+    }
+}
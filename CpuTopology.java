@@ -0,0 +1,208 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The CPUs the server process may run on, grouped by NUMA node.
+ *
+ * Java cannot pin threads itself, so the affinity comes from how the server
+ * was started, e.g. {@code taskset -c 0-15} or {@code numactl --cpunodebind=0}:
+ * on Linux the allowed CPUs are read from {@code /proc/self/status} and their
+ * nodes from {@code /sys/devices/system/node}. Elsewhere, or if those files
+ * cannot be read, the topology is one node with
+ * {@link Runtime#availableProcessors()} CPUs.
+ */
+public final class CpuTopology {
+
+    private static final Path STATUS_FILE = Paths.get("/proc/self/status");
+    private static final Path NODE_DIR = Paths.get("/sys/devices/system/node");
+
+    // Allowed CPUs of every node that has any, by node ID
+    private final Map<Integer, List<Integer>> nodeCpus;
+
+    private CpuTopology(Map<Integer, List<Integer>> nodeCpus) {
+        this.nodeCpus = nodeCpus;
+    }
+
+    /**
+     * Reads the topology of the running process.
+     */
+    public static CpuTopology detect() {
+        try {
+            TreeSet<Integer> allowed = readAllowedCpus();
+            if (allowed != null && !allowed.isEmpty()) {
+                Map<Integer, List<Integer>> nodes = readNodes(allowed);
+                if (!nodes.isEmpty()) {
+                    return new CpuTopology(nodes);
+                }
+                return new CpuTopology(Collections.singletonMap(0, new ArrayList<>(allowed)));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Not Linux, or an unexpected format; fall back to the processor count
+        }
+        return uniform(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns a topology of one node with CPUs 0 to {@code cpus - 1}.
+     */
+    public static CpuTopology uniform(int cpus) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < cpus; i++) {
+            ids.add(i);
+        }
+        return new CpuTopology(Collections.singletonMap(0, ids));
+    }
+
+    /**
+     * Returns the number of CPUs the process may run on.
+     */
+    public int getCpuCount() {
+        int count = 0;
+        for (List<Integer> cpus : nodeCpus.values()) {
+            count += cpus.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of NUMA nodes with at least one allowed CPU.
+     */
+    public int getNodeCount() {
+        return nodeCpus.size();
+    }
+
+    /**
+     * Splits a worker count over the nodes in proportion to their allowed
+     * CPUs, so every node's share matches the cores it has.
+     *
+     * @return workers per node, in node order; nodes may get none if there
+     *         are fewer workers than nodes
+     */
+    public int[] distribute(int workers) {
+        int[] shares = new int[nodeCpus.size()];
+        int cpus = getCpuCount();
+        int assigned = 0;
+        int cumulativeCpus = 0;
+        int node = 0;
+        // Cumulative boundaries, so the shares always add up to the worker count
+        for (List<Integer> nodeCpuList : nodeCpus.values()) {
+            cumulativeCpus += nodeCpuList.size();
+            int end = (int) ((long) workers * cumulativeCpus / cpus);
+            shares[node++] = end - assigned;
+            assigned = end;
+        }
+        return shares;
+    }
+
+    /**
+     * Returns the allowed CPUs of every node, e.g. {@code "node0: 0-7, node1: 8-15"}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<Integer, List<Integer>> entry : nodeCpus.entrySet()) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append("node").append(entry.getKey()).append(": ").append(formatList(entry.getValue()));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Parses a Linux CPU list such as {@code "0-3,8,10-11"}.
+     *
+     * @throws IllegalArgumentException if the list is malformed
+     */
+    static TreeSet<Integer> parseList(String list) {
+        TreeSet<Integer> cpus = new TreeSet<>();
+        for (String part : list.trim().split(",")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            try {
+                int dash = part.indexOf('-');
+                int first = Integer.parseInt(dash < 0 ? part : part.substring(0, dash));
+                int last = dash < 0 ? first : Integer.parseInt(part.substring(dash + 1));
+                for (int cpu = first; cpu <= last; cpu++) {
+                    cpus.add(cpu);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid CPU list: " + list);
+            }
+        }
+        return cpus;
+    }
+
+    private static TreeSet<Integer> readAllowedCpus() throws IOException {
+        if (!Files.isReadable(STATUS_FILE)) {
+            return null;
+        }
+        for (String line : Files.readAllLines(STATUS_FILE, StandardCharsets.UTF_8)) {
+            if (line.startsWith("Cpus_allowed_list:")) {
+                return parseList(line.substring("Cpus_allowed_list:".length()));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Assigns the allowed CPUs to the nodes listed under {@link #NODE_DIR},
+     * dropping nodes without any.
+     */
+    private static Map<Integer, List<Integer>> readNodes(TreeSet<Integer> allowed) throws IOException {
+        Map<Integer, List<Integer>> nodes = new LinkedHashMap<>();
+        if (!Files.isDirectory(NODE_DIR)) {
+            return nodes;
+        }
+        TreeSet<Integer> nodeIds = new TreeSet<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(NODE_DIR, "node[0-9]*")) {
+            for (Path entry : entries) {
+                nodeIds.add(Integer.parseInt(entry.getFileName().toString().substring("node".length())));
+            }
+        }
+        for (int nodeId : nodeIds) {
+            Path cpuList = NODE_DIR.resolve("node" + nodeId).resolve("cpulist");
+            List<Integer> cpus = new ArrayList<>();
+            for (int cpu : parseList(new String(Files.readAllBytes(cpuList), StandardCharsets.UTF_8))) {
+                if (allowed.contains(cpu)) {
+                    cpus.add(cpu);
+                }
+            }
+            if (!cpus.isEmpty()) {
+                nodes.put(nodeId, cpus);
+            }
+        }
+        return nodes;
+    }
+
+    private static String formatList(List<Integer> cpus) {
+        StringBuilder text = new StringBuilder();
+        int i = 0;
+        while (i < cpus.size()) {
+            int j = i;
+            while (j + 1 < cpus.size() && cpus.get(j + 1) == cpus.get(j) + 1) {
+                j++;
+            }
+            if (text.length() > 0) {
+                text.append(',');
+            }
+            text.append(cpus.get(i));
+            if (j > i) {
+                text.append('-').append(cpus.get(j));
+            }
+            i = j + 1;
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,207 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Persistent record of cracked hashes, so a hash that was cracked once is
+ * never searched for again, across jobs and restarts.
+ *
+ * Lookups go to a bounded in-memory LRU map first. Behind it is an
+ * append-only log file with one {@code <hash> <password as hex>} line per
+ * crack; the file only ever grows by whole lines, so a crash can at worst
+ * cut off the last one. A lookup that misses the LRU scans the log, which
+ * is still far cheaper than the brute-force search a miss leads to; batches
+ * should use {@link #lookupAll} so the log is scanned once for all of them.
+ * Every entry read from the log is checked against its hash, so a damaged
+ * line is skipped rather than reported. Instances are thread-safe.
+ */
+public final class CrackedHashCache implements Closeable {
+
+    /** Entries kept in memory by default. */
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final Path file;
+    private final Writer log;
+    private final Map<String, String> recent;
+
+    /**
+     * Opens the log, creating it if needed, and loads its newest entries into memory.
+     *
+     * @param file append-only log file
+     * @param capacity most entries kept in memory
+     * @throws IOException if the file cannot be read or opened for appending
+     */
+    public CrackedHashCache(Path file, int capacity) throws IOException {
+        this.file = file;
+        this.recent = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > capacity;
+            }
+        };
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (Files.exists(file)) {
+            scan(null);
+        }
+        this.log = Files.newBufferedWriter(file, StandardCharsets.US_ASCII,
+                                           StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the password of a cracked hash, or null if it was never cracked.
+     */
+    public synchronized String lookup(String hash) {
+        String key = hash.toLowerCase();
+        String password = recent.get(key);
+        if (password == null) {
+            password = lookupAll(Collections.singletonList(key)).get(key);
+        }
+        return password;
+    }
+
+    /**
+     * Returns the passwords of every cracked hash among {@code hashes}, by hash.
+     */
+    public synchronized Map<String, String> lookupAll(Collection<String> hashes) {
+        Map<String, String> found = new LinkedHashMap<>();
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (String hash : hashes) {
+            String key = hash.toLowerCase();
+            String password = recent.get(key);
+            if (password != null) {
+                found.put(key, password);
+            } else {
+                missing.put(key, null);
+            }
+        }
+        if (!missing.isEmpty()) {
+            try {
+                log.flush();
+                scan(missing);
+            } catch (IOException e) {
+                // The log cannot be read; the hashes count as not cracked
+            }
+            for (Map.Entry<String, String> entry : missing.entrySet()) {
+                if (entry.getValue() != null) {
+                    found.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Records a cracked hash; hashes already in memory with the same password are not logged again.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    public synchronized void put(String hash, String password) throws IOException {
+        String key = hash.toLowerCase();
+        if (password.equals(recent.get(key))) {
+            return;
+        }
+        recent.put(key, password);
+        log.write(key + " " + toHex(password) + "\n");
+        log.flush();
+    }
+
+    /**
+     * Records the password of a found result that names its hash.
+     */
+    public void put(SearchResult result) throws IOException {
+        if (result.isFound() && result.getTargetHash() != null) {
+            put(result.getTargetHash(), result.getPassword());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        log.close();
+    }
+
+    /**
+     * Reads the whole log. With {@code wanted} == null the newest entries
+     * fill the in-memory map; otherwise only the wanted hashes are resolved,
+     * and those found are also added to the map.
+     */
+    private void scan(Map<String, String> wanted) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space != 32) {
+                    continue;
+                }
+                String hash = line.substring(0, space);
+                if (wanted != null && !wanted.containsKey(hash)) {
+                    continue;
+                }
+                String password = fromHex(line.substring(space + 1));
+                if (password == null || !hash.equals(md5Hex(password))) {
+                    continue;
+                }
+                if (wanted != null) {
+                    wanted.put(hash, password);
+                }
+                recent.put(hash, password);
+            }
+        }
+    }
+
+    private static String toHex(String password) {
+        StringBuilder hex = new StringBuilder(2 * password.length());
+        for (byte b : password.getBytes(StandardCharsets.ISO_8859_1)) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private static String fromHex(String hex) {
+        if ((hex.length() & 1) != 0) {
+            return null;
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String md5Hex(String password) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(password.getBytes(StandardCharsets.ISO_8859_1));
+            StringBuilder hex = new StringBuilder(32);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
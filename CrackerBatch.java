@@ -0,0 +1,424 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Headless client: runs a queue of jobs back-to-back on one set of warm
+ * server connections and writes one JSON line per job, for scripted runs.
+ *
+ * A single job is given on the command line. With {@code --jobs}, every
+ * line of the job file is a job, written with the same options, with or
+ * without the leading dashes; job options on the command line are defaults
+ * for every line, and a line that sets a length, mask or wordlist replaces
+ * the default one. Options in a job file cannot contain spaces.
+ * <pre>
+ * java CrackerBatch (--cluster=&lt;file&gt; | --servers=&lt;name@host:port&gt;,...)
+ *                   [--transport=auto|binary|rmi] [--output=&lt;file&gt;]
+ *                   [--cache=&lt;file&gt;|--no-cache] [--no-checkpoint] [--jobs=&lt;file&gt;]
+ *                   [--hashes=&lt;hash,...|@file&gt;] [--length=&lt;n|min-max&gt;]
+ *                   [--mask=&lt;mask&gt; [--increment-min=&lt;n&gt;]]
+ *                   [--wordlist=&lt;file&gt; [--rules=&lt;file&gt;|default]]
+ *                   [--threads=&lt;most per server, 0 = all&gt;] [--priority=&lt;p&gt;] [--name=&lt;label&gt;]
+ * </pre>
+ * Results are appended to the output file, or written to standard output,
+ * in which case progress goes to standard error. Every line holds the job's
+ * cracked and cached hashes, the hashes not found, the fraction of the
+ * keyspace searched, and the candidates tested, elapsed time and throughput.
+ * A job that cannot run gets a line with its {@code error} instead, and the
+ * exit status is then 1.
+ */
+public final class CrackerBatch {
+
+    private static final List<String> JOB_OPTIONS = Arrays.asList(
+        "hashes", "length", "mask", "increment-min", "wordlist", "rules", "threads", "priority", "name");
+
+    // Options that choose what to search; a job line with any of them replaces all defaults among them
+    private static final List<String> ATTACK_OPTIONS = Arrays.asList(
+        "length", "mask", "increment-min", "wordlist", "rules");
+
+    private CrackerBatch() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> defaults = new LinkedHashMap<>();
+        String clusterFile = null;
+        String serverList = null;
+        String transport = "auto";
+        String outputFile = null;
+        String cacheFile = CrackerClient.DEFAULT_CACHE_FILE;
+        boolean checkpoints = true;
+        String jobFile = null;
+        for (String arg : args) {
+            if (arg.startsWith("--cluster=")) {
+                clusterFile = arg.substring("--cluster=".length());
+            } else if (arg.startsWith("--servers=")) {
+                serverList = arg.substring("--servers=".length());
+            } else if (arg.matches("--transport=(auto|binary|rmi)")) {
+                transport = arg.substring("--transport=".length());
+            } else if (arg.startsWith("--output=")) {
+                outputFile = arg.substring("--output=".length());
+            } else if (arg.startsWith("--cache=")) {
+                cacheFile = arg.substring("--cache=".length());
+            } else if (arg.equals("--no-cache")) {
+                cacheFile = null;
+            } else if (arg.equals("--no-checkpoint")) {
+                checkpoints = false;
+            } else if (arg.startsWith("--jobs=")) {
+                jobFile = arg.substring("--jobs=".length());
+            } else if (!putJobOption(defaults, arg)) {
+                usage();
+                return;
+            }
+        }
+        if ((clusterFile == null) == (serverList == null)) {
+            usage();
+            return;
+        }
+
+        // Every job is read before any runs, so a malformed job file fails fast
+        List<Map<String, String>> jobs = new ArrayList<>();
+        List<ClusterConfig.Node> nodes;
+        try {
+            nodes = clusterFile != null ? ClusterConfig.load(Paths.get(clusterFile)).getNodes()
+                                        : parseServers(serverList);
+            if (jobFile == null) {
+                jobs.add(defaults);
+            } else {
+                List<String> lines = Files.readAllLines(Paths.get(jobFile), StandardCharsets.UTF_8);
+                for (int i = 0; i < lines.size(); i++) {
+                    String line = lines.get(i).trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    Map<String, String> lineOptions = new LinkedHashMap<>();
+                    for (String token : line.split("\\s+")) {
+                        if (!putJobOption(lineOptions, token.startsWith("--") ? token : "--" + token)) {
+                            throw new IllegalArgumentException(jobFile + ":" + (i + 1) + ": unknown option " + token);
+                        }
+                    }
+                    Map<String, String> job = new LinkedHashMap<>(defaults);
+                    if (!Collections.disjoint(lineOptions.keySet(), ATTACK_OPTIONS)) {
+                        job.keySet().removeAll(ATTACK_OPTIONS);
+                    }
+                    job.putAll(lineOptions);
+                    jobs.add(job);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        // With results on standard output, the progress messages go to standard error
+        PrintStream console = outputFile != null ? System.out : System.err;
+        CrackedHashCache cache = null;
+        boolean failed = false;
+        try (PrintWriter output = outputFile != null
+                 ? new PrintWriter(new OutputStreamWriter(new FileOutputStream(outputFile, true), StandardCharsets.UTF_8))
+                 : new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+             CrackerCoordinator cluster = CrackerCoordinator.connect(nodes, transport, console)) {
+            if (cacheFile != null) {
+                cache = new CrackedHashCache(Paths.get(cacheFile), CrackedHashCache.DEFAULT_CAPACITY);
+            }
+            cluster.setCache(cache);
+            cluster.setCheckpointDir(checkpoints ? Paths.get(CrackerClient.CHECKPOINT_DIR) : null);
+
+            long batchStart = System.currentTimeMillis();
+            int crackedTotal = 0;
+            for (int i = 0; i < jobs.size(); i++) {
+                Map<String, String> options = jobs.get(i);
+                String name = options.getOrDefault("name", "job" + (i + 1));
+                console.println();
+                console.println("=== Job " + (i + 1) + " of " + jobs.size() + ": " + name + " ===");
+                String line;
+                try {
+                    JobRecord record = runJob(cluster, cache, console, name, options);
+                    crackedTotal += record.crackedCount();
+                    line = record.toJson();
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Error: " + e.getMessage());
+                    failed = true;
+                    line = "{\"name\":" + quote(name) + ",\"error\":" + quote(String.valueOf(e.getMessage())) + "}";
+                }
+                // One complete line per job, flushed at once so a consumer can follow the file
+                output.println(line);
+                output.flush();
+            }
+
+            console.println();
+            console.println(String.format("Batch completed: %d job(s), %d hash(es) cracked, %.3f seconds",
+                jobs.size(), crackedTotal, (System.currentTimeMillis() - batchStart) / 1000.0));
+
+        } catch (InterruptedException e) {
+            System.err.println("Batch interrupted: " + e.getMessage());
+            Thread.currentThread().interrupt();
+            failed = true;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            failed = true;
+        } finally {
+            if (cache != null) {
+                try {
+                    cache.close();
+                } catch (IOException e) {
+                    // Every entry was flushed when it was written
+                }
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs one job, answering the hashes the cache knows without searching.
+     *
+     * @throws IllegalArgumentException if an option is invalid
+     * @throws IOException if a hash file or the wordlist cannot be read
+     */
+    private static JobRecord runJob(CrackerCoordinator cluster, CrackedHashCache cache, PrintStream console,
+                                    String name, Map<String, String> options) throws IOException, InterruptedException {
+        if (!options.containsKey("hashes")) {
+            throw new IllegalArgumentException("No --hashes given");
+        }
+        List<String> targetHashes = CrackerClient.readTargetHashes(options.get("hashes"));
+        for (String hash : targetHashes) {
+            if (!hash.matches("[0-9a-f]{32}")) {
+                throw new IllegalArgumentException("Invalid MD5 hash format: " + hash);
+            }
+        }
+        if (targetHashes.isEmpty()) {
+            throw new IllegalArgumentException("No target hash given");
+        }
+        int threads = parseInt(options, "threads", 0, 0, Integer.MAX_VALUE);
+        int priority = parseInt(options, "priority", JobScheduler.DEFAULT_PRIORITY,
+                                JobScheduler.MIN_PRIORITY, JobScheduler.MAX_PRIORITY);
+
+        Map<String, String> known = cache != null ? cache.lookupAll(targetHashes) : new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : known.entrySet()) {
+            console.println("★ KNOWN " + entry.getKey() + " = '" + entry.getValue() + "' (from "
+                          + cache.getFile() + ")");
+        }
+        List<String> remaining = new ArrayList<>(targetHashes);
+        remaining.removeAll(known.keySet());
+
+        // Built even when every hash is known, so an invalid job is reported either way
+        String jobId = UUID.randomUUID().toString();
+        JobSpec job = createJob(jobId, remaining.isEmpty() ? targetHashes : remaining, priority, options);
+        String startTime = Instant.now().toString();
+        CrackerCoordinator.JobReport report = remaining.isEmpty() ? null : cluster.run(job, threads);
+        return new JobRecord(name, job, startTime, cluster.getServers().size(), known, report);
+    }
+
+    /**
+     * Builds the job of exactly one of the options length, mask and wordlist.
+     */
+    private static JobSpec createJob(String jobId, List<String> targetHashes, int priority,
+                                     Map<String, String> options) throws IOException {
+        String length = options.get("length");
+        String mask = options.get("mask");
+        String wordlist = options.get("wordlist");
+        if ((length != null ? 1 : 0) + (mask != null ? 1 : 0) + (wordlist != null ? 1 : 0) != 1) {
+            throw new IllegalArgumentException("Give exactly one of --length, --mask and --wordlist");
+        }
+
+        if (wordlist != null) {
+            String rulesOption = options.get("rules");
+            WordRules rules = rulesOption == null ? WordRules.identity()
+                            : rulesOption.equals("default") ? WordRules.parse(WordRules.DEFAULT_RULES)
+                            : WordRules.load(Paths.get(rulesOption));
+            return new JobSpec(jobId, targetHashes, wordlist, Files.size(Paths.get(wordlist)),
+                               rules.getRules(), priority);
+        }
+        if (mask != null) {
+            int maskLength = Mask.parse(mask).getLength();
+            int minLength = parseInt(options, "increment-min", maskLength, 1, maskLength);
+            return new JobSpec(jobId, targetHashes, mask, minLength, priority);
+        }
+        if (!length.matches("[0-9]+(-[0-9]+)?")) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        String[] bounds = length.split("-");
+        int minLength = Integer.parseInt(bounds[0]);
+        int maxLength = Integer.parseInt(bounds[bounds.length - 1]);
+        if (minLength < 1 || maxLength > 10 || minLength > maxLength) {
+            throw new IllegalArgumentException("Length must lie between 1 and 10, shortest first: " + length);
+        }
+        return new JobSpec(jobId, targetHashes, minLength, maxLength, priority);
+    }
+
+    /**
+     * Stores a job option given as {@code --key=value}.
+     *
+     * @return false if the argument is no job option
+     */
+    private static boolean putJobOption(Map<String, String> options, String arg) {
+        int equals = arg.indexOf('=');
+        if (!arg.startsWith("--") || equals < 0 || !JOB_OPTIONS.contains(arg.substring(2, equals))) {
+            return false;
+        }
+        options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        return true;
+    }
+
+    private static int parseInt(Map<String, String> options, String key, int defaultValue, int min, int max) {
+        String value = options.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("--" + key + " must be between " + min + " and " + max + ": " + value);
+    }
+
+    /**
+     * Parses a server list such as {@code S1@host1:1099,S2@host2:1100}; every server gets weight 1.
+     */
+    private static List<ClusterConfig.Node> parseServers(String list) {
+        List<ClusterConfig.Node> nodes = new ArrayList<>();
+        for (String entry : list.split(",")) {
+            int at = entry.indexOf('@');
+            int colon = entry.lastIndexOf(':');
+            if (at < 1 || colon < at + 2) {
+                throw new IllegalArgumentException("Expected name@host:port: " + entry);
+            }
+            try {
+                nodes.add(new ClusterConfig.Node(entry.substring(0, at), entry.substring(at + 1, colon),
+                                                 Integer.parseInt(entry.substring(colon + 1)), 1.0));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid port: " + entry);
+            }
+        }
+        return new ClusterConfig(nodes).getNodes();
+    }
+
+    private static void usage() {
+        System.err.println("Usage: java CrackerBatch (--cluster=<file> | --servers=<name@host:port>,...)"
+                           + " [--transport=auto|binary|rmi] [--output=<file>] [--cache=<file>|--no-cache]"
+                           + " [--no-checkpoint] [--jobs=<file>] [--hashes=<hash,...|@file>]"
+                           + " [--length=<n|min-max> | --mask=<mask> [--increment-min=<n>]"
+                           + " | --wordlist=<file> [--rules=<file>|default]]"
+                           + " [--threads=<n>] [--priority=<" + JobScheduler.MIN_PRIORITY + "-"
+                           + JobScheduler.MAX_PRIORITY + ">] [--name=<label>]");
+    }
+
+    /**
+     * Quotes a string as a JSON string literal.
+     */
+    private static String quote(String text) {
+        StringBuilder json = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * The result line of one job.
+     */
+    private static final class JobRecord {
+        private final String name;
+        private final JobSpec job;
+        private final String startTime;
+        private final int servers;
+        private final Map<String, String> known;
+        // Null if the cache knew every hash
+        private final CrackerCoordinator.JobReport report;
+
+        JobRecord(String name, JobSpec job, String startTime, int servers, Map<String, String> known,
+                  CrackerCoordinator.JobReport report) {
+            this.name = name;
+            this.job = job;
+            this.startTime = startTime;
+            this.servers = servers;
+            this.known = known;
+            this.report = report;
+        }
+
+        int crackedCount() {
+            return known.size() + (report != null ? report.getCracked().size() : 0);
+        }
+
+        String toJson() {
+            StringBuilder json = new StringBuilder("{");
+            json.append("\"name\":").append(quote(name));
+            json.append(",\"jobId\":").append(quote(job.getJobId()));
+            json.append(",\"start\":").append(quote(startTime));
+            if (job.getWordlist() != null) {
+                json.append(",\"attack\":\"wordlist\",\"wordlist\":").append(quote(job.getWordlist()));
+                json.append(",\"rules\":").append(job.getRules().size());
+            } else {
+                json.append(job.getMask() != null ? ",\"attack\":\"mask\",\"mask\":" + quote(job.getMask())
+                                                  : ",\"attack\":\"brute-force\"");
+                json.append(",\"lengths\":").append(quote(job.getLengthRange()));
+            }
+            json.append(",\"targets\":").append(known.size() + (report != null ? job.getTargetCount() : 0));
+            json.append(",\"cracked\":[");
+            if (report != null) {
+                List<SearchResult> cracked = report.getCracked();
+                for (int i = 0; i < cracked.size(); i++) {
+                    SearchResult result = cracked.get(i);
+                    json.append(i > 0 ? "," : "").append("{\"hash\":").append(quote(result.getTargetHash()))
+                        .append(",\"password\":").append(quote(result.getPassword()))
+                        .append(",\"length\":").append(result.getPasswordLength())
+                        .append(",\"server\":").append(quote(result.getServerName()))
+                        .append(",\"thread\":").append(quote(result.getThreadName()))
+                        .append(",\"searchMs\":").append(result.getSearchTimeMs()).append('}');
+                }
+            }
+            json.append("],\"known\":[");
+            int i = 0;
+            for (Map.Entry<String, String> entry : known.entrySet()) {
+                json.append(i++ > 0 ? "," : "").append("{\"hash\":").append(quote(entry.getKey()))
+                    .append(",\"password\":").append(quote(entry.getValue())).append('}');
+            }
+            json.append("],\"notFound\":[");
+            List<String> notFound = report != null ? report.getNotFound() : new ArrayList<>();
+            for (i = 0; i < notFound.size(); i++) {
+                json.append(i > 0 ? "," : "").append(quote(notFound.get(i)));
+            }
+            json.append(']');
+            if (report != null) {
+                json.append(",\"finished\":").append(report.isFinished());
+                json.append(",\"searched\":").append(String.format(Locale.ROOT, "%.6f", report.getSearchedFraction()));
+                json.append(",\"candidates\":").append(report.getCandidatesTested());
+                json.append(",\"elapsedMs\":").append(report.getElapsedMs());
+                json.append(",\"candidatesPerSecond\":").append(Math.round(report.getCandidatesPerSecond()));
+                json.append(",\"reassignedLeases\":").append(report.getReassignedLeases());
+                json.append(",\"speculativeLeases\":").append(report.getSpeculativeLeases());
+            } else {
+                json.append(",\"finished\":true,\"searched\":0,\"candidates\":0,\"elapsedMs\":0");
+            }
+            json.append(",\"servers\":").append(servers);
+            return json.append('}').toString();
+        }
+    }
+}
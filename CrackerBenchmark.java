@@ -0,0 +1,465 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.rmi.RemoteException;
+import java.rmi.server.RemoteObject;
+import java.rmi.server.UnicastRemoteObject;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput benchmarks for the hashing and enumeration hot paths, reported
+ * in candidates per second, the unit the cluster is sized in.
+ *
+ * Four single-thread micro benchmarks isolate one cost each, per password
+ * length:
+ * <ul>
+ *   <li>{@code enumerate}: the {@link CandidateEnumerator} odometer driving a
+ *       kernel that hashes nothing, i.e. candidate generation alone</li>
+ *   <li>{@code md5-full}: the standard kernel, a full 64-step digest per candidate</li>
+ *   <li>{@code md5-reversal}: the target-reversal kernel with its early exit,
+ *       and {@code md5-vector} when the vector engine is available</li>
+ *   <li>{@code batch-N}: full digests compared against a set of N targets</li>
+ * </ul>
+ * The {@code server} benchmark runs a direct search on an in-process
+ * {@link CrackerServer}, called as a plain object so no RMI registry is
+ * needed, for every thread count, and stops it after the measurement time.
+ * Its target is not in any keyspace, so the whole time is spent searching.
+ *
+ * The {@code transport} benchmark measures the round trip of one leased
+ * chunk over loopback, for RMI and for the binary transport: the server
+ * leases one-prefix chunks of ten candidates, so nearly all the time per
+ * chunk is the lease and completion calls to the coordinator.
+ *
+ * Every measurement is preceded by a warm-up of the same code, so the JIT
+ * has compiled the loop before it is timed. Usage:
+ * <pre>
+ * java CrackerBenchmark [--lengths=4,5,6] [--threads=1,2,4] [--seconds=3] [--warmup=1]
+ *                       [--batch=1000] [--only=enumerate,md5-full,...,server,transport]
+ * </pre>
+ */
+public final class CrackerBenchmark {
+
+    private static final char[] ALLOWED = Keyspace.printableAscii();
+
+    // Prefixes enumerated between clock reads in the micro benchmarks
+    private static final int PREFIXES_PER_CHECK = 256;
+
+    // Results go to the original standard output; the server's console log is discarded
+    private static final PrintStream REPORT = System.out;
+
+    private final long warmupNanos;
+    private final long measureNanos;
+
+    private CrackerBenchmark(double warmupSeconds, double measureSeconds) {
+        this.warmupNanos = (long) (warmupSeconds * 1e9);
+        this.measureNanos = (long) (measureSeconds * 1e9);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] lengths = {4, 5, 6};
+        int[] threadCounts = defaultThreadCounts(Runtime.getRuntime().availableProcessors());
+        double seconds = 3;
+        double warmup = 1;
+        int batchSize = 1000;
+        List<String> only = null;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--lengths=")) {
+                    lengths = parseInts(arg.substring("--lengths=".length()));
+                } else if (arg.startsWith("--threads=")) {
+                    threadCounts = parseInts(arg.substring("--threads=".length()));
+                } else if (arg.startsWith("--seconds=")) {
+                    seconds = Double.parseDouble(arg.substring("--seconds=".length()));
+                } else if (arg.startsWith("--warmup=")) {
+                    warmup = Double.parseDouble(arg.substring("--warmup=".length()));
+                } else if (arg.startsWith("--batch=")) {
+                    batchSize = Integer.parseInt(arg.substring("--batch=".length()));
+                } else if (arg.startsWith("--only=")) {
+                    only = List.of(arg.substring("--only=".length()).split(","));
+                } else {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            for (int length : lengths) {
+                if (length < 1 || length > 10) {
+                    throw new IllegalArgumentException("Lengths must be between 1 and 10");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Usage: java CrackerBenchmark [--lengths=4,5,6] [--threads=1,2,4] "
+                               + "[--seconds=3] [--warmup=1] [--batch=1000] [--only=<benchmark>,...]");
+            return;
+        }
+
+        CrackerBenchmark benchmark = new CrackerBenchmark(warmup, seconds);
+        System.out.println("=== MD5 Cracker Benchmark ===");
+        System.out.println("JVM: " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version")
+                           + ", " + Runtime.getRuntime().availableProcessors() + " processor(s)");
+        System.out.println(String.format("Warm-up %.1f s, measurement %.1f s per row", warmup, seconds));
+        System.out.println();
+        System.out.println(String.format("%-16s %6s %7s %18s %14s",
+                                         "Benchmark", "Length", "Threads", "Candidates", "Candidates/s"));
+
+        for (int length : lengths) {
+            if (selected(only, "enumerate")) {
+                benchmark.report("enumerate", length, 1, benchmark.measureKernel(new NullKernel(length), length));
+            }
+            if (selected(only, "md5-full")) {
+                benchmark.report("md5-full", length, 1, benchmark.measureKernel(
+                    SearchEngine.STANDARD.newKernel(unreachableDigest(), length), length));
+            }
+            if (selected(only, "md5-reversal")) {
+                benchmark.report("md5-reversal", length, 1, benchmark.measureKernel(
+                    SearchEngine.TARGET_REVERSAL.newKernel(unreachableDigest(), length), length));
+            }
+            if (selected(only, "md5-vector") && SearchEngine.VECTOR.resolve() == SearchEngine.VECTOR) {
+                benchmark.report("md5-vector", length, 1, benchmark.measureKernel(
+                    SearchEngine.VECTOR.newKernel(unreachableDigest(), length), length));
+            }
+            if (selected(only, "batch")) {
+                TargetSet targets = new TargetSet(randomHashes(batchSize));
+                benchmark.report("batch-" + batchSize, length, 1,
+                                 benchmark.measureKernel(new Md5Kernel(targets, length), length));
+            }
+        }
+
+        if (selected(only, "server") || selected(only, "transport")) {
+            int maxThreads = 1;
+            for (int threads : threadCounts) {
+                maxThreads = Math.max(maxThreads, threads);
+            }
+            // No checkpoints, cache or digest tables: every row is a plain brute-force search
+            // and its log goes to benchmark.log only, not between the result rows
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            CrackerServer server = new CrackerServer("Benchmark", SearchEngine.TARGET_REVERSAL, null, maxThreads);
+            try {
+                for (int length : lengths) {
+                    for (int threads : threadCounts) {
+                        if (selected(only, "server")) {
+                            benchmark.report("server", length, threads,
+                                             benchmark.measureServer(server, length, threads));
+                        }
+                    }
+                }
+                if (selected(only, "transport")) {
+                    benchmark.measureTransports(server);
+                }
+            } finally {
+                UnicastRemoteObject.unexportObject(server, true);
+            }
+        }
+    }
+
+    /**
+     * Sweeps the printable keyspace of one length with a kernel, first for
+     * the warm-up, then for the measurement.
+     *
+     * @return candidates tested and nanoseconds taken in the measurement
+     */
+    private long[] measureKernel(HashKernel kernel, int length) {
+        Keyspace keyspace = Keyspace.bruteForce(ALLOWED, length, 0, ALLOWED.length);
+        sweepFor(kernel, keyspace, warmupNanos);
+        long before = kernel.getCandidates();
+        long nanos = sweepFor(kernel, keyspace, measureNanos);
+        return new long[] {kernel.getCandidates() - before, nanos};
+    }
+
+    /**
+     * Enumerates the keyspace, from the start again whenever it is exhausted,
+     * until at least {@code duration} nanoseconds have passed.
+     *
+     * @return nanoseconds actually taken
+     */
+    private static long sweepFor(HashKernel kernel, Keyspace keyspace, long duration) {
+        long start = System.nanoTime();
+        long elapsed = 0;
+        int sink = 0;
+        CandidateEnumerator enumerator = new CandidateEnumerator(kernel, keyspace, 0, keyspace.getPrefixCount());
+        while (elapsed < duration) {
+            for (int i = 0; i < PREFIXES_PER_CHECK; i++) {
+                if (!enumerator.nextPrefix()) {
+                    enumerator = new CandidateEnumerator(kernel, keyspace, 0, keyspace.getPrefixCount());
+                    enumerator.nextPrefix();
+                }
+                sink += enumerator.sweepLastPosition();
+            }
+            elapsed = System.nanoTime() - start;
+        }
+        if (sink == Integer.MIN_VALUE) {
+            // Keeps the sweep results alive; never true since nothing matches
+            System.out.println(sink);
+        }
+        return elapsed;
+    }
+
+    /**
+     * Runs direct searches on the server until the warm-up and then the
+     * measurement time are used up; a search that would run longer is stopped.
+     *
+     * @return candidates tested and nanoseconds taken in the measurement
+     */
+    private long[] measureServer(CrackerServer server, int length, int threads) throws RemoteException {
+        searchFor(server, length, threads, warmupNanos);
+        long start = System.nanoTime();
+        long candidates = searchFor(server, length, threads, measureNanos);
+        return new long[] {candidates, System.nanoTime() - start};
+    }
+
+    private static long searchFor(CrackerServer server, int length, int threads, long duration)
+            throws RemoteException {
+        String targetHash = toHex(unreachableDigest());
+        ScheduledExecutorService stopper = Executors.newSingleThreadScheduledExecutor();
+        long start = System.nanoTime();
+        long candidates = 0;
+        int run = 0;
+        try {
+            long remaining;
+            while ((remaining = duration - (System.nanoTime() - start)) > 0) {
+                String jobId = "benchmark-" + length + "-" + threads + "-" + System.nanoTime() + "-" + run++;
+                stopper.schedule(() -> {
+                    server.stopSearch(jobId);
+                    return null;
+                }, remaining, TimeUnit.NANOSECONDS);
+                candidates += server.searchPassword(jobId, targetHash, 0, ALLOWED.length, threads, length,
+                                                    JobScheduler.DEFAULT_PRIORITY).getCandidatesTested();
+            }
+        } finally {
+            stopper.shutdownNow();
+        }
+        return candidates;
+    }
+
+    /**
+     * Runs leased searches of one-prefix chunks over loopback, through RMI
+     * and through the binary transport, and reports the time per chunk.
+     */
+    private void measureTransports(CrackerServer server) throws Exception {
+        CrackerInterface rmi = (CrackerInterface) RemoteObject.toStub(server);
+        int port = server.enableBinaryTransport(0);
+        REPORT.println();
+        REPORT.println(String.format("%-16s %14s %14s", "Transport", "Chunks", "us/chunk"));
+        try (BinaryCrackerStub binary = BinaryCrackerStub.connect("localhost", port, null)) {
+            for (int round = 0; round < 2; round++) {
+                // The first round warms up both transports
+                for (CrackerInterface transport : Arrays.asList(rmi, binary)) {
+                    long duration = round == 0 ? warmupNanos : measureNanos;
+                    long[] measurement = leaseChunksFor(transport, duration);
+                    if (round == 1) {
+                        REPORT.println(String.format("%-16s %,14d %14.1f",
+                            transport == rmi ? "rmi" : "binary", measurement[0],
+                            measurement[1] / 1e3 / Math.max(1, measurement[0])));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs one leased search that is handed one-prefix chunks until the time is up.
+     *
+     * @return chunks searched and nanoseconds taken
+     */
+    private static long[] leaseChunksFor(CrackerInterface server, long duration) throws RemoteException {
+        SingleChunkCoordinator coordinator = new SingleChunkCoordinator(duration);
+        try {
+            long start = System.nanoTime();
+            server.leaseSearch(coordinator, 1);
+            return new long[] {coordinator.getCompleted(), System.nanoTime() - start};
+        } finally {
+            UnicastRemoteObject.unexportObject(coordinator, true);
+        }
+    }
+
+    private void report(String name, int length, int threads, long[] measurement) {
+        double rate = measurement[0] / (measurement[1] / 1e9);
+        REPORT.println(String.format("%-16s %6d %7d %,18d %,14.0f", name, length, threads, measurement[0], rate));
+    }
+
+    private static boolean selected(List<String> only, String name) {
+        return only == null || only.contains(name);
+    }
+
+    /**
+     * Returns 1, 2, 4, ... up to and including the number of processors.
+     */
+    private static int[] defaultThreadCounts(int processors) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < processors; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(processors);
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] parseInts(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+            if (values[i] < 1) {
+                throw new IllegalArgumentException("Values must be positive: " + list);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the digest of a string longer than any benchmarked length, so
+     * no candidate matches and every search runs until it is stopped.
+     */
+    private static byte[] unreachableDigest() {
+        return md5("benchmark target outside every keyspace");
+    }
+
+    private static List<String> randomHashes(int count) {
+        Random random = new Random(42);
+        List<String> hashes = new ArrayList<>();
+        while (hashes.size() < count) {
+            byte[] digest = new byte[16];
+            random.nextBytes(digest);
+            hashes.add(toHex(digest));
+        }
+        return hashes;
+    }
+
+    private static byte[] md5(String text) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(text.getBytes(StandardCharsets.ISO_8859_1));
+        } catch (Exception e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Coordinator that leases one prefix at a time of a seven-digit mask
+     * until its time is up, so each chunk is a single ten-candidate sweep.
+     */
+    private static final class SingleChunkCoordinator extends UnicastRemoteObject implements ChunkCoordinator {
+        private static final long serialVersionUID = 1L;
+
+        private final JobSpec job;
+        private final long deadline;
+        private final AtomicLong nextPrefix = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+
+        SingleChunkCoordinator(long duration) throws RemoteException {
+            this.job = new JobSpec("transport-" + System.nanoTime(),
+                                   Collections.singletonList(toHex(unreachableDigest())), "?d?d?d?d?d?d?d",
+                                   JobScheduler.DEFAULT_PRIORITY);
+            this.deadline = System.nanoTime() + duration;
+        }
+
+        long getCompleted() {
+            return completed.get();
+        }
+
+        @Override
+        public JobSpec getJob() {
+            return job;
+        }
+
+        @Override
+        public ChunkLease nextChunk(String serverName, double prefixesPerSecond) {
+            long prefix = nextPrefix.getAndIncrement();
+            if (System.nanoTime() >= deadline || prefix >= job.getPrefixCount()) {
+                return null;
+            }
+            return new ChunkLease(prefix, prefix, prefix + 1);
+        }
+
+        @Override
+        public void reportCompleted(String serverName, ChunkLease lease) {
+            completed.incrementAndGet();
+        }
+
+        @Override
+        public void releaseChunk(String serverName, ChunkLease lease) {
+            // A released prefix is simply not counted as completed
+        }
+
+        @Override
+        public List<String> reportProgress(String serverName, SearchProgress progress) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void reportFound(String serverName, ChunkLease lease, SearchResult result) {
+            // The target is unreachable
+        }
+    }
+
+    /**
+     * Kernel that hashes nothing, so a sweep measures the enumerator alone.
+     * It still consumes every written byte so the writes cannot be elided.
+     */
+    private static final class NullKernel implements HashKernel {
+
+        private final int length;
+        private final int[] bytes = new int[Md5Kernel.MAX_LENGTH];
+        private int state;
+        private long candidates;
+
+        NullKernel(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+
+        @Override
+        public void setByte(int position, int value) {
+            bytes[position] = value;
+        }
+
+        @Override
+        public void prepare() {
+            for (int i = 0; i < length - 1; i++) {
+                state = 31 * state + bytes[i];
+            }
+        }
+
+        @Override
+        public int sweepLastPosition(char[] alphabet, int from, int to) {
+            for (int i = from; i < to; i++) {
+                state += alphabet[i];
+            }
+            candidates += to - from;
+            return state == Integer.MIN_VALUE ? from : -1;
+        }
+
+        @Override
+        public long getCandidates() {
+            return candidates;
+        }
+
+        @Override
+        public long getEarlyExits() {
+            return 0;
+        }
+
+        @Override
+        public long getStepsSaved() {
+            return 0;
+        }
+    }
+}
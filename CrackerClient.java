@@ -1,176 +1,216 @@
-import java.rmi.NotBoundException;
-import java.rmi.RemoteException;
-import java.rmi.registry.LocateRegistry;
-import java.rmi.registry.Registry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.UUID;
 
 /**
- * Client for the distributed MD5 password cracker.
- * Coordinates work distribution across multiple RMI servers.
+ * Interactive client for the distributed MD5 password cracker.
+ * Prompts for one job and runs it on the cluster through a
+ * {@link CrackerCoordinator}; {@link CrackerBatch} runs jobs without prompts.
  */
 public class CrackerClient {
     
-    private static final int TOTAL_CHARACTERS = 95; // Printable ASCII characters
+    static final String CHECKPOINT_DIR = "checkpoints";
+    static final String DEFAULT_CACHE_FILE = "cracked-hashes.log";
     
     public static void main(String[] args) {
+        String clusterFile = null;
+        int priority = JobScheduler.DEFAULT_PRIORITY;
+        int incrementMin = 0;
+        String wordlist = null;
+        String rulesOption = null;
+        String cacheFile = DEFAULT_CACHE_FILE;
+        String transport = "auto";
+        for (String arg : args) {
+            if (arg.startsWith("--cluster=")) {
+                clusterFile = arg.substring("--cluster=".length());
+            } else if (arg.startsWith("--priority=") && isPriority(arg.substring("--priority=".length()))) {
+                priority = Integer.parseInt(arg.substring("--priority=".length()));
+            } else if (arg.matches("--increment-min=[1-9][0-9]?")) {
+                incrementMin = Integer.parseInt(arg.substring("--increment-min=".length()));
+            } else if (arg.startsWith("--wordlist=")) {
+                wordlist = arg.substring("--wordlist=".length());
+            } else if (arg.startsWith("--rules=")) {
+                rulesOption = arg.substring("--rules=".length());
+            } else if (arg.startsWith("--cache=")) {
+                cacheFile = arg.substring("--cache=".length());
+            } else if (arg.equals("--no-cache")) {
+                cacheFile = null;
+            } else if (arg.matches("--transport=(auto|binary|rmi)")) {
+                transport = arg.substring("--transport=".length());
+            } else {
+                System.err.println("Usage: java CrackerClient [--cluster=<file>] [--priority=<" 
+                                   + JobScheduler.MIN_PRIORITY + "-" + JobScheduler.MAX_PRIORITY + ">]"
+                                   + " [--increment-min=<mask positions>]"
+                                   + " [--wordlist=<file> [--rules=<file>|default]]"
+                                   + " [--cache=<file>|--no-cache] [--transport=auto|binary|rmi]");
+                return;
+            }
+        }
+        
         Scanner scanner = new Scanner(System.in);
+        CrackedHashCache cache = null;
+        CrackerCoordinator cluster = null;
         
         try {
             System.out.println("=== Distributed MD5 Password Cracker ===");
             System.out.println();
             
             // Get user inputs
-            System.out.print("Enter target MD5 hash (32 hex characters): ");
-            String targetHash = scanner.nextLine().toLowerCase().trim();
+            System.out.print("Enter target MD5 hash(es) (32 hex characters, comma-separated, or @file): ");
+            List<String> targetHashes = readTargetHashes(scanner.nextLine().trim());
             
-            if (!targetHash.matches("[0-9a-f]{32}")) {
-                System.err.println("Error: Invalid MD5 hash format");
-                return;
+            for (String hash : targetHashes) {
+                if (!hash.matches("[0-9a-f]{32}")) {
+                    System.err.println("Error: Invalid MD5 hash format: " + hash);
+                    return;
+                }
             }
-            
-            System.out.print("Enter password length to search (1-10): ");
-            int passwordLength = scanner.nextInt();
-            
-            if (passwordLength < 1 || passwordLength > 10) {
-                System.err.println("Error: Password length must be between 1 and 10");
+            if (targetHashes.isEmpty()) {
+                System.err.println("Error: No target hash given");
                 return;
             }
             
-            System.out.print("Enter number of threads per server (1-10): ");
-            int threadsPerServer = scanner.nextInt();
-            
-            if (threadsPerServer < 1 || threadsPerServer > 10) {
-                System.err.println("Error: Number of threads must be between 1 and 10");
-                return;
+            // Hashes cracked by an earlier run are answered without contacting the servers
+            if (cacheFile != null) {
+                cache = new CrackedHashCache(Paths.get(cacheFile), CrackedHashCache.DEFAULT_CAPACITY);
+                Map<String, String> known = cache.lookupAll(targetHashes);
+                for (Map.Entry<String, String> entry : known.entrySet()) {
+                    System.out.println("★ KNOWN " + entry.getKey() + " = '" + entry.getValue() 
+                                     + "' (from " + cacheFile + ")");
+                }
+                targetHashes.removeAll(known.keySet());
+                if (targetHashes.isEmpty()) {
+                    System.out.println("All " + known.size() + " target hash(es) were cracked before; "
+                                     + "nothing to search");
+                    return;
+                }
             }
             
-            System.out.print("Enter number of servers to use (1 or 2): ");
-            int numServers = scanner.nextInt();
+            String mask = null;
+            int minLength = 0;
+            int passwordLength = 0;
+            long wordlistSize = 0;
+            WordRules rules = null;
             
-            if (numServers < 1 || numServers > 2) {
-                System.err.println("Error: Number of servers must be 1 or 2");
-                return;
+            if (wordlist != null) {
+                // A dictionary job needs no length; every word is tried under every rule
+                try {
+                    wordlistSize = Files.size(Paths.get(wordlist));
+                    rules = rulesOption == null ? WordRules.identity()
+                            : rulesOption.equals("default") ? WordRules.parse(WordRules.DEFAULT_RULES)
+                            : WordRules.load(Paths.get(rulesOption));
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Error: " + e.getMessage());
+                    return;
+                }
+            } else {
+                System.out.print("Enter password length to search (1-10), a range (e.g. 1-8) "
+                                 + "or a mask (e.g. ?u?l?l?l?d?d): ");
+                String lengthOrMask = scanner.next();
+                
+                if (lengthOrMask.matches("[0-9]+-[0-9]+")) {
+                    // A length range is swept shortest first in a single job
+                    String[] bounds = lengthOrMask.split("-");
+                    minLength = Integer.parseInt(bounds[0]);
+                    passwordLength = Integer.parseInt(bounds[1]);
+                    if (minLength < 1 || passwordLength > 10 || minLength > passwordLength) {
+                        System.err.println("Error: Length range must lie between 1 and 10, shortest first");
+                        return;
+                    }
+                } else if (Mask.isMask(lengthOrMask)) {
+                    try {
+                        mask = lengthOrMask;
+                        passwordLength = Mask.parse(mask).getLength();
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Error: " + e.getMessage());
+                        return;
+                    }
+                    // With --increment-min the mask's shorter prefixes are searched first
+                    minLength = incrementMin > 0 ? incrementMin : passwordLength;
+                    if (minLength > passwordLength) {
+                        System.err.println("Error: --increment-min exceeds the mask length " + passwordLength);
+                        return;
+                    }
+                } else {
+                    passwordLength = Integer.parseInt(lengthOrMask);
+                    minLength = passwordLength;
+                    if (passwordLength < 1 || passwordLength > 10) {
+                        System.err.println("Error: Password length must be between 1 and 10");
+                        return;
+                    }
+                }
             }
             
-            scanner.nextLine(); // Consume newline
-            
-            // Get server connection details
-            String[] serverNames = new String[numServers];
-            String[] serverHosts = new String[numServers];
-            int[] serverPorts = new int[numServers];
+            // A limit, not a count: every server sizes its pool to its own cores
+            System.out.print("Enter most threads per server (0 = all cores of each server): ");
+            int threadsPerServer = scanner.nextInt();
             
-            for (int i = 0; i < numServers; i++) {
-                System.out.println("\nServer " + (i + 1) + " details:");
-                System.out.print("  Server name (e.g., Server1): ");
-                serverNames[i] = scanner.nextLine().trim();
-                System.out.print("  Host (e.g., localhost): ");
-                serverHosts[i] = scanner.nextLine().trim();
-                System.out.print("  Port (e.g., 1099): ");
-                serverPorts[i] = scanner.nextInt();
-                scanner.nextLine(); // Consume newline
+            if (threadsPerServer < 0) {
+                System.err.println("Error: Number of threads must not be negative");
+                return;
             }
             
-            System.out.println("\n=== Starting Distributed Search ===");
-            System.out.println("Target Hash: " + targetHash);
-            System.out.println("Password Length: " + passwordLength);
-            System.out.println("Threads per Server: " + threadsPerServer);
-            System.out.println("Number of Servers: " + numServers);
-            System.out.println("Start Time: " + getTimestamp());
-            System.out.println();
-            
-            // Connect to servers
-            CrackerInterface[] servers = new CrackerInterface[numServers];
-            
-            for (int i = 0; i < numServers; i++) {
-                try {
-                    Registry registry = LocateRegistry.getRegistry(serverHosts[i], serverPorts[i]);
-                    servers[i] = (CrackerInterface) registry.lookup(serverNames[i]);
-                    String response = servers[i].ping();
-                    System.out.println("✓ Connected to: " + response + " at " + 
-                                     serverHosts[i] + ":" + serverPorts[i]);
-                } catch (RemoteException | NotBoundException e) {
-                    System.err.println("✗ Failed to connect to server " + (i + 1) + ": " + e.getMessage());
+            // Get server connection details from the cluster file, or interactively
+            List<ClusterConfig.Node> nodes;
+            if (clusterFile != null) {
+                nodes = ClusterConfig.load(Paths.get(clusterFile)).getNodes();
+                System.out.println("Loaded " + nodes.size() + " server(s) from " + clusterFile);
+            } else {
+                nodes = readNodes(scanner);
+                if (nodes == null) {
                     return;
                 }
             }
             
-            System.out.println();
-            
-            // Partition search space across servers
-            SearchConfig[] configs = partitionSearchSpace(numServers);
-            
-            System.out.println("Search Space Partitioning:");
-            for (int i = 0; i < numServers; i++) {
-                System.out.println("  Server " + (i + 1) + " (" + serverNames[i] + "): " +
-                                 "Characters [" + configs[i].startIndex + ", " + 
-                                 configs[i].endIndex + ") - " + 
-                                 (configs[i].endIndex - configs[i].startIndex) + " characters");
+            System.out.println("\n=== Starting Distributed Search ===");
+            if (targetHashes.size() == 1) {
+                System.out.println("Target Hash: " + targetHashes.get(0));
+            } else {
+                System.out.println("Target Hashes: " + targetHashes.size() + " (one pass over the keyspace)");
+            }
+            if (wordlist != null) {
+                System.out.println("Wordlist: " + wordlist + " (" + wordlistSize + " bytes, " 
+                                 + rules.size() + " rule(s) per word)");
+            } else {
+                System.out.println("Password Length: " + (minLength == passwordLength ? String.valueOf(passwordLength)
+                                                       : minLength + "-" + passwordLength + " (shortest first)"));
+            }
+            if (mask != null) {
+                System.out.println("Mask: " + mask);
             }
+            System.out.println("Threads per Server: " + (threadsPerServer > 0 ? "at most " + threadsPerServer 
+                                                                             : "all cores"));
+            System.out.println("Number of Servers: " + nodes.size());
+            System.out.println("Start Time: " + getTimestamp());
             System.out.println();
             
-            long globalStartTime = System.currentTimeMillis();
-            
-            // Execute searches concurrently using ExecutorService
-            ExecutorService executor = Executors.newFixedThreadPool(numServers);
-            AtomicReference<SearchResult> finalResult = new AtomicReference<>(null);
-            CountDownLatch latch = new CountDownLatch(numServers);
-            
-            // Submit search tasks for each server
-            for (int i = 0; i < numServers; i++) {
-                final int serverIndex = i;
-                final CrackerInterface server = servers[i];
-                final SearchConfig config = configs[i];
-                
-                executor.submit(() -> {
-                    try {
-                        System.out.println("→ Starting search on " + serverNames[serverIndex] + "...");
-                        
-                        SearchResult result = server.searchPassword(
-                            targetHash,
-                            config.startIndex,
-                            config.endIndex,
-                            threadsPerServer,
-                            passwordLength
-                        );
-                        
-                        if (result.isFound()) {
-                            System.out.println("★ PASSWORD FOUND by " + serverNames[serverIndex] + "!");
-                            
-                            // Set result if this is the first to find it
-                            finalResult.compareAndSet(null, result);
-                            
-                            // Signal all other servers to stop
-                            for (int j = 0; j < numServers; j++) {
-                                if (j != serverIndex) {
-                                    try {
-                                        servers[j].stopSearch();
-                                    } catch (RemoteException e) {
-                                        // Ignore errors during stop signal
-                                    }
-                                }
-                            }
-                        } else {
-                            System.out.println("→ " + serverNames[serverIndex] + " completed (not found)");
-                        }
-                        
-                    } catch (RemoteException e) {
-                        System.err.println("✗ Error from " + serverNames[serverIndex] + ": " + e.getMessage());
-                    } finally {
-                        latch.countDown();
-                    }
-                });
+            // Connect once; the coordinator reaches every server in parallel and skips unreachable ones
+            try {
+                cluster = CrackerCoordinator.connect(nodes, transport, System.out);
+            } catch (IOException e) {
+                System.err.println("Error: " + e.getMessage());
+                return;
             }
+            cluster.setCache(cache);
+            cluster.setCheckpointDir(Paths.get(CHECKPOINT_DIR));
+            System.out.println();
             
-            // Wait for all searches to complete
-            latch.await();
-            executor.shutdown();
-            
-            long globalEndTime = System.currentTimeMillis();
-            double totalSeconds = (globalEndTime - globalStartTime) / 1000.0;
+            String jobId = UUID.randomUUID().toString();
+            JobSpec job = wordlist != null ? new JobSpec(jobId, targetHashes, wordlist, wordlistSize, 
+                                                         rules.getRules(), priority)
+                        : mask != null ? new JobSpec(jobId, targetHashes, mask, minLength, priority)
+                        : new JobSpec(jobId, targetHashes, minLength, passwordLength, priority);
+            CrackerCoordinator.JobReport report = cluster.run(job, threadsPerServer);
+            double totalSeconds = report.getElapsedMs() / 1000.0;
             
             // Display results
             System.out.println();
@@ -178,13 +218,30 @@ public class CrackerClient {
             System.out.println("SEARCH COMPLETED");
             System.out.println("=".repeat(60));
             
-            SearchResult result = finalResult.get();
-            if (result != null && result.isFound()) {
+            List<SearchResult> cracked = report.getCracked();
+            if (targetHashes.size() > 1) {
+                System.out.println("Status: " + cracked.size() + " OF " + job.getTargetCount() + " HASHES CRACKED");
+                for (SearchResult entry : cracked) {
+                    System.out.println("  " + entry.getTargetHash() + " = '" + entry.getPassword() 
+                                     + "' (length " + entry.getPasswordLength() + ", " + entry.getServerName() + ", " + entry.getSearchTimeMs() + " ms)");
+                }
+                for (String hash : report.getNotFound()) {
+                    System.out.println("  " + hash + (report.isFinished() ? " not found" 
+                                                       : " not found in the part searched"));
+                }
+            } else if (!cracked.isEmpty()) {
+                SearchResult result = cracked.get(0);
                 System.out.println("Status: PASSWORD FOUND");
                 System.out.println("Password: '" + result.getPassword() + "'");
+                System.out.println("Password Length: " + result.getPasswordLength());
                 System.out.println("Found by Thread: " + result.getThreadName());
                 System.out.println("Found on Server: " + result.getServerName());
                 System.out.println("Server Search Time: " + result.getSearchTimeMs() + " ms");
+            } else if (!report.isFinished()) {
+                // Servers failed before the keyspace was covered; the password may be in the rest
+                System.out.println("Status: SEARCH INCOMPLETE");
+                System.out.println(String.format("Only %.1f%% of the search space was searched.",
+                    100 * report.getSearchedFraction()));
             } else {
                 System.out.println("Status: PASSWORD NOT FOUND");
                 System.out.println("The password was not found in the search space.");
@@ -202,57 +259,79 @@ public class CrackerClient {
             e.printStackTrace();
         } finally {
             scanner.close();
+            if (cluster != null) {
+                cluster.close();
+            }
+            if (cache != null) {
+                try {
+                    cache.close();
+                } catch (IOException e) {
+                    // Every entry was flushed when it was written
+                }
+            }
         }
     }
     
     /**
-     * Partitions the search space across servers based on character indices.
-     * Uses static partitioning to ensure non-overlapping ranges.
-     * 
-     * Mathematical Division:
-     * - Total character space: 95 printable ASCII characters (indices 0-94)
-     * - Each server gets: baseChunk = 95 / numServers characters
-     * - Remainder distributed to first servers: remainder = 95 % numServers
-     * 
-     * Example with 2 servers:
-     *   Server 1: indices [0, 48)  = 48 characters
-     *   Server 2: indices [48, 95) = 47 characters
-     * 
-     * This ensures:
-     * 1. No overlap between servers (ranges are contiguous and exclusive)
-     * 2. Complete coverage (all 95 characters are assigned)
-     * 3. Fair distribution (difference of at most 1 character between servers)
+     * Returns true if the option value is a priority the servers accept.
      */
-    private static SearchConfig[] partitionSearchSpace(int numServers) {
-        SearchConfig[] configs = new SearchConfig[numServers];
-        
-        int baseChunk = TOTAL_CHARACTERS / numServers;
-        int remainder = TOTAL_CHARACTERS % numServers;
-        
-        int cursor = 0;
-        for (int i = 0; i < numServers; i++) {
-            int startIndex = cursor;
-            int chunk = baseChunk + (i < remainder ? 1 : 0);
-            int endIndex = startIndex + chunk;
-            
-            configs[i] = new SearchConfig(startIndex, endIndex);
-            cursor = endIndex;
+    private static boolean isPriority(String value) {
+        try {
+            int priority = Integer.parseInt(value);
+            return priority >= JobScheduler.MIN_PRIORITY && priority <= JobScheduler.MAX_PRIORITY;
+        } catch (NumberFormatException e) {
+            return false;
         }
-        
-        return configs;
     }
     
     /**
-     * Helper class to hold search configuration for each server.
+     * Parses the target hash input: a comma-separated list, or {@code @file}
+     * with one hash per line (blank lines and '#' comments are skipped).
      */
-    private static class SearchConfig {
-        final int startIndex;
-        final int endIndex;
+    static List<String> readTargetHashes(String input) throws IOException {
+        List<String> hashes = new ArrayList<>();
+        List<String> entries = input.startsWith("@") 
+            ? Files.readAllLines(Paths.get(input.substring(1)), StandardCharsets.UTF_8)
+            : Arrays.asList(input.split(","));
+        for (String entry : entries) {
+            String hash = entry.trim().toLowerCase();
+            if (!hash.isEmpty() && !hash.startsWith("#")) {
+                hashes.add(hash);
+            }
+        }
+        return hashes;
+    }
+    
+    /**
+     * Reads server connection details interactively; every server gets weight 1.
+     * 
+     * @return the servers, or null if the input was invalid
+     */
+    private static List<ClusterConfig.Node> readNodes(Scanner scanner) {
+        System.out.print("Enter number of servers to use (at least 1): ");
+        int numServers = scanner.nextInt();
+        
+        if (numServers < 1) {
+            System.err.println("Error: Number of servers must be at least 1");
+            return null;
+        }
+        
+        scanner.nextLine(); // Consume newline
         
-        SearchConfig(int startIndex, int endIndex) {
-            this.startIndex = startIndex;
-            this.endIndex = endIndex;
+        List<ClusterConfig.Node> nodes = new ArrayList<>();
+        for (int i = 0; i < numServers; i++) {
+            System.out.println("\nServer " + (i + 1) + " details:");
+            System.out.print("  Server name (e.g., Server1): ");
+            String name = scanner.nextLine().trim();
+            System.out.print("  Host (e.g., localhost): ");
+            String host = scanner.nextLine().trim();
+            System.out.print("  Port (e.g., 1099): ");
+            int port = scanner.nextInt();
+            scanner.nextLine(); // Consume newline
+            nodes.add(new ClusterConfig.Node(name, host, port, 1.0));
         }
+        
+        return new ClusterConfig(nodes).getNodes();
     }
     
     /**
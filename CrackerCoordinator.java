@@ -0,0 +1,678 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs leased jobs on a cluster of cracker servers, one after another, over
+ * connections opened once: the programmatic API behind the interactive
+ * {@link CrackerClient} and the headless {@link CrackerBatch}.
+ *
+ * Each job exports its own {@link ChunkLeaseCoordinator}, from which every
+ * server pulls keyspace chunks, and ends when every target is cracked or the
+ * keyspace is exhausted. Servers are pinged throughout; a server that fails
+ * has its leases handed to the others, and is tried again by the next job.
+ *
+ * <pre>
+ * try (CrackerCoordinator cluster = CrackerCoordinator.connect(nodes, "auto", System.out)) {
+ *     for (JobSpec job : queue) {
+ *         CrackerCoordinator.JobReport report = cluster.run(job, 0);
+ *     }
+ * }
+ * </pre>
+ */
+public final class CrackerCoordinator implements AutoCloseable {
+
+    private static final long PROGRESS_INTERVAL_SECONDS = 2;
+    private static final long HEARTBEAT_INTERVAL_MS = 1000;
+    private static final int MAX_MISSED_HEARTBEATS = 3;
+    private static final long STOP_TIMEOUT_MS = 5000;
+
+    private final List<ClusterConfig.Node> nodes;
+    private final List<CrackerInterface> servers;
+    private final PrintStream console;
+    private CrackedHashCache cache;
+    private Path checkpointDir;
+
+    private CrackerCoordinator(List<ClusterConfig.Node> nodes, List<CrackerInterface> servers, PrintStream console) {
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.servers = servers;
+        this.console = console;
+    }
+
+    /**
+     * Connects to every server at once; unreachable servers are reported and
+     * skipped.
+     *
+     * @param transport "binary" to require each server's binary transport, "rmi" to use RMI only, or
+     *        "auto" to use the binary transport where it can be reached and RMI otherwise
+     * @param console receives progress messages; errors go to standard error
+     * @throws IOException if no server is reachable
+     */
+    public static CrackerCoordinator connect(List<ClusterConfig.Node> nodes, String transport, PrintStream console)
+            throws IOException, InterruptedException {
+        // Every remote call runs as a task of a TaskScope, on its own (virtual, where available) thread,
+        // so connecting, searching, pinging and stopping fan out to any number of servers at once
+        List<Future<CrackerInterface>> connections = new ArrayList<>();
+        try (TaskScope connecting = new TaskScope("Connect")) {
+            for (ClusterConfig.Node node : nodes) {
+                connections.add(connecting.fork(() -> connect(node, transport, console)));
+            }
+            connecting.join();
+        }
+
+        List<ClusterConfig.Node> connectedNodes = new ArrayList<>();
+        List<CrackerInterface> servers = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            try {
+                servers.add(connections.get(i).get());
+                connectedNodes.add(nodes.get(i));
+                console.println("✓ Connected to: " + nodes.get(i)
+                              + (servers.get(servers.size() - 1) instanceof BinaryCrackerStub
+                                 ? " (binary transport)" : " (RMI)"));
+            } catch (ExecutionException e) {
+                System.err.println("✗ Failed to connect to " + nodes.get(i) + ": " + e.getCause().getMessage());
+            }
+        }
+        if (servers.isEmpty()) {
+            throw new IOException("No servers reachable");
+        }
+        return new CrackerCoordinator(connectedNodes, servers, console);
+    }
+
+    /**
+     * Returns the servers that were reachable, which every job runs on.
+     */
+    public List<ClusterConfig.Node> getServers() {
+        return nodes;
+    }
+
+    /**
+     * Records every hash cracked from now on in a cache; null records none.
+     */
+    public void setCache(CrackedHashCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Checkpoints the completed leases of every job from now on in a
+     * directory, so an interrupted job resumes when it is run again; null
+     * runs jobs without checkpoints.
+     */
+    public void setCheckpointDir(Path checkpointDir) {
+        this.checkpointDir = checkpointDir;
+    }
+
+    /**
+     * Runs a leased job on every server and waits until every target is
+     * cracked, the keyspace is exhausted, or every server has failed.
+     *
+     * @param threadsPerServer most workers each server uses, or 0 for all its cores
+     * @throws RemoteException if the coordinator cannot be exported
+     */
+    public JobReport run(JobSpec job, int threadsPerServer) throws RemoteException, InterruptedException {
+        int numServers = servers.size();
+        Map<String, Double> weights = new LinkedHashMap<>();
+        double totalWeight = 0;
+        for (ClusterConfig.Node node : nodes) {
+            weights.put(node.getName(), node.getWeight());
+            totalWeight += node.getWeight();
+        }
+
+        // Completed leases are checkpointed so an interrupted run can be resumed
+        ChunkCheckpoint checkpoint = checkpointDir != null ? openCheckpoint(job) : null;
+
+        // One task per server's search call; shutting the scope down cancels them all together
+        TaskScope search = new TaskScope("Search");
+
+        // Cracked hashes stream in while the search runs; once all are in, the search scope shuts down.
+        // The listener may run on a transport's reader thread, so it must not wait for remote calls
+        AtomicReference<ChunkLeaseCoordinator> coordinatorRef = new AtomicReference<>();
+        CrackedHashCache knownHashes = cache;
+        ChunkLeaseCoordinator coordinator = new ChunkLeaseCoordinator(job, weights, cracked -> {
+            if (knownHashes != null) {
+                try {
+                    knownHashes.put(cracked);
+                } catch (IOException e) {
+                    System.err.println("Warning: could not record the cracked hash: " + e.getMessage());
+                }
+            }
+            console.println("★ CRACKED " + cracked.getTargetHash() + " = '" + cracked.getPassword()
+                          + "' (length " + cracked.getPasswordLength() + ") by " + cracked.getServerName()
+                          + "/" + cracked.getThreadName());
+            if (coordinatorRef.get().isAllFound()) {
+                search.shutdown();
+            }
+        }, checkpoint);
+        coordinatorRef.set(coordinator);
+
+        console.println("Search Space Leasing:");
+        console.println("  Job ID: " + job.getJobId());
+        console.println("  Priority: " + job.getPriority());
+        KeyspaceSequence keyspaces = job.getWordlist() != null ? null : job.createKeyspaces();
+        if (keyspaces == null) {
+            console.println("  Wordlist: " + job.getPrefixCount() + " bytes split by byte offset, "
+                          + "each server maps its own copy");
+        }
+        for (int i = 0; keyspaces != null && i < keyspaces.getSegmentCount(); i++) {
+            Keyspace keyspace = keyspaces.getSegment(i);
+            String label = keyspaces.getSegmentCount() > 1 ? "  Length " + keyspace.getLength() : "  Keyspace";
+            console.println(label + ": " + keyspace.getPrefixCount() + " prefixes x "
+                          + keyspace.getLastPositionSize() + " last-position characters ("
+                          + keyspace.getCandidateCount() + " candidates)");
+        }
+        for (int i = 0; i < numServers; i++) {
+            ClusterConfig.Node node = nodes.get(i);
+            console.println(String.format("  Server %d (%s): weight %.2f - %.1f%% home share",
+                i + 1, node.getName(), node.getWeight(), 100 * node.getWeight() / totalWeight));
+        }
+        console.println("  Servers lease chunks on demand; idle servers steal from the largest range"
+                      + (keyspaces != null && keyspaces.getSegmentCount() > 1
+                         ? " of the shortest length left" : ""));
+        console.println("  Remote calls run on " + (TaskScope.isVirtual() ? "virtual" : "platform") + " threads");
+        console.println();
+
+        long startTime = System.currentTimeMillis();
+
+        // Pings run in a scope of their own that is never joined, since a ping to a hung server may never
+        // return; a server declared dead has its search call cancelled
+        TaskScope pinging = new TaskScope("Ping");
+        Heartbeat heartbeat = new Heartbeat(coordinator, search, pinging);
+
+        // Print live throughput from the progress the servers push to the coordinator
+        ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor();
+        monitor.scheduleAtFixedRate(new LiveProgress(coordinator), PROGRESS_INTERVAL_SECONDS,
+                                    PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        monitor.scheduleAtFixedRate(heartbeat, HEARTBEAT_INTERVAL_MS, HEARTBEAT_INTERVAL_MS,
+                                    TimeUnit.MILLISECONDS);
+
+        // Every server joins the same leased job; a returned search reports the exact candidate count
+        SearchResult[] completed = new SearchResult[numServers];
+        for (int i = 0; i < numServers; i++) {
+            final int index = i;
+            final CrackerInterface server = servers.get(i);
+            final String serverName = nodes.get(i).getName();
+
+            heartbeat.watch(index, search.fork(() -> {
+                try {
+                    console.println("→ Starting leased search on " + serverName + "...");
+
+                    SearchResult result = server.leaseSearch(coordinator, threadsPerServer);
+                    completed[index] = result;
+
+                    console.println("→ " + serverName + " completed ("
+                                  + result.getCandidatesTested() + " candidates tested)");
+
+                } catch (RemoteException e) {
+                    // A call cancelled because the job is over is no failure; otherwise
+                    // the server's unfinished leases go to the servers still searching
+                    if (!search.isShutdown()) {
+                        heartbeat.declareDead(index, "failed: " + e.getMessage());
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // Wait until every search call returned or was cancelled, or until every target is cracked
+        try {
+            search.join();
+        } finally {
+            search.close();
+            monitor.shutdownNow();
+            pinging.close();
+        }
+        if (coordinator.isAllFound()) {
+            stopAll(job.getJobId());
+        }
+        UnicastRemoteObject.unexportObject(coordinator, true);
+        long elapsedMs = System.currentTimeMillis() - startTime;
+        long candidates = countCandidates(job.getJobId(), completed, coordinator, heartbeat);
+
+        if (coordinator.getReassignedLeases() > 0 || coordinator.getSpeculativeLeases() > 0) {
+            console.println("Fault tolerance: " + coordinator.getReassignedLeases()
+                          + " lease(s) reassigned from failed servers, "
+                          + coordinator.getSpeculativeLeases() + " speculative copies of slow leases");
+        }
+        if (!coordinator.isFinished()) {
+            console.println("Warning: only " + coordinator.getCompletedPrefixes() + " of "
+                          + coordinator.getPrefixCount() + " prefixes were searched");
+        }
+        if (checkpoint != null) {
+            try {
+                if (coordinator.isFinished()) {
+                    checkpoint.delete();
+                } else {
+                    checkpoint.close();
+                    console.println("Checkpoint kept; rerun the same job to resume: " + checkpoint.getFile());
+                }
+            } catch (IOException e) {
+                System.err.println("Warning: could not close the checkpoint: " + e.getMessage());
+            }
+        }
+
+        return new JobReport(job, coordinator.getFoundResults(), coordinator.isFinished(),
+                             coordinator.getCompletedPrefixes(), coordinator.getPrefixCount(), candidates,
+                             elapsedMs, coordinator.getReassignedLeases(), coordinator.getSpeculativeLeases());
+    }
+
+    /**
+     * Closes the binary transport connections; RMI stubs need no closing.
+     */
+    @Override
+    public void close() {
+        for (CrackerInterface server : servers) {
+            if (server instanceof BinaryCrackerStub) {
+                try {
+                    ((BinaryCrackerStub) server).close();
+                } catch (IOException e) {
+                    // The connection is gone either way
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds up the candidates every server tested. A search call that
+     * returned reports its exact count. A server whose call was cancelled,
+     * typically because the last target was cracked, is asked for the job's
+     * metrics, at most {@link #STOP_TIMEOUT_MS} for all of them; a dead
+     * server, or one that does not answer, counts with the last progress it
+     * pushed.
+     */
+    private long countCandidates(String jobId, SearchResult[] completed, ChunkLeaseCoordinator coordinator,
+                                 Heartbeat heartbeat) throws InterruptedException {
+        long[] counts = new long[servers.size()];
+        for (SearchProgress progress : coordinator.getServerProgress()) {
+            int index = indexOf(progress.getServerName());
+            if (index >= 0) {
+                counts[index] = progress.getCandidatesTested();
+            }
+        }
+
+        List<Future<SearchMetrics>> metrics = new ArrayList<>();
+        try (TaskScope querying = new TaskScope("Metrics")) {
+            for (int i = 0; i < servers.size(); i++) {
+                CrackerInterface server = servers.get(i);
+                metrics.add(completed[i] != null || heartbeat.isDead(i) ? null
+                            : querying.fork(() -> server.getMetrics(jobId)));
+            }
+            querying.join(STOP_TIMEOUT_MS);
+        }
+
+        long candidates = 0;
+        for (int i = 0; i < servers.size(); i++) {
+            if (completed[i] != null) {
+                candidates += completed[i].getCandidatesTested();
+                continue;
+            }
+            Future<SearchMetrics> query = metrics.get(i);
+            if (query != null && query.isDone() && !query.isCancelled()) {
+                try {
+                    SearchMetrics snapshot = query.get();
+                    if (snapshot != null) {
+                        counts[i] = Math.max(counts[i], snapshot.getCandidatesTested());
+                    }
+                } catch (ExecutionException e) {
+                    // Keep the last progress the server pushed
+                }
+            }
+            candidates += counts[i];
+        }
+        return candidates;
+    }
+
+    private int indexOf(String serverName) {
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.get(i).getName().equals(serverName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Opens the checkpoint of a leased job, or returns null if it cannot be
+     * used; the job then runs without one.
+     */
+    private ChunkCheckpoint openCheckpoint(JobSpec job) {
+        try {
+            ChunkCheckpoint checkpoint = ChunkCheckpoint.open(checkpointDir, job.getCheckpointKey(),
+                                                              job.getPrefixCount());
+            if (checkpoint.getDoneBlocks() > 0) {
+                console.println(String.format("Resuming from checkpoint: %.1f%% of the keyspace already searched",
+                    100.0 * checkpoint.getSearchedPrefixes() / checkpoint.getPrefixCount()));
+                console.println("  Hashes cracked before the interruption are not reported again");
+                console.println();
+            }
+            return checkpoint;
+        } catch (IOException e) {
+            System.err.println("Warning: cannot open checkpoint, searching without one: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Sends the stop signal to every server at once and waits up to
+     * {@link #STOP_TIMEOUT_MS} for the calls to return. A server that misses
+     * the signal stops on its next lease request, which the coordinator
+     * answers with null once every target is cracked.
+     */
+    private void stopAll(String jobId) throws InterruptedException {
+        try (TaskScope stopping = new TaskScope("Stop")) {
+            for (CrackerInterface server : servers) {
+                // Errors during the stop signal are ignored
+                stopping.fork(() -> {
+                    server.stopSearch(jobId);
+                    return null;
+                });
+            }
+            stopping.join(STOP_TIMEOUT_MS);
+        }
+    }
+
+    /**
+     * Looks up a server in its registry and pings it. Unless the transport
+     * is "rmi", the server's binary transport is then used when it offers
+     * one; with "auto", a server whose binary port cannot be reached is
+     * still used over RMI.
+     *
+     * @throws IOException if the lookup, the ping or the binary connection fails
+     * @throws NotBoundException if the server's name is not in its registry
+     */
+    private static CrackerInterface connect(ClusterConfig.Node node, String transport, PrintStream console)
+            throws IOException, NotBoundException {
+        Registry registry = LocateRegistry.getRegistry(node.getHost(), node.getPort());
+        CrackerInterface server = (CrackerInterface) registry.lookup(node.getName());
+        server.ping();
+        if (transport.equals("rmi")) {
+            return server;
+        }
+        try {
+            int binaryPort = server.getBinaryPort();
+            if (binaryPort < 0) {
+                throw new IOException(node.getName() + " has no binary transport");
+            }
+            return BinaryCrackerStub.connect(node.getHost(), binaryPort, node.getName());
+        } catch (IOException e) {
+            if (transport.equals("binary")) {
+                throw e;
+            }
+            System.err.println("Warning: using RMI for " + node.getName() + ": " + e.getMessage());
+            return server;
+        }
+    }
+
+    /**
+     * Returns current timestamp as formatted string.
+     */
+    private static String getTimestamp() {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+    }
+
+    /**
+     * Outcome of one job: the hashes cracked, how much of the keyspace was
+     * searched, and how long it took.
+     */
+    public static final class JobReport {
+        private final JobSpec job;
+        private final List<SearchResult> cracked;
+        private final boolean finished;
+        private final long completedPrefixes;
+        private final long prefixCount;
+        private final long candidatesTested;
+        private final long elapsedMs;
+        private final long reassignedLeases;
+        private final long speculativeLeases;
+
+        JobReport(JobSpec job, List<SearchResult> cracked, boolean finished, long completedPrefixes,
+                  long prefixCount, long candidatesTested, long elapsedMs, long reassignedLeases,
+                  long speculativeLeases) {
+            this.job = job;
+            this.cracked = Collections.unmodifiableList(new ArrayList<>(cracked));
+            this.finished = finished;
+            this.completedPrefixes = completedPrefixes;
+            this.prefixCount = prefixCount;
+            this.candidatesTested = candidatesTested;
+            this.elapsedMs = elapsedMs;
+            this.reassignedLeases = reassignedLeases;
+            this.speculativeLeases = speculativeLeases;
+        }
+
+        public JobSpec getJob() {
+            return job;
+        }
+
+        /**
+         * Returns the results of the hashes cracked, in the order they were found.
+         */
+        public List<SearchResult> getCracked() {
+            return cracked;
+        }
+
+        /**
+         * Returns the target hashes not cracked.
+         */
+        public List<String> getNotFound() {
+            List<String> notFound = new ArrayList<>(job.getTargetHashes());
+            for (SearchResult result : cracked) {
+                notFound.remove(result.getTargetHash());
+            }
+            return notFound;
+        }
+
+        public boolean isAllFound() {
+            return cracked.size() == job.getTargetCount();
+        }
+
+        /**
+         * Returns true if the whole keyspace was searched, so a hash not
+         * cracked is not in it; false if failed servers left part of it.
+         */
+        public boolean isFinished() {
+            return finished;
+        }
+
+        /**
+         * Returns the fraction of the keyspace searched, from 0 to 1.
+         */
+        public double getSearchedFraction() {
+            return prefixCount == 0 ? 1.0 : (double) completedPrefixes / prefixCount;
+        }
+
+        public long getCompletedPrefixes() {
+            return completedPrefixes;
+        }
+
+        public long getPrefixCount() {
+            return prefixCount;
+        }
+
+        public long getCandidatesTested() {
+            return candidatesTested;
+        }
+
+        /**
+         * Returns the time from the first search call to the last, in milliseconds.
+         */
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+
+        public double getCandidatesPerSecond() {
+            return elapsedMs == 0 ? 0 : candidatesTested * 1000.0 / elapsedMs;
+        }
+
+        public long getReassignedLeases() {
+            return reassignedLeases;
+        }
+
+        public long getSpeculativeLeases() {
+            return speculativeLeases;
+        }
+    }
+
+    /**
+     * Prints one line of aggregate progress per interval: total candidates,
+     * throughput since the previous line, keyspace completed and hashes cracked,
+     * followed by each server's rate and current prefix.
+     */
+    private class LiveProgress implements Runnable {
+        private final ChunkLeaseCoordinator coordinator;
+        private long lastCandidates;
+        private long lastNanos = System.nanoTime();
+
+        LiveProgress(ChunkLeaseCoordinator coordinator) {
+            this.coordinator = coordinator;
+        }
+
+        @Override
+        public void run() {
+            List<SearchProgress> progress = coordinator.getServerProgress();
+            long candidates = 0;
+            StringBuilder servers = new StringBuilder();
+            for (SearchProgress server : progress) {
+                candidates += server.getCandidatesTested();
+                servers.append(String.format("%n    %s: %.2f M/s, at '%s'", server.getServerName(),
+                    server.getCandidatesPerSecond() / 1e6,
+                    server.getCurrentPrefix() == null ? "" : server.getCurrentPrefix()));
+            }
+
+            long now = System.nanoTime();
+            double rate = (candidates - lastCandidates) / Math.max((now - lastNanos) / 1e9, 1e-3);
+            lastCandidates = candidates;
+            lastNanos = now;
+
+            console.println(String.format("[%s] %,d candidates | %.2f M/s | %.1f%% searched | %d/%d cracked%s",
+                getTimestamp(), candidates, rate / 1e6,
+                100.0 * coordinator.getCompletedPrefixes() / coordinator.getPrefixCount(),
+                coordinator.getFoundResults().size(), coordinator.getJob().getTargetCount(), servers));
+        }
+    }
+
+    /**
+     * Pings every server of a running job once per interval, on top of the
+     * progress the servers push. A server that misses
+     * {@link #MAX_MISSED_HEARTBEATS} pings in a row, or whose search call
+     * fails, is declared dead: the coordinator hands its leases to the
+     * surviving servers, and the server's search call is cancelled so the
+     * client stops waiting for it. A server that answers again is reported
+     * back. Once the keyspace is exhausted, search calls still running after
+     * {@link #MAX_MISSED_HEARTBEATS} more intervals are cancelled, so a
+     * server stuck in its call cannot hold up the end of the job.
+     */
+    private class Heartbeat implements Runnable {
+        private final ChunkLeaseCoordinator coordinator;
+        private final TaskScope scope;
+        private final TaskScope pingScope;
+        private final Future<?>[] searches;
+        private final Future<?>[] pings;
+        private final int[] missed;
+        private final boolean[] dead;
+        private int intervalsSinceFinished;
+
+        Heartbeat(ChunkLeaseCoordinator coordinator, TaskScope scope, TaskScope pingScope) {
+            this.coordinator = coordinator;
+            this.scope = scope;
+            this.pingScope = pingScope;
+            this.searches = new Future<?>[servers.size()];
+            this.pings = new Future<?>[servers.size()];
+            this.missed = new int[servers.size()];
+            this.dead = new boolean[servers.size()];
+        }
+
+        /**
+         * Registers the task running a server's search call.
+         */
+        synchronized void watch(int index, Future<?> search) {
+            searches[index] = search;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (scope.isShutdown()) {
+                return;
+            }
+            if (coordinator.isFinished() && ++intervalsSinceFinished > MAX_MISSED_HEARTBEATS) {
+                scope.shutdown();
+                return;
+            }
+            for (int i = 0; i < servers.size(); i++) {
+                // A server whose search call returned has nothing left to watch
+                if (searches[i] != null && searches[i].isDone() && !dead[i]) {
+                    continue;
+                }
+                Future<?> ping = pings[i];
+                if (ping != null && !ping.isDone()) {
+                    // Still waiting for the previous ping; don't pile up calls to a hung server
+                    missed[i]++;
+                } else if (ping != null && answered(ping)) {
+                    missed[i] = 0;
+                    if (dead[i]) {
+                        dead[i] = false;
+                        console.println("✓ " + nodes.get(i).getName() + " answers again");
+                    }
+                } else if (ping != null) {
+                    missed[i]++;
+                }
+                if (missed[i] >= MAX_MISSED_HEARTBEATS && !dead[i]) {
+                    declareDead(i, "missed " + missed[i] + " heartbeats");
+                }
+                if (ping == null || ping.isDone()) {
+                    CrackerInterface server = servers.get(i);
+                    pings[i] = pingScope.fork(server::ping);
+                }
+            }
+        }
+
+        synchronized boolean isDead(int index) {
+            return dead[index];
+        }
+
+        /**
+         * Reports a server as dead, hands its leases to the others and cancels its search call.
+         */
+        synchronized void declareDead(int index, String reason) {
+            if (dead[index]) {
+                return;
+            }
+            dead[index] = true;
+            // Only a ping sent from now on can show that the server is back
+            pings[index] = null;
+            missed[index] = 0;
+            int leases = coordinator.serverFailed(nodes.get(index).getName());
+            System.err.println("✗ " + nodes.get(index).getName() + " " + reason
+                             + (leases > 0 ? "; " + leases + " unfinished lease(s) go to the other servers" : ""));
+            if (searches[index] != null) {
+                searches[index].cancel(true);
+            }
+        }
+
+        private boolean answered(Future<?> ping) {
+            try {
+                ping.get();
+                return true;
+            } catch (ExecutionException | InterruptedException | CancellationException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.List;
 
 /**
  * Remote interface for the distributed MD5 password cracker.
@@ -13,7 +14,8 @@ public interface CrackerInterface extends Remote {
      * @param targetHash The MD5 hash to crack (32 hex characters)
      * @param startCharIndex Starting index in the character set (inclusive)
      * @param endCharIndex Ending index in the character set (exclusive)
-     * @param numThreads Number of threads to use for this search
+     * @param numThreads Most worker threads to use for this search, capped at the
+     *                   server's pool; 0 for all of them
      * @param passwordLength Length of password to search for
      * @return SearchResult object containing the result or null if not found
      * @throws RemoteException if RMI communication fails
@@ -22,6 +24,86 @@ public interface CrackerInterface extends Remote {
                                int endCharIndex, int numThreads, 
                                int passwordLength) throws RemoteException;
     
+    /**
+     * Initiates a password search under a caller-chosen job ID. Several jobs
+     * can run on one server at the same time; they share its worker threads
+     * in proportion to their priorities.
+     * 
+     * @param jobId ID for {@link #stopSearch(String)} and {@link #getProgress(String, int)};
+     *              must not belong to a job already running on this server
+     * @param targetHash The MD5 hash to crack (32 hex characters)
+     * @param startCharIndex Starting index in the character set (inclusive)
+     * @param endCharIndex Ending index in the character set (exclusive)
+     * @param numThreads Most worker threads this job may use at once; 0 for all of them
+     * @param passwordLength Length of password to search for
+     * @param priority Share of the workers while other jobs run, 1 (lowest) to 10
+     * @return SearchResult object containing the result or null if not found
+     * @throws RemoteException if RMI communication fails or the request is invalid
+     */
+    SearchResult searchPassword(String jobId, String targetHash, int startCharIndex, 
+                               int endCharIndex, int numThreads, 
+                               int passwordLength, int priority) throws RemoteException;
+    
+    /**
+     * Joins a leased search: the server repeatedly pulls keyspace chunks from
+     * the coordinator, searches them with its worker threads and reports each
+     * one back, until the coordinator has no work left or the password is found.
+     * A server can be handed the coordinator at any point while the job runs.
+     * 
+     * @param coordinator remote coordinator exported by the client
+     * @param numThreads Most worker threads to use for this search, capped at the
+     *                   server's pool; 0 for all of them
+     * @return SearchResult for the chunks this server searched
+     * @throws RemoteException if RMI communication fails
+     */
+    SearchResult leaseSearch(ChunkCoordinator coordinator, int numThreads) throws RemoteException;
+    
+    /**
+     * Polls the progress of the current or most recent search. Passwords found
+     * since {@code foundCursor} are included, so a client can stream results
+     * by passing back {@link SearchProgress#getNextCursor()} on every poll.
+     * 
+     * @param foundCursor number of found results the caller has already seen
+     * @return snapshot of the search, or null if no search has run yet
+     * @throws RemoteException if RMI communication fails
+     */
+    SearchProgress getProgress(int foundCursor) throws RemoteException;
+    
+    /**
+     * Polls the progress of one running or recently finished job.
+     * 
+     * @param jobId ID of the job
+     * @param foundCursor number of found results the caller has already seen
+     * @return snapshot of the job, or null if the server does not know it
+     * @throws RemoteException if RMI communication fails
+     */
+    SearchProgress getProgress(String jobId, int foundCursor) throws RemoteException;
+    
+    /**
+     * Returns the live metrics of every job running on the server: hash
+     * rate, fraction done, ETA and the rate of each worker thread.
+     * 
+     * @return one snapshot per running job, empty if the server is idle
+     * @throws RemoteException if RMI communication fails
+     */
+    List<SearchMetrics> getMetrics() throws RemoteException;
+    
+    /**
+     * Returns the live metrics of one running or recently finished job.
+     * 
+     * @param jobId ID of the job
+     * @return snapshot of the job, or null if the server does not know it
+     * @throws RemoteException if RMI communication fails
+     */
+    SearchMetrics getMetrics(String jobId) throws RemoteException;
+    
+    /**
+     * Returns the IDs of the jobs currently running on the server.
+     * 
+     * @throws RemoteException if RMI communication fails
+     */
+    List<String> getActiveJobs() throws RemoteException;
+    
     /**
      * Signals the server to stop all ongoing searches immediately.
      * Called when password is found by another server.
@@ -30,6 +112,24 @@ public interface CrackerInterface extends Remote {
      */
     void stopSearch() throws RemoteException;
     
+    /**
+     * Signals the server to stop one job, leaving any other search running.
+     * Unknown or finished jobs are ignored.
+     * 
+     * @param jobId ID of the job to stop, as in {@link JobSpec#getJobId()}
+     * @throws RemoteException if RMI communication fails
+     */
+    void stopSearch(String jobId) throws RemoteException;
+    
+    /**
+     * Returns the port of the server's binary transport, which serves the
+     * same methods with less overhead per call (see {@link BinaryProtocol}).
+     * 
+     * @return the TCP port, or -1 if the server only speaks RMI
+     * @throws RemoteException if RMI communication fails
+     */
+    int getBinaryPort() throws RemoteException;
+    
     /**
      * Health check method to verify server is responsive.
      * 
@@ -1,168 +1,505 @@
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * RMI Server implementation for distributed MD5 password cracking.
- * Each server handles a portion of the search space across multiple threads.
+ * Each server handles a portion of the search space across multiple threads,
+ * which take fine-grained index chunks from it one at a time. The worker
+ * threads belong to a server-wide {@link JobScheduler}, so several jobs can
+ * run at once and share the workers according to their priorities.
  */
 public class CrackerServer extends UnicastRemoteObject implements CrackerInterface {
     
     private static final long serialVersionUID = 1L;
-    private static final char[] ALLOWED;
+    private static final char[] ALLOWED = Keyspace.printableAscii();
     
-    static {
-        // Initialize character set with all printable ASCII characters
-        ALLOWED = new char[95];
-        for (int i = 0; i < 95; i++) {
-            ALLOWED[i] = (char) (32 + i);
-        }
-    }
+    // Chunk granularity: aim for this many chunks per thread, but never
+    // more than MAX_CHUNK_PREFIXES prefixes (x95 candidates) in one chunk
+    private static final int CHUNKS_PER_THREAD = 16;
+    private static final long MAX_CHUNK_PREFIXES = 4096;
     
-    // Thread-local MessageDigest for thread safety
-    private static final ThreadLocal<MessageDigest> MD5_DIGEST = ThreadLocal.withInitial(() -> {
-        try {
-            return MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("MD5 algorithm not available", e);
-        }
-    });
+    // Prefixes (x95 candidates) a worker searches between cancellation checks
+    private static final int CANCEL_CHECK_PREFIXES = 16;
+    
+    // Dictionary jobs chunk by bytes; a chunk holds a few thousand words
+    private static final long MAX_CHUNK_BYTES = 64 * 1024;
+    private static final int CANCEL_CHECK_WORDS = 256;
+    
+    static final String DEFAULT_CHECKPOINT_DIR = "checkpoints";
+    
+    // Interval between progress pushes to the coordinator during a leased search
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+    
+    // Pause before asking again when the coordinator has no lease free yet
+    private static final long LEASE_RETRY_MS = 250;
     
     private final String serverName;
-    private final PrintWriter logWriter;
-    private final AtomicBoolean stopRequested;
+    private final SearchEngine engine;
+    private final AsyncLog logger;
+    private final JobScheduler scheduler;
+    
+    // Running jobs by ID, so a stop request only cancels the job it names
+    private final Map<String, SearchJob> activeJobs = new ConcurrentHashMap<>();
+    private final AtomicLong directSearchCount = new AtomicLong();
+    
+    // Most recently finished jobs, still available to getProgress(jobId, cursor)
+    private static final int MAX_FINISHED_JOBS = 16;
+    private final Map<String, SearchJob> finishedJobs = Collections.synchronizedMap(
+        new LinkedHashMap<String, SearchJob>() {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SearchJob> eldest) {
+                return size() > MAX_FINISHED_JOBS;
+            }
+        });
+    
+    // Directory for per-job checkpoint files, or null to disable checkpointing
+    private final Path checkpointDir;
+    
+    // Most recently started search, read by getProgress(cursor)
+    private volatile SearchJob latestJob;
+    
+    // Directory that relative wordlist paths of dictionary jobs are resolved against
+    private volatile Path wordlistDir = Paths.get(".");
+    
+    // Precomputed digest tables by password length, added as they become ready
+    private final Map<Integer, DigestTable> digestTables = new ConcurrentHashMap<>();
+    
+    // Every hash this server ever cracked, consulted before a direct search; null if disabled
+    private volatile CrackedHashCache crackedHashes;
+    
+    // Binary transport serving this server next to RMI; null if disabled
+    private volatile BinaryTransportServer binaryTransport;
     
     /**
-     * Constructor initializes the server with logging.
+     * Constructor initializes the server with logging and the default engine.
      */
     public CrackerServer(String serverName) throws RemoteException, IOException {
+        this(serverName, SearchEngine.TARGET_REVERSAL);
+    }
+    
+    /**
+     * Constructor initializes the server with logging and the given search engine.
+     */
+    public CrackerServer(String serverName, SearchEngine engine) throws RemoteException, IOException {
+        this(serverName, engine, Paths.get(DEFAULT_CHECKPOINT_DIR));
+    }
+    
+    /**
+     * Constructor initializes the server with logging, the given search engine
+     * and the directory where searches are checkpointed (null disables it).
+     */
+    public CrackerServer(String serverName, SearchEngine engine, Path checkpointDir) 
+            throws RemoteException, IOException {
+        this(serverName, engine, checkpointDir, 0);
+    }
+    
+    /**
+     * Constructor initializes the server with logging, the given search engine,
+     * the checkpoint directory (null disables it) and the number of worker
+     * threads shared by all jobs (0 for one per CPU the process may use).
+     */
+    public CrackerServer(String serverName, SearchEngine engine, Path checkpointDir, int workerCount) 
+            throws RemoteException, IOException {
+        this(serverName, engine, checkpointDir, workerCount, CpuTopology.detect());
+    }
+    
+    /**
+     * Constructor initializes the server with logging, the given search engine,
+     * the checkpoint directory (null disables it), the number of worker
+     * threads (0 for one per CPU of the topology) and the topology whose NUMA
+     * nodes the workers are grouped by.
+     */
+    public CrackerServer(String serverName, SearchEngine engine, Path checkpointDir, int workerCount,
+                         CpuTopology topology) throws RemoteException, IOException {
         super();
         this.serverName = serverName;
-        this.stopRequested = new AtomicBoolean(false);
+        this.engine = engine.resolve();
+        this.checkpointDir = checkpointDir;
         
         // Initialize log file
         String logFileName = serverName.toLowerCase().replace(" ", "_") + ".log";
-        this.logWriter = new PrintWriter(new FileWriter(logFileName, true), true);
+        this.logger = new AsyncLog(logFileName, serverName + "-log");
+        // Write out whatever is still buffered when the server process is stopped
+        Runtime.getRuntime().addShutdownHook(new Thread(logger::close, serverName + "-log-flush"));
         
         log("=== Server Initialized: " + serverName + " ===");
         log("Server start time: " + getTimestamp());
+        if (this.engine != engine) {
+            log("WARNING: " + engine.getOptionName() + " engine unavailable, falling back to " 
+                + this.engine.getOptionName());
+        }
+        log("Search engine: " + this.engine.getOptionName() + " (" + this.engine.getLanes() + " lane(s))");
+        
+        // Started once; every search request reuses these threads, one group per NUMA node
+        int workers = workerCount > 0 ? workerCount : topology.getCpuCount();
+        int[] groups = topology.distribute(workers);
+        this.scheduler = new JobScheduler(serverName, groups);
+        log("Worker pool: " + workers + " threads shared by all jobs");
+        log("CPUs: " + topology.getCpuCount() + " allowed (" + topology + ")");
+        if (scheduler.getGroupSizes().length > 1) {
+            log("Worker groups: " + Arrays.toString(scheduler.getGroupSizes()) 
+                + " per NUMA node, each with its own chunk queue");
+        }
+    }
+    
+    /**
+     * Sets the directory that relative wordlist paths of dictionary jobs are
+     * resolved against; the working directory by default.
+     */
+    public void setWordlistDir(Path wordlistDir) {
+        this.wordlistDir = wordlistDir;
+    }
+    
+    /**
+     * Starts the binary transport, which serves the same calls as the RMI
+     * export; clients that cannot reach it keep using RMI.
+     * 
+     * @param port TCP port, or 0 for any free port
+     * @return the port the transport listens on
+     * @throws IOException if the port cannot be bound
+     */
+    public int enableBinaryTransport(int port) throws IOException {
+        this.binaryTransport = new BinaryTransportServer(this, serverName, port);
+        log("Binary transport listening on port " + binaryTransport.getPort());
+        return binaryTransport.getPort();
+    }
+    
+    /**
+     * Opens the cracked-hash cache; every hash cracked from now on is added to
+     * it, and direct searches for a hash it knows return at once.
+     * 
+     * @throws IOException if the cache file cannot be opened
+     */
+    public void enableCrackedHashCache(Path file) throws IOException {
+        this.crackedHashes = new CrackedHashCache(file, CrackedHashCache.DEFAULT_CAPACITY);
+        log("Cracked-hash cache: " + file.toAbsolutePath().normalize());
+    }
+    
+    /**
+     * Opens the digest tables of lengths 1 to {@link DigestTable#MAX_LENGTH}
+     * in a background thread, building the ones missing from the directory.
+     * Direct searches of a length are answered from its table once it is ready.
+     */
+    public void enableDigestTables(Path directory) {
+        Thread loader = new Thread(() -> {
+            for (int length = 1; length <= DigestTable.MAX_LENGTH; length++) {
+                long start = System.currentTimeMillis();
+                try {
+                    boolean exists = Files.exists(DigestTable.fileFor(directory, length));
+                    if (!exists) {
+                        log("Building digest table for length " + length + "...");
+                    }
+                    DigestTable table = DigestTable.openOrBuild(directory, length);
+                    digestTables.put(length, table);
+                    log(String.format("Digest table for length %d ready: %,d entries in %s (%d ms)", 
+                        length, table.getEntryCount(), table.getFile(), System.currentTimeMillis() - start));
+                } catch (IOException | RuntimeException e) {
+                    log("ERROR: digest table for length " + length + " unavailable: " + e.getMessage(), e);
+                }
+            }
+        }, serverName + "-DigestTables");
+        loader.setDaemon(true);
+        loader.start();
     }
     
     @Override
     public SearchResult searchPassword(String targetHash, int startCharIndex, 
                                       int endCharIndex, int numThreads, 
                                       int passwordLength) throws RemoteException {
-        
-        stopRequested.set(false);
-        long startTime = System.currentTimeMillis();
+        return searchPassword("direct-" + directSearchCount.incrementAndGet(), targetHash, 
+                              startCharIndex, endCharIndex, numThreads, passwordLength, 
+                              JobScheduler.DEFAULT_PRIORITY);
+    }
+    
+    @Override
+    public SearchResult searchPassword(String jobId, String targetHash, int startCharIndex, 
+                                      int endCharIndex, int numThreads, 
+                                      int passwordLength, int priority) throws RemoteException {
         
         log("New search request received:");
+        log("  Job ID: " + jobId);
         log("  Target Hash: " + targetHash);
         log("  Character Range: [" + startCharIndex + ", " + endCharIndex + ")");
-        log("  Number of Threads: " + numThreads);
+        log("  Number of Threads: " + (numThreads > 0 ? String.valueOf(numThreads) : "all workers"));
+        log("  Priority: " + priority);
         log("  Password Length: " + passwordLength);
         log("  Assigned Characters: " + getCharacterRange(startCharIndex, endCharIndex));
         
-        try {
-            // Validate inputs
-            if (!targetHash.matches("[0-9a-f]{32}")) {
-                log("ERROR: Invalid MD5 hash format");
-                throw new RemoteException("Invalid MD5 hash format");
+        validateJob(targetHash, passwordLength);
+        validatePriority(priority);
+        
+        if (startCharIndex >= 0 && startCharIndex < endCharIndex && endCharIndex <= ALLOWED.length) {
+            CrackedHashCache cache = crackedHashes;
+            long lookupStart = System.nanoTime();
+            String known = cache == null ? null : cache.lookup(targetHash);
+            if (known != null) {
+                return knownResult("cracked-hash cache", known, passwordLength, startCharIndex, endCharIndex,
+                                   (System.nanoTime() - lookupStart) / 1000);
             }
-            
-            if (passwordLength < 1 || passwordLength > 10) {
-                log("ERROR: Invalid password length: " + passwordLength);
-                throw new RemoteException("Password length must be between 1 and 10");
+            DigestTable table = digestTables.get(passwordLength);
+            if (table != null) {
+                return lookupSearch(table, targetHash, passwordLength, startCharIndex, endCharIndex);
             }
+        }
+        
+        // Prefix indices span every position but the last, so chunks are
+        // much finer than one first character
+        Keyspace keyspace;
+        SearchJob job;
+        try {
+            keyspace = Keyspace.bruteForce(ALLOWED, passwordLength, startCharIndex, endCharIndex);
+            TargetSet targets = new TargetSet(Collections.singletonList(targetHash));
+            job = new SearchJob(jobId, priority, targets, KeyspaceSequence.of(keyspace), 
+                                this::recordFound);
+        } catch (IllegalArgumentException e) {
+            log("ERROR: " + e.getMessage());
+            throw new RemoteException("Search failed: " + e.getMessage(), e);
+        }
+        startJob(job);
+        
+        try {
+            log("  Keyspace: " + keyspace.getPrefixCount() + " prefixes x " 
+                + keyspace.getLastPositionSize() + " last-position characters");
             
-            byte[] targetBytes = hexToBytes(targetHash);
-            
-            // Shared variables for coordination
-            AtomicBoolean found = new AtomicBoolean(false);
-            AtomicReference<String> foundPassword = new AtomicReference<>(null);
-            AtomicReference<String> foundByThread = new AtomicReference<>(null);
+            // Completed chunks are recorded so a restarted server skips them
+            ChunkCheckpoint checkpoint = openCheckpoint(
+                "search:" + passwordLength + ":" + startCharIndex + ":" + endCharIndex + ":" + targetHash,
+                keyspace.getPrefixCount());
+            job.setCheckpoint(checkpoint);
             
-            // Divide character range across threads
-            int rangeSize = endCharIndex - startCharIndex;
-            int baseChunk = rangeSize / numThreads;
-            int remainder = rangeSize % numThreads;
+            int threads = threadsFor(numThreads);
+            log("Searching on " + threads + " of " + scheduler.getWorkerCount() + " shared worker threads...");
             
-            Thread[] threads = new Thread[numThreads];
-            int cursor = startCharIndex;
+            try {
+                if (checkpoint == null) {
+                    runChunks(job, 0, keyspace.getPrefixCount(), threads);
+                } else {
+                    runPendingChunks(job, checkpoint, threads);
+                }
+            } finally {
+                // A stopped search keeps its checkpoint; a finished one has nothing to resume
+                closeCheckpoint(checkpoint, job.isFound() || !job.isStopped());
+            }
+            log("Workers finished job " + jobId + " at " + getTimestamp());
             
-            log("Creating " + numThreads + " worker threads...");
+            return finishSearch(job);
             
-            // Create and start worker threads
-            for (int t = 0; t < numThreads; t++) {
-                int threadStartIndex = cursor;
-                int chunk = baseChunk + (t < remainder ? 1 : 0);
-                int threadEndIndex = threadStartIndex + chunk;
-                cursor = threadEndIndex;
-                
-                final int threadNum = t + 1;
-                final String threadId = serverName + "-Thread-" + threadNum;
-                
-                log("  " + threadId + " assigned range: [" + threadStartIndex + 
-                    ", " + threadEndIndex + ") = " + getCharacterRange(threadStartIndex, threadEndIndex));
-                
-                Runnable worker = createWorker(
-                    targetBytes, found, foundPassword, foundByThread,
-                    threadStartIndex, threadEndIndex, passwordLength, threadId
-                );
-                
-                threads[t] = new Thread(worker, threadId);
-                threads[t].start();
-                log("  " + threadId + " started at " + getTimestamp());
+        } catch (Exception e) {
+            log("EXCEPTION: " + e.getMessage(), e);
+            throw new RemoteException("Search failed: " + e.getMessage(), e);
+        } finally {
+            endSearch(job);
+        }
+    }
+    
+    @Override
+    public SearchResult leaseSearch(ChunkCoordinator coordinator, int numThreads) 
+            throws RemoteException {
+        
+        JobSpec spec = coordinator.getJob();
+        
+        log("Joined leased search:");
+        log("  Job ID: " + spec.getJobId());
+        if (spec.getTargetCount() == 1) {
+            log("  Target Hash: " + spec.getTargetHash());
+        } else {
+            log("  Target Hashes: " + spec.getTargetCount());
+        }
+        log("  Number of Threads: " + (numThreads > 0 ? String.valueOf(numThreads) : "all workers"));
+        log("  Priority: " + spec.getPriority());
+        if (spec.getWordlist() != null) {
+            log("  Wordlist: " + spec.getWordlist() + " (" + spec.getWordlistSize() + " bytes)");
+        } else if (spec.getMask() != null) {
+            log("  Password Length: " + spec.getLengthRange());
+            log("  Mask: " + spec.getMask());
+        } else {
+            log("  Password Length: " + spec.getLengthRange());
+            validateLength(spec.getMinLength());
+            validateLength(spec.getPasswordLength());
+        }
+        validatePriority(spec.getPriority());
+        
+        // Every crack is streamed to the coordinator as soon as it happens,
+        // tagged with the lease that was being searched
+        AtomicReference<ChunkLease> currentLease = new AtomicReference<>();
+        SearchJob.FoundListener streamer = (searchJob, targetHash, password, threadName) -> {
+            SearchResult cracked = recordFound(searchJob, targetHash, password, threadName);
+            try {
+                coordinator.reportFound(serverName, currentLease.get(), cracked);
+            } catch (RemoteException e) {
+                log("ERROR reporting " + targetHash + " to coordinator: " + e.getMessage());
             }
-            
-            // Wait for all threads to complete
-            for (Thread thread : threads) {
-                try {
-                    thread.join();
-                    log("  " + thread.getName() + " stopped at " + getTimestamp());
-                } catch (InterruptedException e) {
-                    log("ERROR: Thread interrupted: " + e.getMessage());
-                    Thread.currentThread().interrupt();
-                }
+        };
+        
+        SearchJob job;
+        Wordlist wordlist = null;
+        try {
+            if (spec.getWordlist() != null) {
+                wordlist = openWordlist(spec);
+                WordRules rules = spec.createRules();
+                log("  Rules: " + rules.size() + " per word");
+                job = new SearchJob(spec.getJobId(), spec.getPriority(), spec.createTargetSet(), 
+                                    wordlist, rules, streamer);
+            } else {
+                job = new SearchJob(spec.getJobId(), spec.getPriority(), spec.createTargetSet(), 
+                                    spec.createKeyspaces(), streamer);
             }
+        } catch (IllegalArgumentException | IOException e) {
+            log("ERROR: " + e.getMessage());
+            closeWordlist(wordlist);
+            throw new RemoteException("Search failed: " + e.getMessage(), e);
+        }
+        try {
+            startJob(job);
+        } catch (RemoteException e) {
+            closeWordlist(wordlist);
+            throw e;
+        }
+        
+        try {
+            int threads = threadsFor(numThreads);
+            int leases = 0;
+            double prefixesPerSecond = 0;
             
-            long endTime = System.currentTimeMillis();
-            long searchTime = endTime - startTime;
+            // Push progress periodically; the reply tells which targets other servers already cracked
+            ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, serverName + "-Progress");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reporter.scheduleAtFixedRate(() -> pushProgress(coordinator, job), PROGRESS_INTERVAL_MS, 
+                                         PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
             
-            // Return result
-            if (found.get()) {
-                log("PASSWORD FOUND: '" + foundPassword.get() + "' by " + foundByThread.get());
-                log("Search completed in " + searchTime + " ms");
-                return new SearchResult(true, foundPassword.get(), foundByThread.get(), 
-                                      serverName, searchTime);
-            } else {
-                log("Password not found in assigned range");
-                log("Search completed in " + searchTime + " ms");
-                return new SearchResult(false);
+            try {
+                // Pull chunks until the coordinator runs dry, every target turns up, or a stop arrives
+                ChunkLease lease;
+                while (!job.isDone() 
+                       && (lease = coordinator.nextChunk(serverName, prefixesPerSecond)) != null) {
+                    if (lease.size() == 0) {
+                        // Other servers still hold leases this one may have to take over
+                        Thread.sleep(LEASE_RETRY_MS);
+                        continue;
+                    }
+                    currentLease.set(lease);
+                    long leaseStart = System.nanoTime();
+                    boolean covered = runChunks(job, lease.getStartPrefix(), lease.getEndPrefix(), threads);
+                    double seconds = Math.max((System.nanoTime() - leaseStart) / 1e9, 1e-6);
+                    leases++;
+                    
+                    // A stopped lease is incomplete and must not be reported as searched;
+                    // one with failed chunks goes back to the coordinator to be leased again
+                    if (job.isDone()) {
+                        break;
+                    } else if (!covered) {
+                        coordinator.releaseChunk(serverName, lease);
+                        log("  WARNING: " + lease + " not fully searched, released to be leased again");
+                    } else {
+                        prefixesPerSecond = lease.size() / seconds;
+                        coordinator.reportCompleted(serverName, lease);
+                        log(String.format("  %s searched in %.0f ms (%.0f prefixes/s)", 
+                            lease, seconds * 1000, prefixesPerSecond));
+                    }
+                }
+            } finally {
+                reporter.shutdownNow();
             }
+            log("Leased search finished after " + leases + " lease(s) at " + getTimestamp());
+            
+            return finishSearch(job);
             
         } catch (Exception e) {
-            log("EXCEPTION: " + e.getMessage());
-            e.printStackTrace(logWriter);
+            log("EXCEPTION: " + e.getMessage(), e);
             throw new RemoteException("Search failed: " + e.getMessage(), e);
+        } finally {
+            endSearch(job);
+            closeWordlist(wordlist);
         }
     }
     
+    @Override
+    public SearchProgress getProgress(int foundCursor) throws RemoteException {
+        SearchJob job = latestJob;
+        return job == null ? null : snapshot(job, foundCursor);
+    }
+    
+    @Override
+    public SearchProgress getProgress(String jobId, int foundCursor) throws RemoteException {
+        SearchJob job = activeJobs.get(jobId);
+        if (job == null) {
+            job = finishedJobs.get(jobId);
+        }
+        return job == null ? null : snapshot(job, foundCursor);
+    }
+    
+    @Override
+    public List<SearchMetrics> getMetrics() throws RemoteException {
+        List<SearchMetrics> metrics = new ArrayList<>();
+        for (SearchJob job : activeJobs.values()) {
+            metrics.add(metrics(job));
+        }
+        return metrics;
+    }
+    
+    @Override
+    public SearchMetrics getMetrics(String jobId) throws RemoteException {
+        SearchJob job = activeJobs.get(jobId);
+        if (job == null) {
+            job = finishedJobs.get(jobId);
+        }
+        return job == null ? null : metrics(job);
+    }
+    
+    @Override
+    public List<String> getActiveJobs() throws RemoteException {
+        return new ArrayList<>(activeJobs.keySet());
+    }
+    
     @Override
     public void stopSearch() throws RemoteException {
         log("Stop signal received from client");
-        stopRequested.set(true);
+        for (SearchJob job : activeJobs.values()) {
+            job.stop();
+        }
+    }
+    
+    @Override
+    public void stopSearch(String jobId) throws RemoteException {
+        SearchJob job = activeJobs.get(jobId);
+        if (job == null) {
+            log("Stop signal for job " + jobId + " ignored: not running");
+            return;
+        }
+        log("Stop signal received from client for job " + jobId);
+        job.stop();
+    }
+    
+    @Override
+    public int getBinaryPort() throws RemoteException {
+        BinaryTransportServer transport = binaryTransport;
+        return transport == null ? -1 : transport.getPort();
     }
     
     @Override
@@ -171,107 +508,459 @@ public class CrackerServer extends UnicastRemoteObject implements CrackerInterfa
     }
     
     /**
-     * Creates a worker runnable that searches a specific character range.
+     * Publishes a job to progress polling and job-scoped stop requests.
+     * A job ID can only run once at a time on a server.
+     */
+    private void startJob(SearchJob job) throws RemoteException {
+        if (activeJobs.putIfAbsent(job.getJobId(), job) != null) {
+            log("ERROR: Job " + job.getJobId() + " is already running");
+            throw new RemoteException("Job " + job.getJobId() + " is already running on " + serverName);
+        }
+        latestJob = job;
+    }
+    
+    /**
+     * Marks a search as finished and moves it to the recently finished jobs.
+     */
+    private void endSearch(SearchJob job) {
+        job.finish();
+        activeJobs.remove(job.getJobId());
+        finishedJobs.put(job.getJobId(), job);
+    }
+    
+    /**
+     * Logs a cracked target and appends it to the job's results returned by {@link #getProgress(int)}.
+     */
+    private SearchResult recordFound(SearchJob job, String targetHash, String password, String threadName) {
+        log("CRACKED " + targetHash + ": '" + password + "' (length " + password.length() + ") by " + threadName);
+        rememberCracked(targetHash, password);
+        SearchResult cracked = new SearchResult(true, password, threadName, serverName,
+                                                System.currentTimeMillis() - job.getStartTime(),
+                                                0, 0, 0, targetHash);
+        job.addFoundResult(cracked);
+        return cracked;
+    }
+    
+    /**
+     * Builds a progress snapshot including the results found after {@code foundCursor}.
      */
-    private Runnable createWorker(byte[] targetBytes,
-                                  AtomicBoolean found,
-                                  AtomicReference<String> foundPassword,
-                                  AtomicReference<String> foundByThread,
-                                  int startIndex,
-                                  int endIndex,
-                                  int length,
-                                  String threadId) {
+    private SearchProgress snapshot(SearchJob job, int foundCursor) {
+        List<SearchResult> found = job.getFoundResults();
+        int from = Math.max(0, Math.min(foundCursor, found.size()));
+        return new SearchProgress(serverName, job.getJobId(), job.isRunning(), job.getElapsedMs(),
+                                  job.getCandidatesTested(), job.getCurrentPrefix(), found.size(),
+                                  new ArrayList<>(found.subList(from, found.size())), found.size());
+    }
+    
+    /**
+     * Builds a metrics snapshot of a job from its live counters.
+     */
+    private SearchMetrics metrics(SearchJob job) {
+        return new SearchMetrics(serverName, job.getJobId(), job.isRunning(), job.getElapsedMs(),
+                                 job.getCandidatesTested(), job.getScheduledPrefixes(),
+                                 job.getCompletedPrefixes(), job.getPrefixRate(),
+                                 job.getThreadCandidates(), job.getThreadRates());
+    }
+    
+    /**
+     * Sends a progress snapshot to the coordinator and stops searching for
+     * targets that other servers have cracked in the meantime.
+     */
+    private void pushProgress(ChunkCoordinator coordinator, SearchJob job) {
+        try {
+            // Cracked results already went out through reportFound
+            List<String> cracked = coordinator.reportProgress(serverName, snapshot(job, Integer.MAX_VALUE));
+            for (String hash : cracked) {
+                job.markCrackedElsewhere(hash);
+            }
+        } catch (RemoteException e) {
+            log("ERROR reporting progress to coordinator: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Rejects malformed hashes and unsupported lengths.
+     */
+    private void validateJob(String targetHash, int passwordLength) throws RemoteException {
+        if (!targetHash.matches("[0-9a-f]{32}")) {
+            log("ERROR: Invalid MD5 hash format");
+            throw new RemoteException("Invalid MD5 hash format");
+        }
+        validateLength(passwordLength);
+    }
+    
+    /**
+     * Rejects unsupported lengths.
+     */
+    private void validateLength(int passwordLength) throws RemoteException {
+        if (passwordLength < 1 || passwordLength > 10) {
+            log("ERROR: Invalid password length: " + passwordLength);
+            throw new RemoteException("Password length must be between 1 and 10");
+        }
+    }
+    
+    /**
+     * Rejects priorities outside the scheduler's range.
+     */
+    private void validatePriority(int priority) throws RemoteException {
+        if (priority < JobScheduler.MIN_PRIORITY || priority > JobScheduler.MAX_PRIORITY) {
+            log("ERROR: Invalid priority: " + priority);
+            throw new RemoteException("Priority must be between " + JobScheduler.MIN_PRIORITY 
+                                      + " and " + JobScheduler.MAX_PRIORITY);
+        }
+    }
+    
+    /**
+     * Resolves the thread count a request asked for: 0 or less means every
+     * worker of the shared pool, and larger counts are capped at its size.
+     */
+    private int threadsFor(int numThreads) {
+        return numThreads <= 0 ? scheduler.getWorkerCount() 
+                               : Math.min(numThreads, scheduler.getWorkerCount());
+    }
+    
+    /**
+     * Searches prefixes [startPrefix, endPrefix) on the shared workers and
+     * returns when every chunk has finished.
+     * 
+     * @return true if every chunk was searched to its end
+     */
+    private boolean runChunks(SearchJob job, long startPrefix, long endPrefix, int numThreads) 
+            throws InterruptedException {
+        return endPrefix - startPrefix == runRanges(job, Collections.singletonList(new JobScheduler.Range(startPrefix, endPrefix)),
+                  endPrefix - startPrefix, numThreads);
+    }
+    
+    /**
+     * Searches every prefix whose checkpoint block is not done yet; each run
+     * of pending blocks becomes one range of the job's batch.
+     */
+    private void runPendingChunks(SearchJob job, ChunkCheckpoint checkpoint, int numThreads) 
+            throws InterruptedException {
+        long prefixCount = checkpoint.getPrefixCount();
+        List<JobScheduler.Range> ranges = new ArrayList<>();
+        long start = checkpoint.firstPending(0, prefixCount);
+        while (start < prefixCount) {
+            long end = checkpoint.pendingRunEnd(start, prefixCount);
+            ranges.add(new JobScheduler.Range(start, end));
+            start = checkpoint.firstPending(end, prefixCount);
+        }
+        runRanges(job, ranges, prefixCount - checkpoint.getSearchedPrefixes(), numThreads);
+    }
+    
+    /**
+     * Hands ranges totalling {@code prefixes} prefixes to the scheduler, cut
+     * into chunks small enough that every thread gets several of them.
+     * 
+     * @return the number of prefixes in chunks that were searched to their end
+     */
+    private long runRanges(SearchJob job, List<JobScheduler.Range> ranges, long prefixes, int numThreads)
+            throws InterruptedException {
+        long maxChunk = job.getWordlist() != null ? MAX_CHUNK_BYTES : MAX_CHUNK_PREFIXES;
+        long chunkSize = Math.max(1, Math.min(maxChunk, 
+                                              prefixes / ((long) numThreads * CHUNKS_PER_THREAD)));
+        job.addScheduledPrefixes(prefixes);
+        AtomicLong completed = new AtomicLong();
+        scheduler.execute(job, numThreads, chunkSize, ranges, (startPrefix, endPrefix) -> {
+            if (searchChunk(job, startPrefix, endPrefix)) {
+                job.chunkCompleted(startPrefix, endPrefix);
+                completed.addAndGet(endPrefix - startPrefix);
+            }
+        });
+        return completed.get();
+    }
+    
+    /**
+     * Opens the checkpoint of a search, or returns null if checkpointing is
+     * disabled or the file cannot be used; the search then runs without one.
+     */
+    private ChunkCheckpoint openCheckpoint(String jobKey, long prefixCount) {
+        if (checkpointDir == null) {
+            return null;
+        }
+        try {
+            ChunkCheckpoint checkpoint = ChunkCheckpoint.open(checkpointDir, jobKey, prefixCount);
+            if (checkpoint.getDoneBlocks() > 0) {
+                log(String.format("  Resuming from checkpoint %s: %d of %d blocks (%.1f%%) already searched",
+                    checkpoint.getFile(), checkpoint.getDoneBlocks(), checkpoint.getBlockCount(),
+                    100.0 * checkpoint.getSearchedPrefixes() / prefixCount));
+            } else {
+                log("  Checkpoint: " + checkpoint.getFile());
+            }
+            return checkpoint;
+        } catch (IOException e) {
+            log("WARNING: Cannot open checkpoint, searching without one: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Closes a checkpoint, deleting it when the search needs no resuming.
+     */
+    private void closeCheckpoint(ChunkCheckpoint checkpoint, boolean finished) {
+        if (checkpoint == null) {
+            return;
+        }
+        try {
+            if (finished) {
+                checkpoint.delete();
+            } else {
+                checkpoint.close();
+                log("Checkpoint kept for resuming: " + checkpoint.getFile());
+            }
+        } catch (IOException e) {
+            log("WARNING: Cannot close checkpoint: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Builds the result of a search from the job's shared state.
+     */
+    private SearchResult buildResult(SearchJob job, long searchTime) {
+        return new SearchResult(job.isFound(), job.getFoundPassword(), 
+                                job.getFoundByThread(), serverName, searchTime,
+                                job.getCandidatesTested(), job.getEarlyExits(), 
+                                job.getStepsSaved());
+    }
+    
+    /**
+     * Logs the outcome and engine statistics of a finished search.
+     */
+    private SearchResult finishSearch(SearchJob job) {
+        long searchTime = System.currentTimeMillis() - job.getStartTime();
+        SearchResult result = buildResult(job, searchTime);
         
-        return () -> {
-            byte[] candidateBytes = new byte[length];
-            
-            try {
-                // For length 1, iterate through assigned characters
-                if (length == 1) {
-                    for (int i = startIndex; i < endIndex && !found.get() && !stopRequested.get(); i++) {
-                        candidateBytes[0] = (byte) ALLOWED[i];
-                        
-                        if (md5Match(candidateBytes, 0, 1, targetBytes)) {
-                            String candidate = String.valueOf(ALLOWED[i]);
-                            if (found.compareAndSet(false, true)) {
-                                foundPassword.set(candidate);
-                                foundByThread.set(threadId);
-                            }
-                            return;
-                        }
+        if (job.isFound()) {
+            log("PASSWORD FOUND: '" + job.getFoundPassword() + "' by " + job.getFoundByThread());
+        } else {
+            log("Password not found in assigned range");
+        }
+        log("Search completed in " + searchTime + " ms");
+        log(String.format("Engine %s: %d candidates, %.2f%% early exits, %d MD5 steps saved",
+            engine.getOptionName(), result.getCandidatesTested(), 
+            result.getEarlyExitRate() * 100, result.getStepsSaved()));
+        Map<String, Long> threadCandidates = job.getThreadCandidates();
+        if (threadCandidates.size() > 1) {
+            long min = Collections.min(threadCandidates.values());
+            long max = Collections.max(threadCandidates.values());
+            double mean = (double) result.getCandidatesTested() / threadCandidates.size();
+            log(String.format("Per-thread candidates: %s (skew %.2f)", threadCandidates, 
+                mean == 0 ? 0.0 : (max - min) / mean));
+        }
+        return result;
+    }
+    
+    /**
+     * Answers a direct search from a digest table. The table covers every
+     * password of the length, so a miss, or a hit whose first character lies
+     * outside the assigned range, means the range holds no match.
+     */
+    private SearchResult lookupSearch(DigestTable table, String targetHash, int passwordLength,
+                                      int startCharIndex, int endCharIndex) {
+        long start = System.nanoTime();
+        String password = table.lookup(hexToBytes(targetHash));
+        long micros = (System.nanoTime() - start) / 1000;
+        if (password != null) {
+            rememberCracked(targetHash, password);
+        }
+        return knownResult("digest table", password, passwordLength, startCharIndex, endCharIndex, micros);
+    }
+    
+    /**
+     * Builds the result of a direct search whose answer is already known: the
+     * password counts as found only if it lies in the requested keyspace.
+     * 
+     * @param password the hash's password, or null if it has none of this length
+     */
+    private SearchResult knownResult(String source, String password, int passwordLength,
+                                     int startCharIndex, int endCharIndex, long micros) {
+        boolean found = password != null && password.length() == passwordLength
+                        && password.charAt(0) >= ALLOWED[startCharIndex]
+                        && password.charAt(0) <= ALLOWED[endCharIndex - 1];
+        log("Answered from " + source + " in " + micros + " us");
+        if (found) {
+            log("PASSWORD FOUND: '" + password + "' in " + source);
+        } else {
+            log("Password not found in assigned range");
+        }
+        return new SearchResult(found, found ? password : null, found ? source : null, 
+                                serverName, micros / 1000);
+    }
+    
+    /**
+     * Adds a cracked hash to the cracked-hash cache, if there is one.
+     */
+    private void rememberCracked(String targetHash, String password) {
+        CrackedHashCache cache = crackedHashes;
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.put(targetHash, password);
+        } catch (IOException e) {
+            log("ERROR writing cracked-hash cache: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Opens the wordlist of a dictionary job and checks that it is the same
+     * file the coordinator split into byte ranges.
+     */
+    private Wordlist openWordlist(JobSpec spec) throws IOException {
+        Path file = wordlistDir.resolve(spec.getWordlist());
+        Wordlist wordlist = new Wordlist(file);
+        if (wordlist.getSize() != spec.getWordlistSize()) {
+            wordlist.close();
+            throw new IOException("Wordlist " + file + " has " + wordlist.getSize() 
+                                  + " bytes, the job expects " + spec.getWordlistSize());
+        }
+        log("  Mapped " + file.toAbsolutePath().normalize());
+        return wordlist;
+    }
+    
+    private void closeWordlist(Wordlist wordlist) {
+        if (wordlist == null) {
+            return;
+        }
+        try {
+            wordlist.close();
+        } catch (IOException e) {
+            log("ERROR closing wordlist: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Searches one chunk of global prefix indices on the calling worker thread.
+     * A chunk of a length-range job may span the end of one length and the
+     * start of the next; each length is searched with its own kernel.
+     * 
+     * @return true if every prefix of the chunk was searched
+     */
+    private boolean searchChunk(SearchJob job, long startPrefix, long endPrefix) {
+        if (job.getWordlist() != null) {
+            return searchWords(job, startPrefix, endPrefix);
+        }
+        KeyspaceSequence keyspaces = job.getKeyspaces();
+        for (int segment = keyspaces.segmentOf(startPrefix); 
+             segment < keyspaces.getSegmentCount() && keyspaces.getOffset(segment) < endPrefix; 
+             segment++) {
+            long offset = keyspaces.getOffset(segment);
+            long start = Math.max(startPrefix, offset) - offset;
+            long end = Math.min(endPrefix, keyspaces.getEnd(segment)) - offset;
+            if (!searchSegment(job, keyspaces.getSegment(segment), offset, start, end)) {
+                return false;
+            }
+        }
+        return !job.isDone();
+    }
+    
+    /**
+     * Searches prefixes [startPrefix, endPrefix) of one keyspace of the job.
+     * The enumerator sweeps the last position against a prepared prefix, so
+     * the kernel's per-prefix state is only computed once per sweep.
+     * 
+     * @param offset global prefix index of the keyspace's first prefix
+     * @return true if every prefix was searched
+     */
+    private boolean searchSegment(SearchJob job, Keyspace keyspace, long offset, 
+                                  long startPrefix, long endPrefix) {
+        String threadId = Thread.currentThread().getName();
+        TargetSet targets = job.getTargets();
+        HashKernel kernel = engine.newKernel(targets, keyspace.getLength());
+        CandidateEnumerator enumerator = new CandidateEnumerator(kernel, keyspace, 
+                                                                 startPrefix, endPrefix);
+        SearchJob.Meter meter = job.meter(threadId);
+        job.setCurrentPrefix(offset + startPrefix);
+        try {
+            // The cancellation token is polled, and the candidate count
+            // published, every few prefixes rather than per candidate
+            int untilCheck = CANCEL_CHECK_PREFIXES;
+            while (enumerator.nextPrefix()) {
+                if (--untilCheck == 0) {
+                    meter.update(kernel.getCandidates());
+                    if (job.isDone()) {
+                        return false;
                     }
-                    return;
+                    untilCheck = CANCEL_CHECK_PREFIXES;
                 }
-                
-                // For length > 1, iterate through all combinations
-                // First character comes from assigned range, rest from full character set
-                for (int firstCharIdx = startIndex; firstCharIdx < endIndex && 
-                     !found.get() && !stopRequested.get(); firstCharIdx++) {
-                    
-                    // Generate all combinations for remaining positions
-                    int[] indices = new int[length - 1];
-                    boolean finished = false;
-                    
-                    while (!finished && !found.get() && !stopRequested.get()) {
-                        // Build candidate password
-                        candidateBytes[0] = (byte) ALLOWED[firstCharIdx];
-                        for (int i = 0; i < length - 1; i++) {
-                            candidateBytes[i + 1] = (byte) ALLOWED[indices[i]];
-                        }
-                        
-                        // Check if matches
-                        if (md5Match(candidateBytes, 0, length, targetBytes)) {
-                            char[] chars = new char[length];
-                            chars[0] = ALLOWED[firstCharIdx];
-                            for (int i = 0; i < length - 1; i++) {
-                                chars[i + 1] = ALLOWED[indices[i]];
-                            }
-                            
-                            String candidate = new String(chars);
-                            
-                            if (found.compareAndSet(false, true)) {
-                                foundPassword.set(candidate);
-                                foundByThread.set(threadId);
-                            }
-                            return;
-                        }
-                        
-                        // Increment indices (odometer style)
-                        for (int pos = length - 2; pos >= 0; pos--) {
-                            indices[pos]++;
-                            if (indices[pos] >= ALLOWED.length) {
-                                indices[pos] = 0;
-                                if (pos == 0) {
-                                    finished = true;
-                                }
-                            } else {
-                                break;
-                            }
-                        }
+                // Resume the sweep after each match; another target may share the prefix
+                int lastIdx = -1;
+                while ((lastIdx = enumerator.sweepLastPosition(lastIdx + 1)) >= 0) {
+                    String password = enumerator.candidate(lastIdx);
+                    int target = targets.size() == 1 ? 0 : targets.indexOf(md5(password));
+                    job.reportFound(target, password, threadId);
+                    if (job.isDone()) {
+                        return false;
                     }
                 }
-            } catch (Exception e) {
-                log("ERROR in " + threadId + ": " + e.getMessage());
-                e.printStackTrace(logWriter);
             }
-        };
+            return !job.isDone();
+        } catch (Exception e) {
+            log("ERROR in " + threadId + ": " + e.getMessage(), e);
+            return false;
+        } finally {
+            meter.update(kernel.getCandidates());
+            job.addStats(kernel);
+        }
     }
     
     /**
-     * Computes MD5 hash and compares with target.
+     * Searches the words starting in bytes [startOffset, endOffset) of a
+     * dictionary job's wordlist, each under every rule.
+     * 
+     * @return true if every word of the chunk was searched
      */
-    private static boolean md5Match(byte[] input, int offset, int length, byte[] target) {
-        MessageDigest md = MD5_DIGEST.get();
-        md.reset();
-        md.update(input, offset, length);
-        byte[] digest = md.digest();
-        return Arrays.equals(digest, target);
+    private boolean searchWords(SearchJob job, long startOffset, long endOffset) {
+        String threadId = Thread.currentThread().getName();
+        TargetSet targets = job.getTargets();
+        // Every candidate has its own prefix, so the per-prefix work of target
+        // reversal and the vector lanes would not pay off; hash forward instead
+        WordlistEnumerator enumerator = new WordlistEnumerator(job.getWordlist(), job.getRules(),
+            length -> SearchEngine.STANDARD.newKernel(targets, length), startOffset, endOffset);
+        SearchJob.Meter meter = job.meter(threadId);
+        job.setCurrentPrefix(startOffset);
+        try {
+            int untilCheck = CANCEL_CHECK_WORDS;
+            while (enumerator.nextWord()) {
+                if (--untilCheck == 0) {
+                    meter.update(enumerator.getCandidates());
+                    if (job.isDone()) {
+                        return false;
+                    }
+                    untilCheck = CANCEL_CHECK_WORDS;
+                }
+                while (enumerator.nextMatch()) {
+                    String password = enumerator.candidate();
+                    int target = targets.size() == 1 ? 0 : targets.indexOf(md5(password));
+                    job.reportFound(target, password, threadId);
+                    if (job.isDone()) {
+                        return false;
+                    }
+                }
+            }
+            return !job.isDone();
+        } catch (Exception e) {
+            log("ERROR in " + threadId + ": " + e.getMessage(), e);
+            return false;
+        } finally {
+            meter.update(enumerator.getCandidates());
+            for (HashKernel kernel : enumerator.getKernels()) {
+                job.addStats(kernel);
+            }
+        }
+    }
+    
+    /**
+     * Hashes a matched candidate again to tell which target it cracked.
+     */
+    private static byte[] md5(String password) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("MD5").digest(password.getBytes(StandardCharsets.ISO_8859_1));
     }
     
     /**
      * Converts hex string to byte array.
      */
-    private static byte[] hexToBytes(String hex) {
+    static byte[] hexToBytes(String hex) {
         byte[] bytes = new byte[16];
         for (int i = 0; i < 16; i++) {
             bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
@@ -296,33 +985,51 @@ public class CrackerServer extends UnicastRemoteObject implements CrackerInterfa
     }
     
     /**
-     * Logs a message with timestamp.
+     * Logs a message with timestamp. The record is handed to the background
+     * log writer, so the calling RMI or worker thread never waits for I/O.
      */
     private void log(String message) {
-        String logMessage = "[" + getTimestamp() + "] " + message;
-        logWriter.println(logMessage);
-        System.out.println(logMessage);
+        logger.log(message);
+    }
+    
+    /**
+     * Logs a message and writes the error's stack trace to the log file.
+     */
+    private void log(String message, Throwable error) {
+        logger.log(message, error);
     }
     
     /**
      * Returns current timestamp as formatted string.
      */
     private String getTimestamp() {
-        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date());
+        return AsyncLog.formatTimestamp(System.currentTimeMillis());
     }
     
     /**
      * Main method to start the server.
      */
     public static void main(String[] args) {
-        if (args.length != 2) {
-            System.err.println("Usage: java CrackerServer <server-name> <port>");
+        if (args.length < 2) {
+            System.err.println("Usage: java CrackerServer <server-name> <port> [--engine=<name>] "
+                               + "[--checkpoint-dir=<dir>|--no-checkpoint] [--workers=<n>] [--no-numa] "
+                               + "[--wordlist-dir=<dir>] [--digest-tables=<dir>] "
+                               + "[--cache=<file>|--no-cache] [--binary-port=<port>|--no-binary]");
+            System.err.println("Engines: standard, target-reversal (default), vector");
             System.err.println("Example: java CrackerServer Server1 1099");
             System.exit(1);
         }
         
         String serverName = args[0];
         int port;
+        SearchEngine engine = SearchEngine.TARGET_REVERSAL;
+        Path checkpointDir = Paths.get(DEFAULT_CHECKPOINT_DIR);
+        int workerCount = 0;
+        boolean numa = true;
+        Path wordlistDir = Paths.get(".");
+        Path digestTableDir = null;
+        Path cacheFile = Paths.get(serverName.toLowerCase().replace(" ", "_") + "_cracked.log");
+        int binaryPort = 0;
         
         try {
             port = Integer.parseInt(args[1]);
@@ -332,6 +1039,46 @@ public class CrackerServer extends UnicastRemoteObject implements CrackerInterfa
             return;
         }
         
+        for (int i = 2; i < args.length; i++) {
+            try {
+                if (args[i].startsWith("--engine=")) {
+                    engine = SearchEngine.fromOptionName(args[i].substring("--engine=".length()));
+                } else if (args[i].startsWith("--checkpoint-dir=")) {
+                    checkpointDir = Paths.get(args[i].substring("--checkpoint-dir=".length()));
+                } else if (args[i].equals("--no-checkpoint")) {
+                    checkpointDir = null;
+                } else if (args[i].startsWith("--cache=")) {
+                    cacheFile = Paths.get(args[i].substring("--cache=".length()));
+                } else if (args[i].equals("--no-cache")) {
+                    cacheFile = null;
+                } else if (args[i].startsWith("--binary-port=")) {
+                    binaryPort = Integer.parseInt(args[i].substring("--binary-port=".length()));
+                    if (binaryPort < 0 || binaryPort > 65535) {
+                        throw new IllegalArgumentException("Binary port must be between 0 and 65535");
+                    }
+                } else if (args[i].equals("--no-binary")) {
+                    binaryPort = -1;
+                } else if (args[i].startsWith("--digest-tables=")) {
+                    digestTableDir = Paths.get(args[i].substring("--digest-tables=".length()));
+                } else if (args[i].startsWith("--wordlist-dir=")) {
+                    wordlistDir = Paths.get(args[i].substring("--wordlist-dir=".length()));
+                } else if (args[i].startsWith("--workers=")) {
+                    workerCount = Integer.parseInt(args[i].substring("--workers=".length()));
+                    if (workerCount < 1) {
+                        throw new IllegalArgumentException("Worker count must be at least 1");
+                    }
+                } else if (args[i].equals("--no-numa")) {
+                    numa = false;
+                } else {
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error: " + e.getMessage());
+                System.exit(1);
+                return;
+            }
+        }
+        
         try {
             // Create RMI registry on specified port
             Registry registry;
@@ -345,7 +1092,21 @@ public class CrackerServer extends UnicastRemoteObject implements CrackerInterfa
             }
             
             // Create and bind server
-            CrackerServer server = new CrackerServer(serverName);
+            CpuTopology topology = CpuTopology.detect();
+            if (!numa) {
+                topology = CpuTopology.uniform(topology.getCpuCount());
+            }
+            CrackerServer server = new CrackerServer(serverName, engine, checkpointDir, workerCount, topology);
+            server.setWordlistDir(wordlistDir);
+            if (cacheFile != null) {
+                server.enableCrackedHashCache(cacheFile);
+            }
+            if (digestTableDir != null) {
+                server.enableDigestTables(digestTableDir);
+            }
+            if (binaryPort >= 0) {
+                System.out.println("Binary transport listening on port " + server.enableBinaryTransport(binaryPort));
+            }
             registry.rebind(serverName, server);
             
             System.out.println("Server '" + serverName + "' is ready and bound to registry");
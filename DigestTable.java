@@ -0,0 +1,287 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Precomputed, memory-mapped table of the MD5 digests of every printable
+ * ASCII password of one short length.
+ *
+ * Every candidate of the length has one 8-byte entry: the first digest word
+ * in the high half and the candidate index in the low half. Entries are
+ * sorted by digest word, so a lookup is a binary search over the mapping
+ * followed by one MD5 to confirm each entry whose first word matches. Length
+ * 4 has 95^4 = 81,450,625 entries (652 MB); longer lengths would not fit in
+ * the 32-bit index or on an ordinary disk.
+ *
+ * A table is built once: a first pass counts the candidates per bucket of
+ * the top 16 digest bits, a second pass writes every entry into its bucket
+ * in the mapped file, and each bucket is then sorted on its own, so the heap
+ * only ever holds one bucket. The file is written under a temporary name and
+ * renamed when complete, so an interrupted build is never opened.
+ *
+ * <pre>
+ * offset  0: magic         (long)
+ * offset  8: length        (int)
+ * offset 12: alphabet size (int)
+ * offset 16: entry count   (long)
+ * offset 24: reserved      (long)
+ * offset 32: entries, (digest word ^ 0x80000000) &lt;&lt; 32 | index (long each)
+ * </pre>
+ */
+public final class DigestTable implements Closeable {
+
+    /** Longest password length a table can be built for. */
+    public static final int MAX_LENGTH = 4;
+
+    private static final long MAGIC = 0x4d443554424c3031L; // "MD5TBL01"
+    private static final int HEADER_BYTES = 32;
+    private static final int BUCKET_BITS = 16;
+    private static final int ALPHABET_SIZE = Keyspace.PRINTABLE_COUNT;
+    private static final int FIRST_CHAR = 32;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final LongBuffer entries;
+    private final int length;
+    private final long entryCount;
+
+    private DigestTable(Path file, FileChannel channel, LongBuffer entries, int length, long entryCount) {
+        this.file = file;
+        this.channel = channel;
+        this.entries = entries;
+        this.length = length;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Returns the file holding the table of one length.
+     */
+    public static Path fileFor(Path directory, int length) {
+        return directory.resolve("md5-printable-" + length + ".tbl");
+    }
+
+    /**
+     * Opens the table of one length, building it first if the file is
+     * missing or does not hold a valid table.
+     *
+     * @throws IOException if the table cannot be built or mapped
+     */
+    public static DigestTable openOrBuild(Path directory, int length) throws IOException {
+        Path file = fileFor(directory, length);
+        if (Files.exists(file)) {
+            try {
+                return open(file, length);
+            } catch (IOException e) {
+                // Rebuilt below
+            }
+        }
+        build(directory, length);
+        return open(file, length);
+    }
+
+    /**
+     * Maps an existing table file.
+     *
+     * @throws IOException if the file cannot be read or is not a complete table of the length
+     */
+    public static DigestTable open(Path file, int length) throws IOException {
+        long expected = entryCount(length);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() != HEADER_BYTES + 8 * expected) {
+                throw new IOException("Digest table " + file + " has the wrong size");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getLong(0) != MAGIC || buffer.getInt(8) != length
+                    || buffer.getInt(12) != ALPHABET_SIZE || buffer.getLong(16) != expected) {
+                throw new IOException("Digest table " + file + " has an invalid header");
+            }
+            buffer.position(HEADER_BYTES);
+            LongBuffer entries = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            return new DigestTable(file, channel, entries, length, expected);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the table of one length.
+     *
+     * @throws IllegalArgumentException if the length is not between 1 and {@link #MAX_LENGTH}
+     * @throws IOException if the file cannot be written
+     */
+    public static void build(Path directory, int length) throws IOException {
+        long count = entryCount(length);
+        Files.createDirectories(directory);
+        Path file = fileFor(directory, length);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        // Pass 1: bucket sizes
+        int[] block = paddedBlock(length);
+        int[] bucketStarts = new int[(1 << BUCKET_BITS) + 1];
+        for (int index = 0; index < count; index++) {
+            int word = Md5Kernel.firstDigestWord(setCandidate(block, length, index));
+            bucketStarts[(word >>> (32 - BUCKET_BITS)) + 1]++;
+        }
+        for (int bucket = 0; bucket < 1 << BUCKET_BITS; bucket++) {
+            bucketStarts[bucket + 1] += bucketStarts[bucket];
+        }
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + 8 * count);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.position(HEADER_BYTES);
+            LongBuffer entries = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+
+            // Pass 2: every entry into its bucket
+            int[] cursors = Arrays.copyOf(bucketStarts, 1 << BUCKET_BITS);
+            for (int index = 0; index < count; index++) {
+                // Flipping the sign bit makes signed entry order the unsigned order of the word
+                int word = Md5Kernel.firstDigestWord(setCandidate(block, length, index));
+                entries.put(cursors[word >>> (32 - BUCKET_BITS)]++, (long) (word ^ Integer.MIN_VALUE) << 32 | index);
+            }
+
+            // Pass 3: sort bucket by bucket
+            long[] bucketEntries = new long[0];
+            for (int bucket = 0; bucket < 1 << BUCKET_BITS; bucket++) {
+                int start = bucketStarts[bucket];
+                int size = bucketStarts[bucket + 1] - start;
+                if (bucketEntries.length < size) {
+                    bucketEntries = new long[size];
+                }
+                entries.get(start, bucketEntries, 0, size);
+                Arrays.sort(bucketEntries, 0, size);
+                entries.put(start, bucketEntries, 0, size);
+            }
+
+            // The header goes in last, so only a complete table is valid
+            buffer.putInt(8, length);
+            buffer.putInt(12, ALPHABET_SIZE);
+            buffer.putLong(16, count);
+            buffer.putLong(24, 0L);
+            buffer.putLong(0, MAGIC);
+            buffer.force();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Looks up the password of a digest.
+     *
+     * @param digest 16-byte MD5 digest
+     * @return the printable password of this table's length, or null if none has the digest
+     */
+    public String lookup(byte[] digest) {
+        long key = Md5Kernel.wordAt(digest, 0) ^ Integer.MIN_VALUE;
+        long first = key << 32;
+
+        // Lower bound of the first entry with the key
+        long low = 0;
+        long high = entryCount;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (entries.get((int) middle) < first) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        // Entries sharing the first word are confirmed with the full digest
+        for (long i = low; i < entryCount; i++) {
+            long entry = entries.get((int) i);
+            if (entry >> 32 != key) {
+                break;
+            }
+            String candidate = candidate((int) entry);
+            if (Arrays.equals(md5(candidate), digest)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mapping stays valid until it is garbage collected
+        channel.close();
+    }
+
+    private static long entryCount(int length) {
+        if (length < 1 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Digest tables cover lengths 1 to " + MAX_LENGTH);
+        }
+        long count = 1;
+        for (int i = 0; i < length; i++) {
+            count *= ALPHABET_SIZE;
+        }
+        return count;
+    }
+
+    /**
+     * Returns a message block with the padding and bit length of the given length.
+     */
+    private static int[] paddedBlock(int length) {
+        int[] block = new int[16];
+        block[length >>> 2] = 0x80 << ((length & 3) << 3);
+        block[14] = length << 3;
+        return block;
+    }
+
+    /**
+     * Writes the candidate with the given index into word 0 of a padded
+     * block; the first character is the most significant digit.
+     */
+    private static int[] setCandidate(int[] block, int length, int index) {
+        int word = length < 4 ? 0x80 << (length << 3) : 0;
+        for (int pos = length - 1; pos >= 0; pos--) {
+            word |= (FIRST_CHAR + index % ALPHABET_SIZE) << (pos << 3);
+            index /= ALPHABET_SIZE;
+        }
+        block[0] = word;
+        return block;
+    }
+
+    private String candidate(int index) {
+        char[] chars = new char[length];
+        for (int pos = length - 1; pos >= 0; pos--) {
+            chars[pos] = (char) (FIRST_CHAR + index % ALPHABET_SIZE);
+            index /= ALPHABET_SIZE;
+        }
+        return new String(chars);
+    }
+
+    private static byte[] md5(String candidate) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(candidate.getBytes(StandardCharsets.ISO_8859_1));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
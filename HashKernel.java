@@ -0,0 +1,48 @@
+/**
+ * Candidate hashing kernel driven by {@link CandidateEnumerator}.
+ *
+ * The enumerator writes prefix bytes, calls {@link #prepare()} once per
+ * prefix and lets the kernel sweep the last position. Implementations are
+ * free to test the swept characters one at a time or several in lock-step.
+ * Instances are not thread-safe; each worker thread owns one per job.
+ */
+public interface HashKernel {
+
+    /**
+     * Returns the candidate length this kernel was prepared for.
+     */
+    int getLength();
+
+    /**
+     * Writes one candidate byte into the message schedule.
+     */
+    void setByte(int position, int value);
+
+    /**
+     * Recomputes the per-prefix state after a prefix byte changed.
+     */
+    void prepare();
+
+    /**
+     * Tests the current prefix followed by each character of
+     * {@code alphabet[from, to)} in the last position.
+     *
+     * @return alphabet index of the matching last character, or -1
+     */
+    int sweepLastPosition(char[] alphabet, int from, int to);
+
+    /**
+     * Returns the number of candidates tested by this kernel.
+     */
+    long getCandidates();
+
+    /**
+     * Returns the number of candidates rejected at the early check step.
+     */
+    long getEarlyExits();
+
+    /**
+     * Returns the number of MD5 steps skipped compared to full 64-step hashes.
+     */
+    long getStepsSaved();
+}
@@ -0,0 +1,393 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Server-wide pool of worker threads shared by every running search job.
+ *
+ * The workers are started once with the server, so a request never pays for
+ * creating threads. A job hands the scheduler a batch of prefix ranges; idle
+ * workers cut the next chunk off the front of the batch they pick, search it,
+ * and come back for more, so faster workers simply take more chunks.
+ *
+ * When several jobs are queued the scheduler shares the workers by weighted
+ * fair queuing: every batch accumulates virtual time, the time its chunks
+ * took divided by the job's priority, and a free worker always picks the
+ * batch with the least virtual time. A job of priority 10 therefore gets ten
+ * times the worker time of a priority 1 job while both have work, and no job
+ * starves. A new batch starts at the current virtual clock, so a job cannot
+ * bank time while it had nothing queued. A job never runs on more workers
+ * than the thread count it asked for.
+ *
+ * Workers may be split into groups, one per NUMA node. Every batch then
+ * splits its ranges into one contiguous share per group, in proportion to
+ * the group sizes, and a worker cuts its chunks from its own group's share.
+ * Once that is empty it steals from the back of the share with the most
+ * work left, so no worker idles while any group has work.
+ */
+public final class JobScheduler {
+
+    public static final int MIN_PRIORITY = 1;
+    public static final int DEFAULT_PRIORITY = 5;
+    public static final int MAX_PRIORITY = 10;
+
+    /**
+     * Searches one chunk of prefixes on the calling worker thread.
+     */
+    public interface ChunkHandler {
+        void search(long startPrefix, long endPrefix);
+    }
+
+    /**
+     * Prefix indices [start, end) to be searched.
+     */
+    public static final class Range {
+        private final long start;
+        private final long end;
+
+        public Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+    }
+
+    private final Thread[] workers;
+    private final int[] groupSizes;
+
+    // Batches with work left or chunks in flight, in submission order
+    private final List<Batch> batches = new ArrayList<>();
+    private double virtualClock;
+    private boolean shutdown;
+
+    /**
+     * Starts the worker threads as a single group.
+     *
+     * @param namePrefix worker threads are named {@code namePrefix + "-Thread-" + n}
+     * @param workerCount number of worker threads
+     */
+    public JobScheduler(String namePrefix, int workerCount) {
+        this(namePrefix, new int[] {workerCount});
+    }
+
+    /**
+     * Starts the worker threads in groups with their own share of every batch.
+     *
+     * @param namePrefix worker threads are named {@code namePrefix + "-Thread-" + n},
+     *                   numbered across all groups
+     * @param groupSizes workers of every group; empty groups are left out
+     */
+    public JobScheduler(String namePrefix, int[] groupSizes) {
+        int workerCount = 0;
+        int groupCount = 0;
+        for (int size : groupSizes) {
+            workerCount += Math.max(0, size);
+            groupCount += size > 0 ? 1 : 0;
+        }
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be at least 1");
+        }
+        this.workers = new Thread[workerCount];
+        this.groupSizes = new int[groupCount];
+        int worker = 0;
+        int group = 0;
+        for (int size : groupSizes) {
+            if (size <= 0) {
+                continue;
+            }
+            this.groupSizes[group] = size;
+            for (int i = 0; i < size; i++, worker++) {
+                int workerGroup = group;
+                workers[worker] = new Thread(() -> workerLoop(workerGroup), namePrefix + "-Thread-" + (worker + 1));
+                workers[worker].setDaemon(true);
+                workers[worker].start();
+            }
+            group++;
+        }
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Returns the number of workers in every group.
+     */
+    public int[] getGroupSizes() {
+        return groupSizes.clone();
+    }
+
+    /**
+     * Returns the number of batches that are queued or running.
+     */
+    public synchronized int getQueuedBatches() {
+        return batches.size();
+    }
+
+    /**
+     * Searches every range of a job and returns once all its chunks have
+     * finished, or once the job is done and its running chunks have returned.
+     *
+     * @param job job the ranges belong to; its priority sets the share of worker time
+     * @param maxThreads most workers that may search the batch at the same time
+     * @param chunkSize prefixes per chunk
+     * @param ranges prefix ranges to search
+     * @param handler searches one chunk
+     * @throws InterruptedException if the caller is interrupted while waiting;
+     *         chunks that were not started yet are dropped
+     * @throws IllegalStateException if a chunk threw an exception
+     */
+    public void execute(SearchJob job, int maxThreads, long chunkSize, List<Range> ranges,
+                        ChunkHandler handler) throws InterruptedException {
+        Batch batch = new Batch(job, Math.max(1, maxThreads), Math.max(1, chunkSize), ranges, handler,
+                                groupSizes);
+        if (batch.isDrained()) {
+            return;
+        }
+        synchronized (this) {
+            if (shutdown) {
+                throw new IllegalStateException("Scheduler is shut down");
+            }
+            batch.virtualTime = virtualClock;
+            batches.add(batch);
+            notifyAll();
+            try {
+                while (!batch.finished) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                batch.clear();
+                throw e;
+            }
+        }
+        if (batch.failure != null) {
+            throw new IllegalStateException("Chunk search failed: " + batch.failure, batch.failure);
+        }
+    }
+
+    /**
+     * Stops the workers once they finish their current chunks.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        notifyAll();
+    }
+
+    private void workerLoop(int group) {
+        while (true) {
+            Batch batch;
+            long start;
+            long end;
+            synchronized (this) {
+                while ((batch = pick()) == null) {
+                    if (shutdown) {
+                        return;
+                    }
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                long[] chunk = batch.take(group);
+                start = chunk[0];
+                end = chunk[1];
+                batch.active++;
+            }
+
+            long chunkStart = System.nanoTime();
+            Throwable failure = null;
+            try {
+                batch.handler.search(start, end);
+            } catch (Throwable t) {
+                failure = t;
+            }
+            long elapsed = System.nanoTime() - chunkStart;
+
+            synchronized (this) {
+                batch.active--;
+                batch.virtualTime += (double) elapsed / batch.weight;
+                if (failure != null && batch.failure == null) {
+                    batch.failure = failure;
+                    batch.clear();
+                }
+                if (batch.active == 0 && batch.isDrained()) {
+                    complete(batch);
+                } else {
+                    // A slot of a capped batch may have opened up
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the runnable batch with the least virtual time, preferring higher
+     * priority and then earlier submission on ties. Batches of finished jobs
+     * are dropped on the way. Called with the lock held.
+     */
+    private Batch pick() {
+        Batch best = null;
+        Iterator<Batch> iterator = batches.iterator();
+        while (iterator.hasNext()) {
+            Batch batch = iterator.next();
+            if (!batch.isDrained() && batch.job.isDone()) {
+                batch.clear();
+            }
+            if (batch.isDrained()) {
+                if (batch.active == 0) {
+                    iterator.remove();
+                    batch.finished = true;
+                    notifyAll();
+                }
+                continue;
+            }
+            if (batch.active >= batch.maxThreads) {
+                continue;
+            }
+            if (best == null || batch.virtualTime < best.virtualTime
+                    || (batch.virtualTime == best.virtualTime && batch.weight > best.weight)) {
+                best = batch;
+            }
+        }
+        if (best != null) {
+            virtualClock = Math.max(virtualClock, best.virtualTime);
+        }
+        return best;
+    }
+
+    private void complete(Batch batch) {
+        batches.remove(batch);
+        batch.finished = true;
+        notifyAll();
+    }
+
+    /**
+     * Returns {@code total * part / whole} rounded down, for {@code part <= whole},
+     * without the overflow of the plain product: a length-10 keyspace has
+     * about 2^59 prefixes, so 16 workers would already pass 2^63.
+     */
+    static long share(long total, int part, int whole) {
+        return total / whole * part + total % whole * part / whole;
+    }
+
+    /**
+     * Ranges of one {@link #execute} call and their scheduling state.
+     */
+    private static final class Batch {
+        final SearchJob job;
+        final int weight;
+        final int maxThreads;
+        final long chunkSize;
+        final ChunkHandler handler;
+        // Unstarted part of every group's share as {next, end} runs
+        final List<ArrayDeque<long[]>> pending = new ArrayList<>();
+
+        int active;
+        double virtualTime;
+        boolean finished;
+        Throwable failure;
+
+        Batch(SearchJob job, int maxThreads, long chunkSize, List<Range> ranges, ChunkHandler handler,
+              int[] groupSizes) {
+            this.job = job;
+            this.weight = Math.max(MIN_PRIORITY, Math.min(MAX_PRIORITY, job.getPriority()));
+            this.maxThreads = maxThreads;
+            this.chunkSize = chunkSize;
+            this.handler = handler;
+
+            long total = 0;
+            int workers = 0;
+            for (Range range : ranges) {
+                total += Math.max(0, range.end - range.start);
+            }
+            for (int size : groupSizes) {
+                workers += size;
+                pending.add(new ArrayDeque<>());
+            }
+
+            // Cumulative boundaries over the concatenated ranges, so the shares cover every prefix
+            int group = 0;
+            long assigned = 0;
+            long groupEnd = share(total, groupSizes[0], workers);
+            int cumulativeWorkers = groupSizes[0];
+            for (Range range : ranges) {
+                long start = range.start;
+                while (start < range.end) {
+                    while (assigned >= groupEnd && group < groupSizes.length - 1) {
+                        cumulativeWorkers += groupSizes[++group];
+                        groupEnd = group == groupSizes.length - 1 ? total : share(total, cumulativeWorkers, workers);
+                    }
+                    long end = Math.min(range.end, start + (groupEnd - assigned));
+                    pending.get(group).add(new long[] {start, end});
+                    assigned += end - start;
+                    start = end;
+                }
+            }
+        }
+
+        boolean isDrained() {
+            for (ArrayDeque<long[]> share : pending) {
+                if (!share.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void clear() {
+            for (ArrayDeque<long[]> share : pending) {
+                share.clear();
+            }
+        }
+
+        /**
+         * Cuts the next chunk off the front of a group's share, or off the
+         * back of the share with the most work left if the group's own is
+         * empty. Must only be called while the batch is not drained.
+         *
+         * @return the chunk as {start, end}
+         */
+        long[] take(int group) {
+            ArrayDeque<long[]> own = pending.get(group);
+            if (!own.isEmpty()) {
+                long[] run = own.peekFirst();
+                long start = run[0];
+                long end = Math.min(run[1], start + chunkSize);
+                run[0] = end;
+                if (end == run[1]) {
+                    own.pollFirst();
+                }
+                return new long[] {start, end};
+            }
+            ArrayDeque<long[]> victim = null;
+            long most = 0;
+            for (ArrayDeque<long[]> share : pending) {
+                long remaining = 0;
+                for (long[] run : share) {
+                    remaining += run[1] - run[0];
+                }
+                if (remaining > most) {
+                    most = remaining;
+                    victim = share;
+                }
+            }
+            long[] run = victim.peekLast();
+            long end = run[1];
+            long start = Math.max(run[0], end - chunkSize);
+            run[1] = start;
+            if (start == run[0]) {
+                victim.pollLast();
+            }
+            return new long[] {start, end};
+        }
+    }
+}
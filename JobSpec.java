@@ -0,0 +1,276 @@
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Serializable description of a search job shared by the coordinator and
+ * every server that leases chunks of it.
+ */
+public class JobSpec implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private final String jobId;
+    private final List<String> targetHashes;
+    private final int minLength;
+    private final int passwordLength;
+    private final int priority;
+    // Per-position character classes, or null for all printable ASCII in every position
+    private final String mask;
+    // Dictionary file resolved by every server, its size in bytes, and the rules applied to each word
+    private final String wordlist;
+    private final long wordlistSize;
+    private final List<String> rules;
+    
+    /**
+     * @param jobId identifier chosen by the coordinator
+     * @param targetHash MD5 hash to crack (32 lowercase hex characters)
+     * @param passwordLength length of the passwords to enumerate
+     */
+    public JobSpec(String jobId, String targetHash, int passwordLength) {
+        this(jobId, Collections.singletonList(targetHash), passwordLength);
+    }
+    
+    /**
+     * Creates a batch job that cracks every hash in one pass over the keyspace.
+     * 
+     * @param jobId identifier chosen by the coordinator
+     * @param targetHashes MD5 hashes to crack; case and duplicates are normalized
+     * @param passwordLength length of the passwords to enumerate
+     */
+    public JobSpec(String jobId, List<String> targetHashes, int passwordLength) {
+        this(jobId, targetHashes, passwordLength, JobScheduler.DEFAULT_PRIORITY);
+    }
+    
+    /**
+     * Creates a batch job with a scheduling priority on the servers.
+     * 
+     * @param jobId identifier chosen by the coordinator
+     * @param targetHashes MD5 hashes to crack; case and duplicates are normalized
+     * @param passwordLength length of the passwords to enumerate
+     * @param priority share of each server's workers while other jobs run, from
+     *                 {@link JobScheduler#MIN_PRIORITY} to {@link JobScheduler#MAX_PRIORITY}
+     */
+    public JobSpec(String jobId, List<String> targetHashes, int passwordLength, int priority) {
+        this(jobId, targetHashes, passwordLength, passwordLength, null, null, 0, null, priority);
+    }
+    
+    /**
+     * Creates a job that sweeps every length from {@code minLength} to
+     * {@code maxLength} in one pass, shortest lengths first.
+     * 
+     * @param jobId identifier chosen by the coordinator
+     * @param targetHashes MD5 hashes to crack; case and duplicates are normalized
+     * @param minLength shortest password length to enumerate
+     * @param maxLength longest password length to enumerate
+     * @param priority share of each server's workers while other jobs run
+     */
+    public JobSpec(String jobId, List<String> targetHashes, int minLength, int maxLength, int priority) {
+        this(jobId, targetHashes, minLength, maxLength, null, null, 0, null, priority);
+    }
+    
+    /**
+     * Creates a batch job over the candidates of a mask such as {@code ?u?l?l?l?d?d}.
+     * 
+     * @param jobId identifier chosen by the coordinator
+     * @param targetHashes MD5 hashes to crack; case and duplicates are normalized
+     * @param mask one character class per position, see {@link Mask}
+     * @param priority share of each server's workers while other jobs run
+     * @throws IllegalArgumentException if the mask is malformed
+     */
+    public JobSpec(String jobId, List<String> targetHashes, String mask, int priority) {
+        this(jobId, targetHashes, mask, Mask.parse(mask).getLength(), priority);
+    }
+    
+    /**
+     * Creates a job over the first {@code minLength} up to all positions of a
+     * mask, shortest first, so {@code ?d?d?d?d?d?d} from 4 sweeps 4 to 6 digits.
+     * 
+     * @param jobId identifier chosen by the coordinator
+     * @param targetHashes MD5 hashes to crack; case and duplicates are normalized
+     * @param mask one character class per position, see {@link Mask}
+     * @param minLength number of mask positions of the shortest candidates
+     * @param priority share of each server's workers while other jobs run
+     * @throws IllegalArgumentException if the mask is malformed
+     */
+    public JobSpec(String jobId, List<String> targetHashes, String mask, int minLength, int priority) {
+        this(jobId, targetHashes, minLength, Mask.parse(mask).getLength(), mask, null, 0, null, priority);
+    }
+    
+    /**
+     * Creates a dictionary job that tries every word of a wordlist under every rule.
+     * Lease ranges are byte offsets into the file, so each server must have an
+     * identical copy of it.
+     * 
+     * @param jobId identifier chosen by the coordinator
+     * @param targetHashes MD5 hashes to crack; case and duplicates are normalized
+     * @param wordlist path of the wordlist, resolved by each server
+     * @param wordlistSize size of the file in bytes; servers reject a different copy
+     * @param rules mangling rules, see {@link WordRules}
+     * @param priority share of each server's workers while other jobs run
+     * @throws IllegalArgumentException if the file is empty or a rule is malformed
+     */
+    public JobSpec(String jobId, List<String> targetHashes, String wordlist, long wordlistSize,
+                   List<String> rules, int priority) {
+        this(jobId, targetHashes, 0, 0, null, wordlist, wordlistSize, 
+             WordRules.parse(rules).getRules(), priority);
+        if (wordlistSize < 1) {
+            throw new IllegalArgumentException("Wordlist is empty: " + wordlist);
+        }
+    }
+    
+    /**
+     * Takes every field as given; the public constructors validate them.
+     * Also used by {@link BinaryProtocol} to decode a job sent over the wire.
+     */
+    JobSpec(String jobId, List<String> targetHashes, int minLength, int passwordLength, 
+            String mask, String wordlist, long wordlistSize, List<String> rules, int priority) {
+        LinkedHashSet<String> unique = new LinkedHashSet<>();
+        for (String hash : targetHashes) {
+            unique.add(hash.trim().toLowerCase());
+        }
+        this.jobId = jobId;
+        this.targetHashes = Collections.unmodifiableList(new ArrayList<>(unique));
+        this.minLength = minLength;
+        this.passwordLength = passwordLength;
+        this.mask = mask;
+        this.wordlist = wordlist;
+        this.wordlistSize = wordlistSize;
+        this.rules = rules == null ? null : new ArrayList<>(rules);
+        this.priority = priority;
+    }
+    
+    public String getJobId() {
+        return jobId;
+    }
+    
+    /**
+     * Returns the first target hash; the only one for single-target jobs.
+     */
+    public String getTargetHash() {
+        return targetHashes.get(0);
+    }
+    
+    public List<String> getTargetHashes() {
+        return targetHashes;
+    }
+    
+    public int getTargetCount() {
+        return targetHashes.size();
+    }
+    
+    /**
+     * Returns the longest password length of the job; the only one unless it sweeps a range.
+     */
+    public int getPasswordLength() {
+        return passwordLength;
+    }
+    
+    public int getMinLength() {
+        return minLength;
+    }
+    
+    /**
+     * Returns a description of the lengths searched, e.g. {@code 6} or {@code 1-8}.
+     */
+    public String getLengthRange() {
+        return minLength == passwordLength ? String.valueOf(passwordLength) 
+                                           : minLength + "-" + passwordLength;
+    }
+    
+    public int getPriority() {
+        return priority;
+    }
+    
+    /**
+     * Returns the job's mask, or null for a brute-force job over printable ASCII.
+     */
+    public String getMask() {
+        return mask;
+    }
+    
+    /**
+     * Returns the wordlist path of a dictionary job, or null.
+     */
+    public String getWordlist() {
+        return wordlist;
+    }
+    
+    public long getWordlistSize() {
+        return wordlistSize;
+    }
+    
+    /**
+     * Returns the mangling rules of a dictionary job, or null.
+     */
+    public List<String> getRules() {
+        return rules == null ? null : Collections.unmodifiableList(rules);
+    }
+    
+    /**
+     * Builds the mangling rules of a dictionary job.
+     */
+    public WordRules createRules() {
+        return WordRules.parse(rules);
+    }
+    
+    /**
+     * Returns the size of the index space that leases refer to: the prefix
+     * count of the keyspaces, or the wordlist size in bytes.
+     */
+    public long getPrefixCount() {
+        return wordlist != null ? wordlistSize : createKeyspaces().getPrefixCount();
+    }
+    
+    /**
+     * Builds the job's keyspaces, one per length in increasing order; lease
+     * ranges are global prefix indices into the sequence.
+     * 
+     * @throws IllegalStateException for a dictionary job
+     */
+    public KeyspaceSequence createKeyspaces() {
+        if (wordlist != null) {
+            throw new IllegalStateException("Dictionary jobs have no keyspace");
+        }
+        if (mask != null) {
+            return KeyspaceSequence.forMask(mask, minLength);
+        }
+        return KeyspaceSequence.bruteForce(Keyspace.printableAscii(), minLength, passwordLength);
+    }
+    
+    /**
+     * Returns a key that identifies the job's targets and keyspace regardless
+     * of its ID, so a restarted client finds the job's checkpoint again.
+     */
+    public String getCheckpointKey() {
+        List<String> sorted = new ArrayList<>(targetHashes);
+        Collections.sort(sorted);
+        String keyspace = mask != null ? "mask=" + mask : String.valueOf(passwordLength);
+        if (wordlist != null) {
+            keyspace = "words=" + wordlist + ":" + wordlistSize + ":" 
+                       + Integer.toHexString(String.join("\n", rules).hashCode());
+        }
+        if (minLength != passwordLength) {
+            keyspace = minLength + ".." + keyspace;
+        }
+        return "lease:" + keyspace + ":" + String.join(",", sorted);
+    }
+    
+    /**
+     * Builds the lookup table of the job's target digests.
+     */
+    public TargetSet createTargetSet() {
+        return new TargetSet(targetHashes);
+    }
+    
+    @Override
+    public String toString() {
+        String targets = targetHashes.size() == 1 ? "hash=" + targetHashes.get(0) 
+                         : "hashes=" + targetHashes.size();
+        if (wordlist != null) {
+            return String.format("JobSpec{id=%s, %s, wordlist=%s, rules=%d}", jobId, targets, wordlist, rules.size());
+        }
+        return String.format("JobSpec{id=%s, %s, length=%d}", jobId, targets, passwordLength);
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.Arrays;
+
+/**
+ * Mixed-radix description of a brute-force search space.
+ *
+ * Every position has its own character set. All positions except the last
+ * form the prefix, and prefixes are numbered with a 64-bit index in which
+ * position 0 is the most significant digit. The last position is never part
+ * of the index: workers sweep it against each prepared prefix. Ranges of
+ * prefix indices therefore cut across several positions at once and can be
+ * made as fine-grained as the scheduler needs.
+ */
+public final class Keyspace {
+
+    /** Number of printable ASCII characters (space to tilde). */
+    public static final int PRINTABLE_COUNT = 95;
+
+    private final char[][] charsets;
+    private final long prefixCount;
+
+    // Number of prefixes covered by one step of each prefix position
+    private final long[] placeValues;
+
+    /**
+     * @param charsets allowed characters for every position, in order
+     * @throws IllegalArgumentException if a position is empty or the prefix
+     *                                  count does not fit in a 64-bit index
+     */
+    public Keyspace(char[][] charsets) {
+        if (charsets.length == 0) {
+            throw new IllegalArgumentException("Keyspace needs at least one position");
+        }
+        for (int pos = 0; pos < charsets.length; pos++) {
+            if (charsets[pos].length == 0) {
+                throw new IllegalArgumentException("Position " + pos + " has no characters");
+            }
+        }
+        this.charsets = charsets;
+
+        int prefixLength = charsets.length - 1;
+        this.placeValues = new long[prefixLength];
+        long count = 1;
+        for (int pos = prefixLength - 1; pos >= 0; pos--) {
+            placeValues[pos] = count;
+            try {
+                count = Math.multiplyExact(count, radix(pos));
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Keyspace too large for a 64-bit prefix index");
+            }
+        }
+        this.prefixCount = count;
+    }
+
+    /**
+     * Returns the printable ASCII alphabet, indexed 0 (space) to 94 (tilde).
+     */
+    public static char[] printableAscii() {
+        char[] alphabet = new char[PRINTABLE_COUNT];
+        for (int i = 0; i < PRINTABLE_COUNT; i++) {
+            alphabet[i] = (char) (32 + i);
+        }
+        return alphabet;
+    }
+
+    /**
+     * Builds the classic keyspace: the same alphabet in every position,
+     * with the first position restricted to {@code alphabet[firstStart, firstEnd)}.
+     */
+    public static Keyspace bruteForce(char[] alphabet, int length, int firstStart, int firstEnd) {
+        char[][] charsets = new char[length][];
+        charsets[0] = Arrays.copyOfRange(alphabet, firstStart, firstEnd);
+        for (int pos = 1; pos < length; pos++) {
+            charsets[pos] = alphabet;
+        }
+        return new Keyspace(charsets);
+    }
+
+    /**
+     * Returns the candidate length.
+     */
+    public int getLength() {
+        return charsets.length;
+    }
+
+    /**
+     * Returns the characters allowed at a position.
+     */
+    public char[] getCharset(int position) {
+        return charsets[position];
+    }
+
+    /**
+     * Returns the number of prefixes, i.e. the size of the index space.
+     */
+    public long getPrefixCount() {
+        return prefixCount;
+    }
+
+    /**
+     * Returns the number of candidates swept per prefix.
+     */
+    public int getLastPositionSize() {
+        return charsets[charsets.length - 1].length;
+    }
+
+    /**
+     * Returns the total number of candidates, saturating at {@code Long.MAX_VALUE}.
+     */
+    public long getCandidateCount() {
+        long last = getLastPositionSize();
+        return prefixCount > Long.MAX_VALUE / last ? Long.MAX_VALUE : prefixCount * last;
+    }
+
+    /**
+     * Writes the per-position charset indices of a prefix into {@code digits}.
+     */
+    public void decode(long prefixIndex, int[] digits) {
+        long remainder = prefixIndex;
+        for (int pos = 0; pos < placeValues.length; pos++) {
+            digits[pos] = (int) (remainder / placeValues[pos]);
+            remainder %= placeValues[pos];
+        }
+    }
+
+    /**
+     * Returns the characters of a prefix, e.g. for progress reports.
+     */
+    public String prefixString(long prefixIndex) {
+        int[] digits = new int[placeValues.length];
+        decode(prefixIndex, digits);
+        char[] chars = new char[digits.length];
+        for (int pos = 0; pos < digits.length; pos++) {
+            chars[pos] = charsets[pos][digits[pos]];
+        }
+        return new String(chars);
+    }
+
+    private int radix(int position) {
+        return charsets[position].length;
+    }
+}
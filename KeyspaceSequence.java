@@ -0,0 +1,148 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keyspaces of increasing candidate length joined into one prefix index space.
+ *
+ * Segment {@code i} occupies global prefix indices
+ * {@code [getOffset(i), getOffset(i) + getSegment(i).getPrefixCount())}, so a
+ * job that sweeps lengths 1 to 8 is leased, chunked and checkpointed exactly
+ * like a single keyspace, and lower indices always belong to shorter lengths.
+ * A single-length job is a sequence with one segment.
+ */
+public final class KeyspaceSequence {
+
+    private final Keyspace[] segments;
+    private final long[] offsets;
+    private final long prefixCount;
+
+    /**
+     * @param segments keyspaces in the order they are searched
+     * @throws IllegalArgumentException if there are no segments or the total
+     *                                  prefix count does not fit in 64 bits
+     */
+    public KeyspaceSequence(List<Keyspace> segments) {
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("Keyspace sequence needs at least one keyspace");
+        }
+        this.segments = segments.toArray(new Keyspace[0]);
+        this.offsets = new long[this.segments.length];
+        long total = 0;
+        for (int i = 0; i < this.segments.length; i++) {
+            offsets[i] = total;
+            try {
+                total = Math.addExact(total, this.segments[i].getPrefixCount());
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Length range too large for a 64-bit prefix index");
+            }
+        }
+        this.prefixCount = total;
+    }
+
+    /**
+     * Wraps a single keyspace.
+     */
+    public static KeyspaceSequence of(Keyspace keyspace) {
+        return new KeyspaceSequence(Collections.singletonList(keyspace));
+    }
+
+    /**
+     * Builds brute-force keyspaces over {@code alphabet} for every length from
+     * {@code minLength} to {@code maxLength}.
+     */
+    public static KeyspaceSequence bruteForce(char[] alphabet, int minLength, int maxLength) {
+        List<Keyspace> segments = new ArrayList<>();
+        for (int length = minLength; length <= maxLength; length++) {
+            segments.add(Keyspace.bruteForce(alphabet, length, 0, alphabet.length));
+        }
+        return new KeyspaceSequence(segments);
+    }
+
+    /**
+     * Builds the keyspaces of the first {@code minLength} to all positions of
+     * a mask, so {@code ?d?d?d?d} with minimum 2 sweeps 2, 3 and 4 digits.
+     */
+    public static KeyspaceSequence forMask(String mask, int minLength) {
+        Keyspace full = Mask.parse(mask);
+        char[][] charsets = new char[full.getLength()][];
+        for (int pos = 0; pos < charsets.length; pos++) {
+            charsets[pos] = full.getCharset(pos);
+        }
+        List<Keyspace> segments = new ArrayList<>();
+        for (int length = Math.max(1, minLength); length <= charsets.length; length++) {
+            segments.add(new Keyspace(Arrays.copyOf(charsets, length)));
+        }
+        return new KeyspaceSequence(segments);
+    }
+
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    public Keyspace getSegment(int index) {
+        return segments[index];
+    }
+
+    /**
+     * Returns the global prefix index at which a segment starts.
+     */
+    public long getOffset(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Returns the global prefix index just past a segment.
+     */
+    public long getEnd(int index) {
+        return offsets[index] + segments[index].getPrefixCount();
+    }
+
+    /**
+     * Returns the segment that holds a global prefix index.
+     */
+    public int segmentOf(long prefixIndex) {
+        // Offsets are strictly increasing because no keyspace is empty
+        int found = Arrays.binarySearch(offsets, prefixIndex);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    /**
+     * Returns the total number of prefixes over all segments.
+     */
+    public long getPrefixCount() {
+        return prefixCount;
+    }
+
+    /**
+     * Returns the total number of candidates, saturating at {@code Long.MAX_VALUE}.
+     */
+    public long getCandidateCount() {
+        long total = 0;
+        for (Keyspace segment : segments) {
+            try {
+                total = Math.addExact(total, segment.getCandidateCount());
+            } catch (ArithmeticException e) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return total;
+    }
+
+    public int getMinLength() {
+        return segments[0].getLength();
+    }
+
+    public int getMaxLength() {
+        return segments[segments.length - 1].getLength();
+    }
+
+    /**
+     * Returns the characters of the prefix at a global index, e.g. for progress reports.
+     */
+    public String prefixString(long prefixIndex) {
+        int segment = segmentOf(prefixIndex);
+        return segments[segment].prefixString(prefixIndex - offsets[segment]);
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Parses password masks into per-position keyspaces.
+ *
+ * A mask lists one character class per position, using the usual
+ * placeholders; any other character stands for itself:
+ *
+ * <pre>
+ * ?l  lowercase letters        abcdefghijklmnopqrstuvwxyz
+ * ?u  uppercase letters        ABCDEFGHIJKLMNOPQRSTUVWXYZ
+ * ?d  digits                   0123456789
+ * ?h  lowercase hex digits     0123456789abcdef
+ * ?H  uppercase hex digits     0123456789ABCDEF
+ * ?s  printable symbols        space and !"#$%&amp;'()*+,-./:;&lt;=&gt;?@[\]^_`{|}~
+ * ?a  all printable ASCII      ?l?u?d?s (95 characters)
+ * ??  a literal question mark
+ * </pre>
+ *
+ * For example {@code ?u?l?l?l?d?d} has 26 x 26^3 x 10^2 = 45,697,600
+ * candidates instead of 95^6 = 735,091,890,625 for the same length.
+ * Every class lists its characters in ASCII order, so a keyspace built from
+ * a mask partitions into prefix-index ranges exactly like a brute-force one.
+ */
+public final class Mask {
+
+    public static final String LOWER = "abcdefghijklmnopqrstuvwxyz";
+    public static final String UPPER = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    public static final String DIGITS = "0123456789";
+    public static final String SYMBOLS = " !\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~";
+
+    private Mask() {
+    }
+
+    /**
+     * Returns true if the text uses mask syntax rather than being a plain length.
+     */
+    public static boolean isMask(String text) {
+        return !text.isEmpty() && !text.chars().allMatch(Character::isDigit);
+    }
+
+    /**
+     * Builds the keyspace of a mask.
+     *
+     * @throws IllegalArgumentException if the mask is empty, longer than
+     *         {@link Md5Kernel#MAX_LENGTH}, uses an unknown placeholder or a
+     *         character outside printable ASCII, or has more than 2^63 prefixes
+     */
+    public static Keyspace parse(String mask) {
+        char[][] positions = new char[mask.length()][];
+        int length = 0;
+        for (int i = 0; i < mask.length(); i++) {
+            char c = mask.charAt(i);
+            if (c == '?') {
+                if (i + 1 == mask.length()) {
+                    throw new IllegalArgumentException("Mask ends with an incomplete placeholder: " + mask);
+                }
+                positions[length++] = charset(mask.charAt(++i));
+            } else if (c >= 32 && c < 127) {
+                positions[length++] = new char[] {c};
+            } else {
+                throw new IllegalArgumentException("Mask characters must be printable ASCII: " + mask);
+            }
+        }
+        if (length == 0) {
+            throw new IllegalArgumentException("Mask is empty");
+        }
+        if (length > Md5Kernel.MAX_LENGTH) {
+            throw new IllegalArgumentException("Mask is longer than " + Md5Kernel.MAX_LENGTH + " characters");
+        }
+
+        char[][] charsets = new char[length][];
+        System.arraycopy(positions, 0, charsets, 0, length);
+        return new Keyspace(charsets);
+    }
+
+    private static char[] charset(char placeholder) {
+        switch (placeholder) {
+            case 'l':
+                return LOWER.toCharArray();
+            case 'u':
+                return UPPER.toCharArray();
+            case 'd':
+                return DIGITS.toCharArray();
+            case 'h':
+                return (DIGITS + "abcdef").toCharArray();
+            case 'H':
+                return (DIGITS + "ABCDEF").toCharArray();
+            case 's':
+                return SYMBOLS.toCharArray();
+            case 'a':
+                return Keyspace.printableAscii();
+            case '?':
+                return new char[] {'?'};
+            default:
+                throw new IllegalArgumentException("Unknown mask placeholder: ?" + placeholder);
+        }
+    }
+}
@@ -0,0 +1,520 @@
+/**
+ * Allocation-free, single-block MD5 kernel specialised for short candidates.
+ *
+ * Every candidate in a brute-force job has the same length, so the padding
+ * byte and the bit-length word of the single 64-byte MD5 block never change.
+ * The kernel keeps that block as a reused int[16] message schedule, lets the
+ * worker overwrite only the candidate bytes, and compares the first state
+ * word against the pre-computed target word before touching the others.
+ *
+ * In target-reversal mode the kernel additionally inverts the final MD5
+ * steps of the target digest. Once the candidate's last character sits in
+ * a message word that those steps never read, the inverted state only
+ * depends on the fixed prefix, so {@link #prepare()} computes it once per
+ * prefix and {@link #matches()} can reject a candidate at the step where
+ * that word was last consumed instead of running all 64 steps.
+ *
+ * In target-set mode the kernel hashes every candidate in full and looks the
+ * digest up in a {@link TargetSet}, so one pass over the keyspace checks any
+ * number of targets at the cost of a single table probe per candidate.
+ *
+ * Independently of the mode, the round-1 steps that run before the word
+ * holding the last character is first read only see prefix bytes. Their
+ * state is cached by {@link #prepare()} and every candidate of the prefix
+ * resumes the compression from there.
+ *
+ * Instances are not thread-safe; each worker thread owns one per job.
+ */
+public final class Md5Kernel implements HashKernel {
+
+    /** Longest input that still fits in a single padded MD5 block. */
+    public static final int MAX_LENGTH = 55;
+
+    private static final int INIT_A = 0x67452301;
+    private static final int INIT_B = 0xefcdab89;
+    private static final int INIT_C = 0x98badcfe;
+    private static final int INIT_D = 0x10325476;
+
+    /** Step whose output is compared when no reversal is done (final A word). */
+    private static final int LAST_CHECK_STEP = 60;
+
+    /** Earliest step the unrolled compression can compare against. */
+    private static final int FIRST_CHECK_STEP = 45;
+    /** Check step that disables every intermediate comparison. */
+    private static final int NO_CHECK_STEP = 63;
+
+    // Per-step constants, rotation amounts and message word indices; shared
+    // read-only with kernels that run the same schedule in several lanes
+    static final int[] K = new int[64];
+    static final int[] SHIFT = {
+        7, 12, 17, 22, 7, 12, 17, 22, 7, 12, 17, 22, 7, 12, 17, 22,
+        5, 9, 14, 20, 5, 9, 14, 20, 5, 9, 14, 20, 5, 9, 14, 20,
+        4, 11, 16, 23, 4, 11, 16, 23, 4, 11, 16, 23, 4, 11, 16, 23,
+        6, 10, 15, 21, 6, 10, 15, 21, 6, 10, 15, 21, 6, 10, 15, 21
+    };
+    static final int[] WORD = new int[64];
+
+    static {
+        for (int i = 0; i < 64; i++) {
+            K[i] = (int) (long) Math.floor(Math.abs(Math.sin(i + 1)) * 4294967296.0);
+            if (i < 16) {
+                WORD[i] = i;
+            } else if (i < 32) {
+                WORD[i] = (5 * i + 1) & 15;
+            } else if (i < 48) {
+                WORD[i] = (3 * i + 5) & 15;
+            } else {
+                WORD[i] = (7 * i) & 15;
+            }
+        }
+    }
+
+    private final int[] block = new int[16];
+    private final int length;
+    private final int targetA;
+    private final int targetB;
+    private final int targetC;
+    private final int targetD;
+    private final boolean targetReversal;
+    private final TargetSet targets;
+    private final int resumeStep;
+    private final int checkStep;
+    private int checkValue;
+
+    // Per-prefix state: round-1 registers after resumeStep steps, and a scratch
+    // array reused by the target inversion so prepare() never allocates
+    private int cachedA = INIT_A;
+    private int cachedB = INIT_B;
+    private int cachedC = INIT_C;
+    private int cachedD = INIT_D;
+    private final int[] reversed = new int[68];
+
+    private long candidates;
+    private long earlyExits;
+
+    /**
+     * Prepares the message schedule for candidates of the given length.
+     *
+     * @param targetDigest 16-byte MD5 digest to search for
+     * @param length candidate length in bytes (1 to {@link #MAX_LENGTH})
+     */
+    public Md5Kernel(byte[] targetDigest, int length) {
+        this(targetDigest, length, false);
+    }
+
+    /**
+     * Prepares the message schedule for candidates of the given length.
+     *
+     * @param targetDigest 16-byte MD5 digest to search for
+     * @param length candidate length in bytes (1 to {@link #MAX_LENGTH})
+     * @param targetReversal whether to invert the final steps of the target
+     *                       so candidates can be rejected early
+     */
+    public Md5Kernel(byte[] targetDigest, int length, boolean targetReversal) {
+        this(targetDigest, null, length, targetReversal);
+    }
+
+    /**
+     * Prepares the message schedule for checking candidates against a set of digests.
+     *
+     * @param targets digests to search for; {@link #matches()} returns true for any of them
+     * @param length candidate length in bytes (1 to {@link #MAX_LENGTH})
+     */
+    public Md5Kernel(TargetSet targets, int length) {
+        this(new byte[16], targets, length, false);
+    }
+
+    private Md5Kernel(byte[] targetDigest, TargetSet targets, int length, boolean targetReversal) {
+        if (length < 1 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Candidate length must be between 1 and " + MAX_LENGTH);
+        }
+        this.length = length;
+
+        // Padding and length words are fixed for the whole job
+        block[length >>> 2] = 0x80 << ((length & 3) << 3);
+        block[14] = length << 3;
+
+        this.targetA = wordAt(targetDigest, 0);
+        this.targetB = wordAt(targetDigest, 4);
+        this.targetC = wordAt(targetDigest, 8);
+        this.targetD = wordAt(targetDigest, 12);
+
+        // Round 1 reads word i at step i, so the steps before the last character's
+        // word only depend on the prefix
+        int varyingWord = (length - 1) >>> 2;
+        this.resumeStep = varyingWord;
+
+        this.targetReversal = targetReversal;
+        this.targets = targets;
+        if (targets != null) {
+            // Only the full digest can be looked up
+            this.checkStep = NO_CHECK_STEP;
+        } else if (targetReversal) {
+            // Round 4 reads the varying word for the last time at step s, and Q[s-3]
+            // is the newest state word that can be recovered without knowing it
+            int lastUse = 48 + ((7 * varyingWord) & 15);
+            this.checkStep = Math.max(FIRST_CHECK_STEP, Math.min(LAST_CHECK_STEP, lastUse - 3));
+        } else {
+            this.checkStep = LAST_CHECK_STEP;
+        }
+        this.checkValue = targetA - INIT_A;
+    }
+
+    /**
+     * Recomputes the per-prefix state after any byte outside the word holding
+     * the last character changed: the cached round-1 registers and, in
+     * target-reversal mode, the inverted target state.
+     */
+    @Override
+    public void prepare() {
+        cacheLeadingSteps();
+        if (targetReversal && checkStep != LAST_CHECK_STEP) {
+            invertTrailingSteps();
+        }
+    }
+
+    /**
+     * Runs the round-1 steps that only read prefix words and stores the registers
+     * in the roles the unrolled compression expects at {@link #resumeStep}.
+     */
+    private void cacheLeadingSteps() {
+        // q[i + 4] holds the state word produced by step i; q[0..3] are the initial words
+        int[] q = reversed;
+        q[0] = INIT_A;
+        q[1] = INIT_D;
+        q[2] = INIT_C;
+        q[3] = INIT_B;
+        for (int i = 0; i < resumeStep; i++) {
+            int b = q[i + 3];
+            int c = q[i + 2];
+            int d = q[i + 1];
+            q[i + 4] = b + Integer.rotateLeft(q[i] + ((b & c) | (~b & d)) + K[i] + block[i], SHIFT[i]);
+        }
+        for (int j = resumeStep - 4; j < resumeStep; j++) {
+            int value = q[j + 4];
+            switch (j & 3) {
+                case 0: cachedA = value; break;
+                case 1: cachedD = value; break;
+                case 2: cachedC = value; break;
+                default: cachedB = value; break;
+            }
+        }
+    }
+
+    /**
+     * Inverts steps 63 down to {@code checkStep + 4} of the target digest.
+     */
+    private void invertTrailingSteps() {
+        // q[i + 4] holds the state word produced by step i; q[64..67] follow from the digest
+        int[] q = reversed;
+        q[64] = targetA - INIT_A;
+        q[65] = targetD - INIT_D;
+        q[66] = targetC - INIT_C;
+        q[67] = targetB - INIT_B;
+
+        for (int i = 63; i > checkStep + 3; i--) {
+            int b = q[i + 3];
+            int c = q[i + 2];
+            int d = q[i + 1];
+            int f;
+            if (i < 16) {
+                f = (b & c) | (~b & d);
+            } else if (i < 32) {
+                f = (b & d) | (c & ~d);
+            } else if (i < 48) {
+                f = b ^ c ^ d;
+            } else {
+                f = c ^ (b | ~d);
+            }
+            q[i] = Integer.rotateRight(q[i + 4] - b, SHIFT[i]) - f - K[i] - block[WORD[i]];
+        }
+        checkValue = q[checkStep + 4];
+    }
+
+    /**
+     * Writes one candidate byte into the message schedule.
+     */
+    @Override
+    public void setByte(int position, int value) {
+        int word = position >>> 2;
+        int shift = (position & 3) << 3;
+        block[word] = (block[word] & ~(0xff << shift)) | ((value & 0xff) << shift);
+    }
+
+    /**
+     * Returns the candidate length this kernel was prepared for.
+     */
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the step whose output is compared against the target state.
+     */
+    public int getCheckStep() {
+        return checkStep;
+    }
+
+    /**
+     * Returns the number of candidates tested by this kernel.
+     */
+    @Override
+    public long getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * Returns the number of candidates rejected at the early check step.
+     */
+    @Override
+    public long getEarlyExits() {
+        return earlyExits;
+    }
+
+    /**
+     * Returns the number of MD5 steps skipped compared to a full 64-step hash,
+     * counting both the cached prefix steps and the early exits.
+     */
+    @Override
+    public long getStepsSaved() {
+        return candidates * resumeStep + earlyExits * (63 - checkStep);
+    }
+
+    /**
+     * Returns the first step not covered by the cached prefix state.
+     */
+    int getResumeStep() {
+        return resumeStep;
+    }
+
+    /**
+     * Returns the expected state word at {@link #getCheckStep()} for the current prefix.
+     */
+    int getCheckValue() {
+        return checkValue;
+    }
+
+    /**
+     * Returns one word of the current message schedule.
+     */
+    int getMessageWord(int index) {
+        return block[index];
+    }
+
+    /**
+     * Returns the cached state word produced by a step in
+     * {@code [resumeStep - 4, resumeStep)}; negative steps are the initial words.
+     */
+    int getCachedStateWord(int step) {
+        switch (step & 3) {
+            case 0: return cachedA;
+            case 1: return cachedD;
+            case 2: return cachedC;
+            default: return cachedB;
+        }
+    }
+
+    @Override
+    public int sweepLastPosition(char[] alphabet, int from, int to) {
+        int last = length - 1;
+        for (int i = from; i < to; i++) {
+            setByte(last, alphabet[i]);
+            if (matches()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Hashes the current candidate and compares it with the target digest.
+     * Almost every candidate is rejected at {@link #getCheckStep()}; the full
+     * digest is only compared once that state word matches.
+     * {@link #prepare()} must have been called for the current prefix.
+     */
+    @SuppressWarnings("fallthrough")
+    public boolean matches() {
+        candidates++;
+        final int[] x = block;
+        int a = cachedA, b = cachedB, c = cachedC, d = cachedD;
+
+        // Round 1, resumed after the cached prefix steps (cases fall through)
+        switch (resumeStep) {
+            case 0:
+                a = ff(a, b, c, d, x[0], 7, 0xd76aa478);
+            case 1:
+                d = ff(d, a, b, c, x[1], 12, 0xe8c7b756);
+            case 2:
+                c = ff(c, d, a, b, x[2], 17, 0x242070db);
+            case 3:
+                b = ff(b, c, d, a, x[3], 22, 0xc1bdceee);
+            case 4:
+                a = ff(a, b, c, d, x[4], 7, 0xf57c0faf);
+            case 5:
+                d = ff(d, a, b, c, x[5], 12, 0x4787c62a);
+            case 6:
+                c = ff(c, d, a, b, x[6], 17, 0xa8304613);
+            case 7:
+                b = ff(b, c, d, a, x[7], 22, 0xfd469501);
+            case 8:
+                a = ff(a, b, c, d, x[8], 7, 0x698098d8);
+            case 9:
+                d = ff(d, a, b, c, x[9], 12, 0x8b44f7af);
+            case 10:
+                c = ff(c, d, a, b, x[10], 17, 0xffff5bb1);
+            case 11:
+                b = ff(b, c, d, a, x[11], 22, 0x895cd7be);
+            case 12:
+                a = ff(a, b, c, d, x[12], 7, 0x6b901122);
+            case 13:
+                d = ff(d, a, b, c, x[13], 12, 0xfd987193);
+            case 14:
+                c = ff(c, d, a, b, x[14], 17, 0xa679438e);
+            case 15:
+                b = ff(b, c, d, a, x[15], 22, 0x49b40821);
+            default:
+                break;
+        }
+
+        // Round 2
+        a = gg(a, b, c, d, x[1], 5, 0xf61e2562);
+        d = gg(d, a, b, c, x[6], 9, 0xc040b340);
+        c = gg(c, d, a, b, x[11], 14, 0x265e5a51);
+        b = gg(b, c, d, a, x[0], 20, 0xe9b6c7aa);
+        a = gg(a, b, c, d, x[5], 5, 0xd62f105d);
+        d = gg(d, a, b, c, x[10], 9, 0x02441453);
+        c = gg(c, d, a, b, x[15], 14, 0xd8a1e681);
+        b = gg(b, c, d, a, x[4], 20, 0xe7d3fbc8);
+        a = gg(a, b, c, d, x[9], 5, 0x21e1cde6);
+        d = gg(d, a, b, c, x[14], 9, 0xc33707d6);
+        c = gg(c, d, a, b, x[3], 14, 0xf4d50d87);
+        b = gg(b, c, d, a, x[8], 20, 0x455a14ed);
+        a = gg(a, b, c, d, x[13], 5, 0xa9e3e905);
+        d = gg(d, a, b, c, x[2], 9, 0xfcefa3f8);
+        c = gg(c, d, a, b, x[7], 14, 0x676f02d9);
+        b = gg(b, c, d, a, x[12], 20, 0x8d2a4c8a);
+
+        // Round 3
+        a = hh(a, b, c, d, x[5], 4, 0xfffa3942);
+        d = hh(d, a, b, c, x[8], 11, 0x8771f681);
+        c = hh(c, d, a, b, x[11], 16, 0x6d9d6122);
+        b = hh(b, c, d, a, x[14], 23, 0xfde5380c);
+        a = hh(a, b, c, d, x[1], 4, 0xa4beea44);
+        d = hh(d, a, b, c, x[4], 11, 0x4bdecfa9);
+        c = hh(c, d, a, b, x[7], 16, 0xf6bb4b60);
+        b = hh(b, c, d, a, x[10], 23, 0xbebfbc70);
+        a = hh(a, b, c, d, x[13], 4, 0x289b7ec6);
+        d = hh(d, a, b, c, x[0], 11, 0xeaa127fa);
+        c = hh(c, d, a, b, x[3], 16, 0xd4ef3085);
+        b = hh(b, c, d, a, x[6], 23, 0x04881d05);
+        a = hh(a, b, c, d, x[9], 4, 0xd9d4d039);
+        d = hh(d, a, b, c, x[12], 11, 0xe6db99e5);
+        if (checkStep == 45 && d != checkValue) return reject();
+        c = hh(c, d, a, b, x[15], 16, 0x1fa27cf8);
+        if (checkStep == 46 && c != checkValue) return reject();
+        b = hh(b, c, d, a, x[2], 23, 0xc4ac5665);
+        if (checkStep == 47 && b != checkValue) return reject();
+
+        // Round 4
+        a = ii(a, b, c, d, x[0], 6, 0xf4292244);
+        if (checkStep == 48 && a != checkValue) return reject();
+        d = ii(d, a, b, c, x[7], 10, 0x432aff97);
+        if (checkStep == 49 && d != checkValue) return reject();
+        c = ii(c, d, a, b, x[14], 15, 0xab9423a7);
+        if (checkStep == 50 && c != checkValue) return reject();
+        b = ii(b, c, d, a, x[5], 21, 0xfc93a039);
+        if (checkStep == 51 && b != checkValue) return reject();
+        a = ii(a, b, c, d, x[12], 6, 0x655b59c3);
+        if (checkStep == 52 && a != checkValue) return reject();
+        d = ii(d, a, b, c, x[3], 10, 0x8f0ccc92);
+        if (checkStep == 53 && d != checkValue) return reject();
+        c = ii(c, d, a, b, x[10], 15, 0xffeff47d);
+        if (checkStep == 54 && c != checkValue) return reject();
+        b = ii(b, c, d, a, x[1], 21, 0x85845dd1);
+        if (checkStep == 55 && b != checkValue) return reject();
+        a = ii(a, b, c, d, x[8], 6, 0x6fa87e4f);
+        if (checkStep == 56 && a != checkValue) return reject();
+        d = ii(d, a, b, c, x[15], 10, 0xfe2ce6e0);
+        if (checkStep == 57 && d != checkValue) return reject();
+        c = ii(c, d, a, b, x[6], 15, 0xa3014314);
+        if (checkStep == 58 && c != checkValue) return reject();
+        b = ii(b, c, d, a, x[13], 21, 0x4e0811a1);
+        if (checkStep == 59 && b != checkValue) return reject();
+        a = ii(a, b, c, d, x[4], 6, 0xf7537e82);
+        if (checkStep == 60 && a != checkValue) return reject();
+
+        d = ii(d, a, b, c, x[11], 10, 0xbd3af235);
+        c = ii(c, d, a, b, x[2], 15, 0x2ad7d2bb);
+        b = ii(b, c, d, a, x[9], 21, 0xeb86d391);
+
+        if (targets != null) {
+            return targets.indexOf(a + INIT_A, b + INIT_B, c + INIT_C, d + INIT_D) >= 0;
+        }
+        return a + INIT_A == targetA
+            && b + INIT_B == targetB
+            && c + INIT_C == targetC
+            && d + INIT_D == targetD;
+    }
+
+    private boolean reject() {
+        earlyExits++;
+        return false;
+    }
+
+    // The freshly computed b is the only input on the dependency chain, so the
+    // older words are combined first and b is folded in as late as possible.
+
+    private static int ff(int a, int b, int c, int d, int x, int s, int t) {
+        return Integer.rotateLeft((d ^ (b & (c ^ d))) + (a + x + t), s) + b;
+    }
+
+    private static int gg(int a, int b, int c, int d, int x, int s, int t) {
+        return Integer.rotateLeft(((b & d) | (c & ~d)) + (a + x + t), s) + b;
+    }
+
+    private static int hh(int a, int b, int c, int d, int x, int s, int t) {
+        return Integer.rotateLeft((b ^ (c ^ d)) + (a + x + t), s) + b;
+    }
+
+    private static int ii(int a, int b, int c, int d, int x, int s, int t) {
+        return Integer.rotateLeft((c ^ (b | ~d)) + (a + x + t), s) + b;
+    }
+
+    /**
+     * Returns the first digest word (digest bytes 0-3, little-endian) of a
+     * padded single-block message, computed with a plain step loop. Used where
+     * every candidate's digest is needed rather than a comparison.
+     */
+    static int firstDigestWord(int[] x) {
+        int a = INIT_A, b = INIT_B, c = INIT_C, d = INIT_D;
+        for (int i = 0; i < 64; i++) {
+            int f;
+            if (i < 16) {
+                f = (b & c) | (~b & d);
+            } else if (i < 32) {
+                f = (b & d) | (c & ~d);
+            } else if (i < 48) {
+                f = b ^ c ^ d;
+            } else {
+                f = c ^ (b | ~d);
+            }
+            int next = b + Integer.rotateLeft(a + f + K[i] + x[WORD[i]], SHIFT[i]);
+            a = d;
+            d = c;
+            c = b;
+            b = next;
+        }
+        return a + INIT_A;
+    }
+
+    /**
+     * Reads a little-endian 32-bit word from the digest.
+     */
+    static int wordAt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff)
+            | (bytes[offset + 1] & 0xff) << 8
+            | (bytes[offset + 2] & 0xff) << 16
+            | (bytes[offset + 3] & 0xff) << 24;
+    }
+}
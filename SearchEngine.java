@@ -0,0 +1,129 @@
+import java.lang.reflect.Constructor;
+
+/**
+ * Hashing strategies a server can use for its brute-force workers.
+ * Selected once at server startup with the {@code --engine} option.
+ */
+public enum SearchEngine {
+
+    /** Runs the MD5 kernel forward for every candidate. */
+    STANDARD("standard"),
+
+    /**
+     * Inverts the final MD5 steps of the target once per prefix so most
+     * candidates are rejected before the last rounds are computed.
+     */
+    TARGET_REVERSAL("target-reversal"),
+
+    /**
+     * Target reversal with several last-position candidates hashed in
+     * lock-step using the incubating Vector API ({@code VectorMd5Kernel}).
+     */
+    VECTOR("vector");
+
+    private static final String VECTOR_KERNEL_CLASS = "VectorMd5Kernel";
+
+    private final String optionName;
+
+    SearchEngine(String optionName) {
+        this.optionName = optionName;
+    }
+
+    /**
+     * Returns the name used on the command line.
+     */
+    public String getOptionName() {
+        return optionName;
+    }
+
+    /**
+     * Returns this engine, or {@link #TARGET_REVERSAL} when the vector engine
+     * was requested but its class or the jdk.incubator.vector module is missing.
+     */
+    public SearchEngine resolve() {
+        if (this == VECTOR && VectorSupport.CONSTRUCTOR == null) {
+            return TARGET_REVERSAL;
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of candidates a kernel of this engine hashes at once.
+     */
+    public int getLanes() {
+        return this == VECTOR && VectorSupport.CONSTRUCTOR != null ? VectorSupport.lanes : 1;
+    }
+
+    /**
+     * Creates a kernel for one worker thread.
+     *
+     * @param targetDigest 16-byte MD5 digest to search for
+     * @param length candidate length in bytes
+     */
+    public HashKernel newKernel(byte[] targetDigest, int length) {
+        switch (resolve()) {
+            case STANDARD:
+                return new Md5Kernel(targetDigest, length, false);
+            case VECTOR:
+                try {
+                    return VectorSupport.CONSTRUCTOR.newInstance(targetDigest, length);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Cannot create vector kernel", e);
+                }
+            default:
+                return new Md5Kernel(targetDigest, length, true);
+        }
+    }
+
+    /**
+     * Creates a kernel for one worker thread that checks a whole set of targets.
+     * A single target uses this engine's kernel; larger sets need the full
+     * digest of every candidate, so they always use the scalar table-lookup kernel.
+     *
+     * @param targets digests to search for
+     * @param length candidate length in bytes
+     */
+    public HashKernel newKernel(TargetSet targets, int length) {
+        if (targets.size() == 1) {
+            return newKernel(targets.getDigest(0), length);
+        }
+        return new Md5Kernel(targets, length);
+    }
+
+    /**
+     * Looks up an engine by its command-line name.
+     *
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static SearchEngine fromOptionName(String name) {
+        for (SearchEngine engine : values()) {
+            if (engine.optionName.equalsIgnoreCase(name)) {
+                return engine;
+            }
+        }
+        throw new IllegalArgumentException("Unknown search engine: " + name);
+    }
+
+    /**
+     * Loads the vector kernel lazily so the rest of the server runs without
+     * the incubator module on the module path.
+     */
+    private static final class VectorSupport {
+        static final Constructor<? extends HashKernel> CONSTRUCTOR;
+        static int lanes = 1;
+
+        static {
+            Constructor<? extends HashKernel> constructor = null;
+            try {
+                Class<? extends HashKernel> type =
+                    Class.forName(VECTOR_KERNEL_CLASS).asSubclass(HashKernel.class);
+                // Touching the species fails here if jdk.incubator.vector is not resolved
+                lanes = (Integer) type.getMethod("laneCount").invoke(null);
+                constructor = type.getConstructor(byte[].class, int.class);
+            } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+                constructor = null;
+            }
+            CONSTRUCTOR = constructor;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared state of one search request on a server.
+ *
+ * Worker tasks read the keyspace and targets, publish matches and merge
+ * their kernel statistics here when a chunk finishes. A job with several
+ * targets keeps running until every target is cracked or the job is stopped;
+ * both end it through the job's own {@link CancellationToken}, so stopping
+ * one job never affects another running on the same server.
+ *
+ * Live metrics come from striped counters: each worker publishes its
+ * candidate count through a {@link Meter} at its cancellation checks, so
+ * the hot loop never touches shared state, and rates are sampled over
+ * windows of at least {@link #MIN_SAMPLE_MS} when someone asks for them.
+ */
+public final class SearchJob {
+
+    /**
+     * Receives every target the first time it is cracked, on the worker thread that found it.
+     */
+    public interface FoundListener {
+        void onFound(SearchJob job, String targetHash, String password, String threadName);
+    }
+
+    /** Shortest window over which rates are measured. */
+    public static final long MIN_SAMPLE_MS = 1000;
+
+    private final String jobId;
+    private final int priority;
+    private final TargetSet targets;
+    private final KeyspaceSequence keyspaces;
+    private final Wordlist wordlist;
+    private final WordRules rules;
+    private final FoundListener listener;
+    private final CancellationToken cancellation = new CancellationToken();
+
+    private final long startTime = System.currentTimeMillis();
+    private volatile long endTime;
+
+    // Cracked targets in the order they were found, for progress polling
+    private final List<SearchResult> foundResults = new CopyOnWriteArrayList<>();
+
+    // Most recently started prefix index, for progress reports
+    private volatile long currentPrefix = -1;
+
+    // Records completed chunks so the search can resume after a restart; may be null
+    private volatile ChunkCheckpoint checkpoint;
+
+    private final AtomicReference<String> foundPassword = new AtomicReference<>(null);
+    private final AtomicReference<String> foundByThread = new AtomicReference<>(null);
+
+    private final LongAdder candidatesTested = new LongAdder();
+    private final LongAdder earlyExits = new LongAdder();
+    private final LongAdder stepsSaved = new LongAdder();
+
+    // Candidates per worker thread, and prefixes (bytes of a wordlist) handed
+    // to the scheduler and searched to the end
+    private final Map<String, LongAdder> threadCandidates = new ConcurrentHashMap<>();
+    private final LongAdder scheduledPrefixes = new LongAdder();
+    private final LongAdder completedPrefixes = new LongAdder();
+
+    // Start of the current rate window and the rates of the last one
+    private long sampleTime = startTime;
+    private long sampleCompleted;
+    private Map<String, Long> sampleThreads = new HashMap<>();
+    private Map<String, Double> threadRates;
+    private double prefixRate;
+
+    /**
+     * One worker's handle for publishing its candidate count in batches.
+     * Not thread-safe; a worker creates one per chunk it searches.
+     */
+    public final class Meter {
+        private final LongAdder threadTotal;
+        private long published;
+
+        private Meter(LongAdder threadTotal) {
+            this.threadTotal = threadTotal;
+        }
+
+        /**
+         * Publishes the candidates tested since the previous update.
+         *
+         * @param candidates candidates the worker has tested in this chunk so far
+         */
+        public void update(long candidates) {
+            long delta = candidates - published;
+            if (delta > 0) {
+                candidatesTested.add(delta);
+                threadTotal.add(delta);
+                published = candidates;
+            }
+        }
+    }
+
+    /**
+     * @param jobId ID that {@code stopSearch(jobId)} refers to
+     * @param priority share of the server's workers, from
+     *                 {@link JobScheduler#MIN_PRIORITY} to {@link JobScheduler#MAX_PRIORITY}
+     * @param targets digests to search for
+     * @param keyspaces search space whose global prefix indices are scheduled
+     * @param listener called for every newly cracked target, or null
+     */
+    public SearchJob(String jobId, int priority, TargetSet targets, KeyspaceSequence keyspaces,
+                     FoundListener listener) {
+        this(jobId, priority, targets, keyspaces, null, null, listener);
+    }
+
+    /**
+     * Creates a dictionary job whose scheduled indices are byte offsets into the wordlist.
+     *
+     * @param wordlist mapped dictionary, closed by the caller once the job ends
+     * @param rules rules applied to every word
+     */
+    public SearchJob(String jobId, int priority, TargetSet targets, Wordlist wordlist, WordRules rules,
+                     FoundListener listener) {
+        this(jobId, priority, targets, null, wordlist, rules, listener);
+    }
+
+    private SearchJob(String jobId, int priority, TargetSet targets, KeyspaceSequence keyspaces,
+                      Wordlist wordlist, WordRules rules, FoundListener listener) {
+        this.jobId = jobId;
+        this.priority = priority;
+        this.targets = targets;
+        this.keyspaces = keyspaces;
+        this.wordlist = wordlist;
+        this.rules = rules;
+        this.listener = listener;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Records the time the search ended; the job stops counting elapsed time.
+     */
+    public void finish() {
+        endTime = System.currentTimeMillis();
+    }
+
+    public boolean isRunning() {
+        return endTime == 0;
+    }
+
+    /**
+     * Returns the time from the start of the search to now, or to its end.
+     */
+    public long getElapsedMs() {
+        long end = endTime;
+        return (end == 0 ? System.currentTimeMillis() : end) - startTime;
+    }
+
+    public void addFoundResult(SearchResult result) {
+        foundResults.add(result);
+    }
+
+    /**
+     * Returns the cracked targets in the order they were found.
+     */
+    public List<SearchResult> getFoundResults() {
+        return new ArrayList<>(foundResults);
+    }
+
+    public TargetSet getTargets() {
+        return targets;
+    }
+
+    /**
+     * Returns the keyspaces of a brute-force or mask job, or null for a dictionary job.
+     */
+    public KeyspaceSequence getKeyspaces() {
+        return keyspaces;
+    }
+
+    /**
+     * Returns the wordlist of a dictionary job, or null.
+     */
+    public Wordlist getWordlist() {
+        return wordlist;
+    }
+
+    public WordRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns true once every target was found or the job was stopped.
+     * Only reads the job's padded cancellation token.
+     */
+    public boolean isDone() {
+        return cancellation.isCancelled();
+    }
+
+    /**
+     * Stops the job; workers notice at their next cancellation check.
+     */
+    public void stop() {
+        cancellation.cancel(CancellationToken.Reason.STOPPED);
+    }
+
+    /**
+     * Returns true if the job ended because it was stopped rather than
+     * because every target was found.
+     */
+    public boolean isStopped() {
+        return cancellation.getReason() == CancellationToken.Reason.STOPPED;
+    }
+
+    /**
+     * Records a match; only the first caller for each target wins.
+     */
+    public void reportFound(int target, String password, String threadName) {
+        if (!targets.markFound(target)) {
+            return;
+        }
+        if (targets.allFound()) {
+            cancellation.cancel(CancellationToken.Reason.ALL_FOUND);
+        }
+        if (foundPassword.compareAndSet(null, password)) {
+            foundByThread.set(threadName);
+        }
+        if (listener != null) {
+            listener.onFound(this, targets.getHash(target), password, threadName);
+        }
+    }
+
+    /**
+     * Stops searching for a target that was cracked elsewhere; unknown hashes are ignored.
+     */
+    public void markCrackedElsewhere(String hash) {
+        if (targets.markFound(hash) && targets.allFound()) {
+            cancellation.cancel(CancellationToken.Reason.ALL_FOUND);
+        }
+    }
+
+    public void setCheckpoint(ChunkCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Records prefixes handed to the scheduler, which bounds the work the
+     * job's metrics measure completion against.
+     */
+    public void addScheduledPrefixes(long prefixes) {
+        scheduledPrefixes.add(prefixes);
+    }
+
+    /**
+     * Records that a chunk was searched to the end.
+     */
+    public void chunkCompleted(long startPrefix, long endPrefix) {
+        completedPrefixes.add(endPrefix - startPrefix);
+        ChunkCheckpoint target = checkpoint;
+        if (target != null) {
+            target.markSearched(startPrefix, endPrefix);
+        }
+    }
+
+    public void setCurrentPrefix(long prefixIndex) {
+        this.currentPrefix = prefixIndex;
+    }
+
+    /**
+     * Returns the characters of the most recently started prefix, or the
+     * most recent word of a dictionary job, or null.
+     */
+    public String getCurrentPrefix() {
+        long prefix = currentPrefix;
+        if (prefix < 0) {
+            return null;
+        }
+        return wordlist != null ? wordlist.preview(prefix) : keyspaces.prefixString(prefix);
+    }
+
+    /**
+     * Returns a meter through which the calling worker publishes its candidates.
+     */
+    public Meter meter(String threadName) {
+        return new Meter(threadCandidates.computeIfAbsent(threadName, name -> new LongAdder()));
+    }
+
+    /**
+     * Merges the early-exit statistics of a kernel that finished a chunk;
+     * its candidates are published through a {@link Meter}.
+     */
+    public void addStats(HashKernel kernel) {
+        earlyExits.add(kernel.getEarlyExits());
+        stepsSaved.add(kernel.getStepsSaved());
+    }
+
+    /**
+     * Returns true once at least one target was found.
+     */
+    public boolean isFound() {
+        return foundPassword.get() != null;
+    }
+
+    /**
+     * Returns the first password found.
+     */
+    public String getFoundPassword() {
+        return foundPassword.get();
+    }
+
+    public String getFoundByThread() {
+        return foundByThread.get();
+    }
+
+    public long getCandidatesTested() {
+        return candidatesTested.sum();
+    }
+
+    public long getEarlyExits() {
+        return earlyExits.sum();
+    }
+
+    public long getStepsSaved() {
+        return stepsSaved.sum();
+    }
+
+    public long getScheduledPrefixes() {
+        return scheduledPrefixes.sum();
+    }
+
+    public long getCompletedPrefixes() {
+        return completedPrefixes.sum();
+    }
+
+    /**
+     * Returns the candidates tested by every worker thread that searched this job.
+     */
+    public Map<String, Long> getThreadCandidates() {
+        Map<String, Long> totals = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : threadCandidates.entrySet()) {
+            totals.put(entry.getKey(), entry.getValue().sum());
+        }
+        return totals;
+    }
+
+    /**
+     * Returns every worker thread's candidates per second over the last
+     * sampling window, or since the start until the first window closes.
+     */
+    public synchronized Map<String, Double> getThreadRates() {
+        sample();
+        return threadRates;
+    }
+
+    /**
+     * Returns the prefixes (wordlist bytes) completed per second over the last sampling window.
+     */
+    public synchronized double getPrefixRate() {
+        sample();
+        return prefixRate;
+    }
+
+    /**
+     * Recomputes the rates once the current window is at least
+     * {@link #MIN_SAMPLE_MS} long, and starts the next window.
+     */
+    private void sample() {
+        long end = endTime;
+        long now = end == 0 ? System.currentTimeMillis() : end;
+        long window = now - sampleTime;
+        if (threadRates != null && window < MIN_SAMPLE_MS) {
+            return;
+        }
+        double seconds = Math.max(window, 1) / 1000.0;
+        Map<String, Long> totals = getThreadCandidates();
+        Map<String, Double> rates = new TreeMap<>();
+        for (Map.Entry<String, Long> entry : totals.entrySet()) {
+            long before = sampleThreads.getOrDefault(entry.getKey(), 0L);
+            rates.put(entry.getKey(), (entry.getValue() - before) / seconds);
+        }
+        long completed = completedPrefixes.sum();
+        threadRates = rates;
+        prefixRate = (completed - sampleCompleted) / seconds;
+        if (window >= MIN_SAMPLE_MS) {
+            sampleTime = now;
+            sampleThreads = totals;
+            sampleCompleted = completed;
+        }
+    }
+}
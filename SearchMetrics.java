@@ -0,0 +1,175 @@
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Serializable snapshot of the live metrics of one job on one server,
+ * returned by {@link CrackerInterface#getMetrics()}.
+ *
+ * Completion and ETA are measured against the prefixes (wordlist bytes) the
+ * server has scheduled for the job: the whole range of a direct search, or
+ * the leases taken so far in a leased search, whose overall progress only
+ * the coordinator knows. Rates cover the job's latest sampling window of
+ * at least {@link SearchJob#MIN_SAMPLE_MS}, so they follow slowdowns that
+ * an average since the start would hide.
+ */
+public class SearchMetrics implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String serverName;
+    private final String jobId;
+    private final boolean running;
+    private final long elapsedMs;
+    private final long candidatesTested;
+    private final long scheduledPrefixes;
+    private final long completedPrefixes;
+    private final double prefixesPerSecond;
+    private final Map<String, Long> threadCandidates;
+    private final Map<String, Double> threadRates;
+
+    /**
+     * @param serverName server the snapshot was taken on
+     * @param jobId ID of the job
+     * @param running whether the search is still running
+     * @param elapsedMs time since the search started
+     * @param candidatesTested candidates hashed so far
+     * @param scheduledPrefixes prefixes (wordlist bytes) handed to the workers so far
+     * @param completedPrefixes prefixes (wordlist bytes) searched to the end
+     * @param prefixesPerSecond rate at which prefixes were completed in the latest window
+     * @param threadCandidates candidates hashed by each worker thread
+     * @param threadRates candidates per second of each worker thread in the latest window
+     */
+    public SearchMetrics(String serverName, String jobId, boolean running, long elapsedMs,
+                         long candidatesTested, long scheduledPrefixes, long completedPrefixes,
+                         double prefixesPerSecond, Map<String, Long> threadCandidates,
+                         Map<String, Double> threadRates) {
+        this.serverName = serverName;
+        this.jobId = jobId;
+        this.running = running;
+        this.elapsedMs = elapsedMs;
+        this.candidatesTested = candidatesTested;
+        this.scheduledPrefixes = scheduledPrefixes;
+        this.completedPrefixes = completedPrefixes;
+        this.prefixesPerSecond = prefixesPerSecond;
+        this.threadCandidates = threadCandidates;
+        this.threadRates = threadRates;
+    }
+
+    public String getServerName() {
+        return serverName;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public long getCandidatesTested() {
+        return candidatesTested;
+    }
+
+    public long getScheduledPrefixes() {
+        return scheduledPrefixes;
+    }
+
+    public long getCompletedPrefixes() {
+        return completedPrefixes;
+    }
+
+    public double getPrefixesPerSecond() {
+        return prefixesPerSecond;
+    }
+
+    /**
+     * Returns the candidates hashed by each worker thread, by thread name.
+     */
+    public Map<String, Long> getThreadCandidates() {
+        return threadCandidates;
+    }
+
+    /**
+     * Returns each worker thread's candidates per second in the latest window, by thread name.
+     */
+    public Map<String, Double> getThreadRates() {
+        return threadRates;
+    }
+
+    /**
+     * Returns the server's candidates per second in the latest window.
+     */
+    public double getCandidatesPerSecond() {
+        double rate = 0;
+        for (double threadRate : threadRates.values()) {
+            rate += threadRate;
+        }
+        return rate;
+    }
+
+    /**
+     * Returns the fraction of the scheduled prefixes searched, from 0 to 1.
+     */
+    public double getFractionDone() {
+        return scheduledPrefixes == 0 ? 0.0 : Math.min(1.0, (double) completedPrefixes / scheduledPrefixes);
+    }
+
+    /**
+     * Returns the estimated seconds until the scheduled prefixes are
+     * searched at the current rate, 0 once the job ended, or -1 while no
+     * prefix has completed in the latest window.
+     */
+    public long getEtaSeconds() {
+        if (!running) {
+            return 0;
+        }
+        if (prefixesPerSecond <= 0) {
+            return -1;
+        }
+        return (long) Math.ceil(Math.max(0, scheduledPrefixes - completedPrefixes) / prefixesPerSecond);
+    }
+
+    /**
+     * Returns the spread of the worker threads' rates relative to their
+     * mean, (max - min) / mean; 0 with fewer than two threads. A straggling
+     * thread shows up as a skew near 1 or above.
+     */
+    public double getThreadSkew() {
+        if (threadRates.size() < 2) {
+            return 0.0;
+        }
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        for (double rate : threadRates.values()) {
+            min = Math.min(min, rate);
+            max = Math.max(max, rate);
+        }
+        double mean = getCandidatesPerSecond() / threadRates.size();
+        return mean == 0 ? 0.0 : (max - min) / mean;
+    }
+
+    /**
+     * Returns the worker thread with the lowest rate in the latest window, or null.
+     */
+    public String getSlowestThread() {
+        String slowest = null;
+        for (Map.Entry<String, Double> entry : threadRates.entrySet()) {
+            if (slowest == null || entry.getValue() < threadRates.get(slowest)) {
+                slowest = entry.getKey();
+            }
+        }
+        return slowest;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SearchMetrics{server=%s, job=%s, running=%s, rate=%.0f/s, done=%.1f%%, eta=%ds, "
+                             + "threads=%d, skew=%.2f}",
+                serverName, jobId, running, getCandidatesPerSecond(), 100 * getFractionDone(),
+                getEtaSeconds(), threadRates.size(), getThreadSkew());
+    }
+}
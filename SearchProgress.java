@@ -0,0 +1,95 @@
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Serializable snapshot of a running search on one server.
+ * Servers push it to the coordinator periodically, and clients of a direct
+ * search can poll it through {@link CrackerInterface#getProgress(int)}.
+ */
+public class SearchProgress implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String serverName;
+    private final String jobId;
+    private final boolean running;
+    private final long elapsedMs;
+    private final long candidatesTested;
+    private final String currentPrefix;
+    private final int foundCount;
+    private final List<SearchResult> newlyFound;
+    private final int nextCursor;
+
+    /**
+     * @param serverName server the snapshot was taken on
+     * @param jobId ID of the job; direct searches get one from the server
+     * @param running whether the search is still running
+     * @param elapsedMs time since the search started
+     * @param candidatesTested candidates hashed so far
+     * @param currentPrefix prefix most recently started by a worker, or null
+     * @param foundCount number of targets cracked on this server so far
+     * @param newlyFound cracked results after the requested cursor
+     * @param nextCursor cursor to pass on the next poll
+     */
+    public SearchProgress(String serverName, String jobId, boolean running, long elapsedMs,
+                          long candidatesTested, String currentPrefix, int foundCount,
+                          List<SearchResult> newlyFound, int nextCursor) {
+        this.serverName = serverName;
+        this.jobId = jobId;
+        this.running = running;
+        this.elapsedMs = elapsedMs;
+        this.candidatesTested = candidatesTested;
+        this.currentPrefix = currentPrefix;
+        this.foundCount = foundCount;
+        this.newlyFound = newlyFound;
+        this.nextCursor = nextCursor;
+    }
+
+    public String getServerName() {
+        return serverName;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public long getCandidatesTested() {
+        return candidatesTested;
+    }
+
+    public String getCurrentPrefix() {
+        return currentPrefix;
+    }
+
+    public int getFoundCount() {
+        return foundCount;
+    }
+
+    public List<SearchResult> getNewlyFound() {
+        return newlyFound;
+    }
+
+    public int getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Returns the average hash rate since the search started.
+     */
+    public double getCandidatesPerSecond() {
+        return elapsedMs == 0 ? 0.0 : candidatesTested * 1000.0 / elapsedMs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SearchProgress{server=%s, running=%s, candidates=%d, rate=%.0f/s, prefix='%s', found=%d}",
+                serverName, running, candidatesTested, getCandidatesPerSecond(), currentPrefix, foundCount);
+    }
+}
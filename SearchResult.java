@@ -12,28 +12,58 @@ public class SearchResult implements Serializable {
     private final String threadName;
     private final String serverName;
     private final long searchTimeMs;
+    private final long candidatesTested;
+    private final long earlyExits;
+    private final long stepsSaved;
+    private final String targetHash;
     
     /**
      * Constructor for when password is found.
      */
     public SearchResult(boolean found, String password, String threadName, 
                        String serverName, long searchTimeMs) {
+        this(found, password, threadName, serverName, searchTimeMs, 0, 0, 0);
+    }
+    
+    /**
+     * Constructor carrying the search engine statistics.
+     * 
+     * @param candidatesTested number of candidates hashed
+     * @param earlyExits number of candidates rejected before the final MD5 steps
+     * @param stepsSaved total MD5 steps skipped compared to full 64-step hashes
+     */
+    public SearchResult(boolean found, String password, String threadName,
+                       String serverName, long searchTimeMs,
+                       long candidatesTested, long earlyExits, long stepsSaved) {
+        this(found, password, threadName, serverName, searchTimeMs, 
+             candidatesTested, earlyExits, stepsSaved, null);
+    }
+    
+    /**
+     * Constructor for one cracked hash of a multi-target job.
+     * 
+     * @param targetHash MD5 hash the password belongs to
+     */
+    public SearchResult(boolean found, String password, String threadName,
+                       String serverName, long searchTimeMs,
+                       long candidatesTested, long earlyExits, long stepsSaved,
+                       String targetHash) {
         this.found = found;
         this.password = password;
         this.threadName = threadName;
         this.serverName = serverName;
         this.searchTimeMs = searchTimeMs;
+        this.candidatesTested = candidatesTested;
+        this.earlyExits = earlyExits;
+        this.stepsSaved = stepsSaved;
+        this.targetHash = targetHash;
     }
     
     /**
      * Constructor for when password is not found.
      */
     public SearchResult(boolean found) {
-        this.found = found;
-        this.password = null;
-        this.threadName = null;
-        this.serverName = null;
-        this.searchTimeMs = 0;
+        this(found, null, null, null, 0);
     }
     
     public boolean isFound() {
@@ -44,6 +74,14 @@ public class SearchResult implements Serializable {
         return password;
     }
     
+    /**
+     * Returns the length of the found password, which tells which length of a
+     * length-range job it came from, or 0 if none was found.
+     */
+    public int getPasswordLength() {
+        return password == null ? 0 : password.length();
+    }
+    
     public String getThreadName() {
         return threadName;
     }
@@ -56,13 +94,42 @@ public class SearchResult implements Serializable {
         return searchTimeMs;
     }
     
+    public long getCandidatesTested() {
+        return candidatesTested;
+    }
+    
+    public long getEarlyExits() {
+        return earlyExits;
+    }
+    
+    public long getStepsSaved() {
+        return stepsSaved;
+    }
+    
+    /**
+     * Returns the hash this result cracked, or null if it was not recorded.
+     */
+    public String getTargetHash() {
+        return targetHash;
+    }
+    
+    /**
+     * Returns the fraction of candidates rejected before the final MD5 steps.
+     */
+    public double getEarlyExitRate() {
+        return candidatesTested == 0 ? 0.0 : (double) earlyExits / candidatesTested;
+    }
+    
     @Override
     public String toString() {
+        String stats = candidatesTested == 0 ? "" : String.format(
+                ", candidates=%d, earlyExitRate=%.4f, stepsSaved=%d",
+                candidatesTested, getEarlyExitRate(), stepsSaved);
         if (found) {
-            return String.format("SearchResult{found=true, password='%s', thread='%s', server='%s', time=%dms}",
-                    password, threadName, serverName, searchTimeMs);
+            return String.format("SearchResult{found=true, password='%s', thread='%s', server='%s', time=%dms%s}",
+                    password, threadName, serverName, searchTimeMs, stats);
         } else {
-            return "SearchResult{found=false}";
+            return "SearchResult{found=false" + stats + "}";
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Set of target MD5 digests searched for in a single pass over the keyspace.
+ *
+ * Digests are stored in an open-addressed table of primitive longs keyed by
+ * their first 64 bits (state words A and B), with linear probing and a load
+ * factor of at most one half. A candidate digest that is not a target almost
+ * always lands on an empty slot, so the lookup costs one multiply and one
+ * array read regardless of how many targets there are.
+ *
+ * The table is read-only after construction and can be shared by every
+ * worker thread; only the found flags change during a search.
+ */
+public final class TargetSet {
+
+    private final String[] hashes;
+    private final byte[][] digests;
+
+    // Slot arrays: digest words A|B, digest words C|D, and target index (-1 = empty)
+    private final long[] keys;
+    private final long[] rests;
+    private final int[] indices;
+    private final int shift;
+    private final int mask;
+
+    private final AtomicIntegerArray found;
+    private final AtomicInteger remaining;
+
+    /**
+     * @param targetHashes MD5 hashes as 32 hex characters; duplicates are dropped
+     * @throws IllegalArgumentException if the list is empty or a hash is malformed
+     */
+    public TargetSet(List<String> targetHashes) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String hash : targetHashes) {
+            String normalized = hash.trim().toLowerCase();
+            if (!normalized.matches("[0-9a-f]{32}")) {
+                throw new IllegalArgumentException("Invalid MD5 hash format: " + hash);
+            }
+            unique.add(normalized);
+        }
+        if (unique.isEmpty()) {
+            throw new IllegalArgumentException("No target hashes");
+        }
+
+        this.hashes = unique.toArray(new String[0]);
+        this.digests = new byte[hashes.length][];
+
+        int capacity = Integer.highestOneBit(Math.max(2, hashes.length) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.rests = new long[capacity];
+        this.indices = new int[capacity];
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        this.mask = capacity - 1;
+        Arrays.fill(indices, -1);
+
+        for (int i = 0; i < hashes.length; i++) {
+            digests[i] = CrackerServer.hexToBytes(hashes[i]);
+            int a = Md5Kernel.wordAt(digests[i], 0);
+            int b = Md5Kernel.wordAt(digests[i], 4);
+            int c = Md5Kernel.wordAt(digests[i], 8);
+            int d = Md5Kernel.wordAt(digests[i], 12);
+            long key = pack(a, b);
+            int slot = slot(key);
+            while (indices[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            rests[slot] = pack(c, d);
+            indices[slot] = i;
+        }
+
+        this.found = new AtomicIntegerArray(hashes.length);
+        this.remaining = new AtomicInteger(hashes.length);
+    }
+
+    /**
+     * Returns the index of the target with the given digest words, or -1.
+     */
+    public int indexOf(int a, int b, int c, int d) {
+        long key = pack(a, b);
+        int slot = slot(key);
+        int index;
+        while ((index = indices[slot]) >= 0) {
+            if (keys[slot] == key && rests[slot] == pack(c, d)) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the target with the given 16-byte digest, or -1.
+     */
+    public int indexOf(byte[] digest) {
+        return indexOf(Md5Kernel.wordAt(digest, 0), Md5Kernel.wordAt(digest, 4),
+                       Md5Kernel.wordAt(digest, 8), Md5Kernel.wordAt(digest, 12));
+    }
+
+    /**
+     * Marks a target as cracked.
+     *
+     * @return true if this call was the first to find it
+     */
+    public boolean markFound(int index) {
+        if (found.compareAndSet(index, 0, 1)) {
+            remaining.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Marks a target as cracked by its hash; unknown hashes are ignored.
+     *
+     * @return true if this call was the first to find it
+     */
+    public boolean markFound(String hash) {
+        int index = indexOf(CrackerServer.hexToBytes(hash));
+        return index >= 0 && markFound(index);
+    }
+
+    public boolean isFound(int index) {
+        return found.get(index) != 0;
+    }
+
+    /**
+     * Returns true once every target was cracked.
+     */
+    public boolean allFound() {
+        return remaining.get() == 0;
+    }
+
+    public int size() {
+        return hashes.length;
+    }
+
+    public int getRemaining() {
+        return remaining.get();
+    }
+
+    public String getHash(int index) {
+        return hashes[index];
+    }
+
+    public byte[] getDigest(int index) {
+        return digests[index];
+    }
+
+    /**
+     * Returns the hashes that have not been cracked yet.
+     */
+    public List<String> getUnfoundHashes() {
+        List<String> unfound = new ArrayList<>();
+        for (int i = 0; i < hashes.length; i++) {
+            if (!isFound(i)) {
+                unfound.add(hashes[i]);
+            }
+        }
+        return unfound;
+    }
+
+    private int slot(long key) {
+        // Fibonacci hashing spreads keys over the table even if the digests share bits
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift) & mask;
+    }
+
+    private static long pack(int low, int high) {
+        return (low & 0xffffffffL) | ((long) high << 32);
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A group of concurrent tasks with one lifetime, in the style of structured
+ * concurrency: the owner forks tasks into the scope, joins them, and shuts
+ * the scope down to cancel every task still running, e.g. as soon as one
+ * of them produced the result the others were racing for.
+ *
+ * Every task runs on its own thread: a virtual thread when the JVM has them
+ * (Java 21 or later, detected at runtime so the code still builds on older
+ * JDKs), a daemon platform thread otherwise. A task blocked in a remote call
+ * therefore costs no pooled thread, and hundreds of servers can be called
+ * at once.
+ *
+ * Cancelling interrupts a task's thread and marks it done at once. Neither
+ * {@link #join} nor {@link #close} waits for a cancelled task to return,
+ * because a remote call stuck on a dead server may ignore the interrupt.
+ */
+public final class TaskScope implements AutoCloseable {
+
+    // Null when the JVM has no virtual threads
+    private static final ThreadFactory VIRTUAL_THREADS = virtualThreadFactory();
+
+    private final String name;
+    private final AtomicInteger threadCount = new AtomicInteger();
+    // Tasks still running, to cancel on shutdown
+    private final List<Future<?>> tasks = new ArrayList<>();
+    private int running;
+    private boolean shutdown;
+
+    /**
+     * @param name prefix of the task threads' names
+     */
+    public TaskScope(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns true if tasks run on virtual threads.
+     */
+    public static boolean isVirtual() {
+        return VIRTUAL_THREADS != null;
+    }
+
+    /**
+     * Starts a task in the scope. After {@link #shutdown} the task is not
+     * started, and its future is returned already cancelled.
+     */
+    public <T> Future<T> fork(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<T>(task) {
+            @Override
+            protected void done() {
+                taskDone(this);
+            }
+        };
+        synchronized (this) {
+            running++;
+            if (shutdown) {
+                future.cancel(false);
+                return future;
+            }
+            tasks.add(future);
+        }
+        Thread thread = VIRTUAL_THREADS != null ? VIRTUAL_THREADS.newThread(future) : new Thread(future);
+        thread.setName(name + "-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    /**
+     * Waits until every task forked so far is done or cancelled, or until
+     * the scope is shut down.
+     */
+    public synchronized void join() throws InterruptedException {
+        while (running > 0 && !shutdown) {
+            wait();
+        }
+    }
+
+    /**
+     * Waits like {@link #join}, but at most until a deadline.
+     *
+     * @param timeoutMs longest time to wait
+     * @return true if every task is done or cancelled
+     */
+    public synchronized boolean join(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000L;
+        while (running > 0 && !shutdown) {
+            long remainingMs = (deadline - System.nanoTime()) / 1_000_000L;
+            if (remainingMs <= 0) {
+                break;
+            }
+            wait(remainingMs);
+        }
+        return running == 0;
+    }
+
+    /**
+     * Cancels every task still running, interrupting its thread, and wakes
+     * the owner from {@link #join}. Idempotent.
+     */
+    public void shutdown() {
+        List<Future<?>> cancelled;
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            notifyAll();
+            cancelled = new ArrayList<>(tasks);
+        }
+        for (Future<?> task : cancelled) {
+            task.cancel(true);
+        }
+    }
+
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Shuts the scope down; tasks that already finished are unaffected.
+     */
+    @Override
+    public void close() {
+        shutdown();
+    }
+
+    private synchronized void taskDone(Future<?> task) {
+        tasks.remove(task);
+        running--;
+        notifyAll();
+    }
+
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Before Java 21, or a preview release without --enable-preview
+            return null;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiled word-mangling rules of a dictionary attack.
+ *
+ * Every rule turns one dictionary word into one candidate; a job tries each
+ * word with every rule. Rules use the common single-letter function syntax,
+ * and several functions in one rule are applied left to right (spaces
+ * between them are ignored):
+ *
+ * <pre>
+ * :     leave the word unchanged       r     reverse the word
+ * l     lowercase every letter         d     duplicate the word
+ * u     uppercase every letter         [     delete the first character
+ * c     capitalize the first letter,   ]     delete the last character
+ *       lowercase the rest             $X    append character X
+ * C     lowercase the first letter,    ^X    prepend character X
+ *       uppercase the rest             sXY   replace every X with Y
+ * t     toggle the case of every letter
+ * TN    toggle the case at position N (0-9, then A-Z for 10-35)
+ * </pre>
+ *
+ * Blank lines and lines starting with {@code #} are skipped, so hashcat-style
+ * rule files that stick to these functions load unchanged. Rules are applied
+ * to bytes in a caller-supplied buffer, so mangling allocates nothing.
+ */
+public final class WordRules {
+
+    /** Largest candidate a rule may produce. */
+    public static final int MAX_OUTPUT_BYTES = 2 * Wordlist.MAX_WORD_BYTES;
+
+    /**
+     * A small general-purpose set: case variants, common suffixes and
+     * leetspeak substitutions.
+     */
+    public static final List<String> DEFAULT_RULES = Collections.unmodifiableList(Arrays.asList(
+        ":", "c", "u", "t", "r", "d",
+        "$1", "$!", "$1 $2 $3", "$2 $0 $2 $4", "c $1", "c $!", "c $1 $2 $3",
+        "sa@", "se3", "si1", "so0", "ss$",
+        "sa@ se3 si1 so0", "c sa@ se3 si1 so0", "sa4 se3 si1 so0 ss5 st7"));
+
+    private final List<String> source;
+    // Every rule as a sequence of function letters, each followed by its arguments
+    private final byte[][] programs;
+
+    private WordRules(List<String> source, byte[][] programs) {
+        this.source = source;
+        this.programs = programs;
+    }
+
+    /**
+     * Compiles rule lines.
+     *
+     * @throws IllegalArgumentException if a rule uses an unknown function or
+     *         lacks an argument, or if no rule is left
+     */
+    public static WordRules parse(List<String> lines) {
+        List<String> rules = new ArrayList<>();
+        List<byte[]> programs = new ArrayList<>();
+        for (String line : lines) {
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            rules.add(line);
+            programs.add(compile(line));
+        }
+        if (rules.isEmpty()) {
+            throw new IllegalArgumentException("No rules given");
+        }
+        return new WordRules(Collections.unmodifiableList(rules), programs.toArray(new byte[0][]));
+    }
+
+    /**
+     * Loads a rule file, one rule per line.
+     */
+    public static WordRules load(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Returns the single rule that leaves every word unchanged.
+     */
+    public static WordRules identity() {
+        return parse(Collections.singletonList(":"));
+    }
+
+    /**
+     * Returns the rule lines, e.g. to send them to the servers.
+     */
+    public List<String> getRules() {
+        return source;
+    }
+
+    public int size() {
+        return programs.length;
+    }
+
+    /**
+     * Applies one rule to a word.
+     *
+     * @param rule index of the rule
+     * @param word bytes of the dictionary word
+     * @param length length of the word
+     * @param out buffer of at least {@link #MAX_OUTPUT_BYTES} bytes for the candidate
+     * @return length of the candidate, or -1 if it would exceed {@link #MAX_OUTPUT_BYTES}
+     */
+    public int apply(int rule, byte[] word, int length, byte[] out) {
+        System.arraycopy(word, 0, out, 0, length);
+        byte[] program = programs[rule];
+        int n = length;
+        for (int pc = 0; pc < program.length; pc++) {
+            switch (program[pc]) {
+                case ':':
+                    break;
+                case 'l':
+                    for (int i = 0; i < n; i++) {
+                        out[i] = lower(out[i]);
+                    }
+                    break;
+                case 'u':
+                    for (int i = 0; i < n; i++) {
+                        out[i] = upper(out[i]);
+                    }
+                    break;
+                case 'c':
+                    for (int i = 0; i < n; i++) {
+                        out[i] = i == 0 ? upper(out[i]) : lower(out[i]);
+                    }
+                    break;
+                case 'C':
+                    for (int i = 0; i < n; i++) {
+                        out[i] = i == 0 ? lower(out[i]) : upper(out[i]);
+                    }
+                    break;
+                case 't':
+                    for (int i = 0; i < n; i++) {
+                        out[i] = toggle(out[i]);
+                    }
+                    break;
+                case 'T': {
+                    int position = program[++pc];
+                    if (position < n) {
+                        out[position] = toggle(out[position]);
+                    }
+                    break;
+                }
+                case 'r':
+                    for (int i = 0, j = n - 1; i < j; i++, j--) {
+                        byte swap = out[i];
+                        out[i] = out[j];
+                        out[j] = swap;
+                    }
+                    break;
+                case 'd':
+                    if (2 * n > MAX_OUTPUT_BYTES) {
+                        return -1;
+                    }
+                    System.arraycopy(out, 0, out, n, n);
+                    n *= 2;
+                    break;
+                case '[':
+                    if (n > 0) {
+                        System.arraycopy(out, 1, out, 0, --n);
+                    }
+                    break;
+                case ']':
+                    if (n > 0) {
+                        n--;
+                    }
+                    break;
+                case '$':
+                    if (n == MAX_OUTPUT_BYTES) {
+                        return -1;
+                    }
+                    out[n++] = program[++pc];
+                    break;
+                case '^':
+                    if (n == MAX_OUTPUT_BYTES) {
+                        return -1;
+                    }
+                    System.arraycopy(out, 0, out, 1, n++);
+                    out[0] = program[++pc];
+                    break;
+                case 's': {
+                    byte from = program[++pc];
+                    byte to = program[++pc];
+                    for (int i = 0; i < n; i++) {
+                        if (out[i] == from) {
+                            out[i] = to;
+                        }
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Uncompiled rule function " + (char) program[pc]);
+            }
+        }
+        return n;
+    }
+
+    private static byte[] compile(String rule) {
+        byte[] program = new byte[rule.length()];
+        int size = 0;
+        for (int i = 0; i < rule.length(); i++) {
+            char function = rule.charAt(i);
+            int arguments;
+            switch (function) {
+                case ' ':
+                    continue;
+                case ':': case 'l': case 'u': case 'c': case 'C': case 't':
+                case 'r': case 'd': case '[': case ']':
+                    arguments = 0;
+                    break;
+                case '$': case '^': case 'T':
+                    arguments = 1;
+                    break;
+                case 's':
+                    arguments = 2;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown rule function '" + function + "' in: " + rule);
+            }
+            if (i + arguments >= rule.length()) {
+                throw new IllegalArgumentException("Rule function '" + function + "' needs "
+                                                   + arguments + " argument(s): " + rule);
+            }
+            program[size++] = (byte) function;
+            for (int a = 0; a < arguments; a++) {
+                char argument = rule.charAt(++i);
+                if (argument > 0xff) {
+                    throw new IllegalArgumentException("Rule arguments must be single bytes: " + rule);
+                }
+                program[size++] = (byte) (function == 'T' ? position(argument, rule) : argument);
+            }
+        }
+        return Arrays.copyOf(program, size);
+    }
+
+    private static int position(char argument, String rule) {
+        if (argument >= '0' && argument <= '9') {
+            return argument - '0';
+        }
+        if (argument >= 'A' && argument <= 'Z') {
+            return argument - 'A' + 10;
+        }
+        throw new IllegalArgumentException("Invalid rule position '" + argument + "': " + rule);
+    }
+
+    private static byte lower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + 32) : b;
+    }
+
+    private static byte upper(byte b) {
+        return b >= 'a' && b <= 'z' ? (byte) (b - 32) : b;
+    }
+
+    private static byte toggle(byte b) {
+        return b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' ? (byte) (b ^ 32) : b;
+    }
+}
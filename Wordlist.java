@@ -0,0 +1,155 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped dictionary file with one word per line.
+ *
+ * The file is never loaded onto the heap: it is mapped in segments of at
+ * most {@link #SEGMENT_BYTES}, and the page cache holds whatever the workers
+ * are reading. Work is split by byte offset, so a range {@code [start, end)}
+ * of the file owns exactly the words that start inside it; a word that runs
+ * past {@code end} is still read in full, and the next range skips it. Any
+ * split of the file into ranges therefore visits every word exactly once.
+ *
+ * Consecutive segments overlap by {@link #MAX_WORD_BYTES} plus the line
+ * terminator, so every word that is short enough to be hashed can be read
+ * from the segment in which it starts. Both {@code \n} and {@code \r\n}
+ * line endings are accepted; empty lines are skipped. Instances are
+ * thread-safe since all reads are absolute.
+ */
+public final class Wordlist implements Closeable {
+
+    /** Longest word that is read; longer lines are skipped. */
+    public static final int MAX_WORD_BYTES = 256;
+
+    private static final long SEGMENT_BYTES = 1L << 30;
+    private static final int SEGMENT_OVERLAP = MAX_WORD_BYTES + 2;
+    private static final int PREVIEW_BYTES = 32;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    /**
+     * Maps a wordlist file.
+     *
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public Wordlist(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.size = channel.size();
+            int count = (int) ((size + SEGMENT_BYTES - 1) / SEGMENT_BYTES);
+            this.segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = i * SEGMENT_BYTES;
+                long length = Math.min(size - start, SEGMENT_BYTES + SEGMENT_OVERLAP);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the file size in bytes, which is also the size of the index
+     * space that leases and chunks of a wordlist job refer to.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the offset of the first word starting at or after {@code offset}.
+     */
+    public long wordStart(long offset) {
+        if (offset <= 0) {
+            return 0;
+        }
+        long position = offset;
+        while (position < size && byteAt(position - 1) != '\n') {
+            position++;
+        }
+        return Math.min(position, size);
+    }
+
+    /**
+     * Copies the word starting at {@code offset} into {@code word}.
+     *
+     * @param offset start of a line
+     * @param word buffer of at least {@link #MAX_WORD_BYTES} bytes
+     * @param result receives the offset of the next line in element 0
+     * @return length of the word, 0 for an empty line, or -1 if it is
+     *         longer than {@link #MAX_WORD_BYTES}
+     */
+    public int readWord(long offset, byte[] word, long[] result) {
+        MappedByteBuffer segment = segments[(int) (offset / SEGMENT_BYTES)];
+        int index = (int) (offset % SEGMENT_BYTES);
+        int limit = Math.min(segment.limit(), index + MAX_WORD_BYTES + 2);
+
+        int length = 0;
+        while (index < limit) {
+            byte b = segment.get(index++);
+            if (b == '\n') {
+                result[0] = offset + length + 1;
+                return trimCarriageReturn(word, length);
+            }
+            if (length == MAX_WORD_BYTES) {
+                // Only a carriage return may follow the longest word
+                if (b == '\r' && index < limit && segment.get(index) == '\n') {
+                    result[0] = offset + length + 2;
+                    return length;
+                }
+                result[0] = wordStart(offset + length + 1);
+                return -1;
+            }
+            word[length++] = b;
+        }
+        // The last word of the file need not end with a line break
+        result[0] = offset + length;
+        return trimCarriageReturn(word, length);
+    }
+
+    /**
+     * Returns the beginning of the first word at or after {@code offset}, for progress reports.
+     */
+    public String preview(long offset) {
+        long start = wordStart(offset);
+        byte[] bytes = new byte[PREVIEW_BYTES];
+        int length = 0;
+        for (long position = start; position < size && length < bytes.length; position++) {
+            byte b = byteAt(position);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            bytes[length++] = b;
+        }
+        return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mappings stay valid until they are garbage collected
+        channel.close();
+    }
+
+    private byte byteAt(long position) {
+        return segments[(int) (position / SEGMENT_BYTES)].get((int) (position % SEGMENT_BYTES));
+    }
+
+    private static int trimCarriageReturn(byte[] word, int length) {
+        return length > 0 && word[length - 1] == '\r' ? length - 1 : length;
+    }
+}
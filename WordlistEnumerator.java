@@ -0,0 +1,138 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Enumerator over the words of a byte range of a {@link Wordlist}, each
+ * mangled by every rule of a {@link WordRules} set.
+ *
+ * Words are copied straight from the mapped file into a reused buffer, the
+ * rules rewrite that buffer, and the candidate bytes are written into a
+ * {@link HashKernel} for the candidate's length. No string is built unless
+ * a candidate matches. Kernels are created lazily, one per length that
+ * actually occurs, since a kernel's padding is fixed to one length.
+ */
+public final class WordlistEnumerator {
+
+    private final Wordlist wordlist;
+    private final WordRules rules;
+    private final IntFunction<HashKernel> kernelFactory;
+    private final HashKernel[] kernels = new HashKernel[Md5Kernel.MAX_LENGTH + 1];
+    private final long endOffset;
+
+    private final byte[] word = new byte[Wordlist.MAX_WORD_BYTES];
+    private final byte[] candidate = new byte[WordRules.MAX_OUTPUT_BYTES];
+    private final char[] lastChar = new char[1];
+    private final long[] next = new long[1];
+
+    private long offset;
+    private long wordOffset;
+    private int wordLength;
+    private int rule;
+    private int candidateLength;
+
+    /**
+     * @param wordlist mapped dictionary
+     * @param rules rules applied to every word
+     * @param kernelFactory creates the kernel for a candidate length
+     * @param startOffset first byte of the range (inclusive)
+     * @param endOffset last byte of the range (exclusive); the word that starts
+     *                  before it is read in full
+     */
+    public WordlistEnumerator(Wordlist wordlist, WordRules rules, IntFunction<HashKernel> kernelFactory,
+                              long startOffset, long endOffset) {
+        this.wordlist = wordlist;
+        this.rules = rules;
+        this.kernelFactory = kernelFactory;
+        this.offset = wordlist.wordStart(startOffset);
+        this.endOffset = Math.min(endOffset, wordlist.getSize());
+    }
+
+    /**
+     * Advances to the next non-empty word of the range.
+     *
+     * @return false once every word starting in the range has been visited
+     */
+    public boolean nextWord() {
+        while (offset < endOffset) {
+            wordOffset = offset;
+            wordLength = wordlist.readWord(offset, word, next);
+            offset = next[0];
+            if (wordLength > 0) {
+                rule = 0;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the file offset of the current word.
+     */
+    public long getWordOffset() {
+        return wordOffset;
+    }
+
+    /**
+     * Hashes the current word under the rules not tried yet, stopping at the
+     * first candidate that matches, so the search can resume after a match.
+     *
+     * @return true if a candidate matched; {@link #candidate()} returns it
+     */
+    public boolean nextMatch() {
+        while (rule < rules.size()) {
+            int length = rules.apply(rule++, word, wordLength, candidate);
+            if (length < 1 || length > Md5Kernel.MAX_LENGTH) {
+                continue;
+            }
+            HashKernel kernel = kernels[length];
+            if (kernel == null) {
+                kernel = kernels[length] = kernelFactory.apply(length);
+            }
+            for (int pos = 0; pos < length - 1; pos++) {
+                kernel.setByte(pos, candidate[pos]);
+            }
+            kernel.prepare();
+            lastChar[0] = (char) (candidate[length - 1] & 0xff);
+            if (kernel.sweepLastPosition(lastChar, 0, 1) >= 0) {
+                candidateLength = length;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the string of the candidate that matched last.
+     */
+    public String candidate() {
+        return new String(candidate, 0, candidateLength, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns the candidates hashed so far by all of the kernels.
+     */
+    public long getCandidates() {
+        long candidates = 0;
+        for (HashKernel kernel : kernels) {
+            if (kernel != null) {
+                candidates += kernel.getCandidates();
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns the kernels created so far, to collect their statistics.
+     */
+    public List<HashKernel> getKernels() {
+        List<HashKernel> created = new ArrayList<>();
+        for (HashKernel kernel : kernels) {
+            if (kernel != null) {
+                created.add(kernel);
+            }
+        }
+        return created;
+    }
+}
@@ -0,0 +1,109 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Checks that {@link JobScheduler} splits keyspaces near the 64-bit limit
+ * over many workers: a length-10 keyspace has 95^9 prefixes, and its
+ * group boundaries used to overflow from 16 workers on. Needs no test
+ * framework; compile it against the classes and run it:
+ * <pre>
+ * javac -cp . -d . test/JobSchedulerTest.java
+ * java -cp . JobSchedulerTest
+ * </pre>
+ */
+public final class JobSchedulerTest {
+
+    // Prefixes of a length-10 brute-force keyspace
+    private static final long LENGTH_10_PREFIXES = BigInteger.valueOf(95).pow(9).longValueExact();
+
+    private static final long CHUNK_SIZE = 4096;
+    private static final int CHUNKS_BEFORE_STOP = 500;
+    private static final long TIMEOUT_MS = 30_000;
+
+    private JobSchedulerTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        shareMatchesExactProduct();
+        largeKeyspaceIsSplitWithoutOverflow(new int[] {16});
+        largeKeyspaceIsSplitWithoutOverflow(new int[] {8, 8});
+        int[] singles = new int[64];
+        Arrays.fill(singles, 1);
+        largeKeyspaceIsSplitWithoutOverflow(singles);
+        System.out.println("JobSchedulerTest passed");
+    }
+
+    private static void shareMatchesExactProduct() {
+        long[] totals = {0, 1, 95, LENGTH_10_PREFIXES, LENGTH_10_PREFIXES + 7, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        int[] wholes = {1, 2, 3, 7, 16, 64, 255};
+        for (long total : totals) {
+            for (int whole : wholes) {
+                for (int part = 0; part <= whole; part++) {
+                    long expected = BigInteger.valueOf(total).multiply(BigInteger.valueOf(part))
+                                              .divide(BigInteger.valueOf(whole)).longValueExact();
+                    check(JobScheduler.share(total, part, whole) == expected,
+                          "share(" + total + ", " + part + ", " + whole + ") != " + expected);
+                }
+            }
+        }
+    }
+
+    /**
+     * Schedules the whole length-10 keyspace, stops the job after a few
+     * hundred chunks, and checks that every chunk lies inside the keyspace
+     * and that no two overlap.
+     */
+    private static void largeKeyspaceIsSplitWithoutOverflow(int[] groupSizes) throws Exception {
+        String label = Arrays.toString(groupSizes);
+        JobScheduler scheduler = new JobScheduler("Test", groupSizes);
+        SearchJob job = new SearchJob("overflow-" + label, JobScheduler.DEFAULT_PRIORITY,
+                                      new TargetSet(Collections.singletonList("00000000000000000000000000000000")),
+                                      KeyspaceSequence.bruteForce(Keyspace.printableAscii(), 10, 10), null);
+        List<long[]> chunks = Collections.synchronizedList(new ArrayList<>());
+        Throwable[] failure = new Throwable[1];
+
+        Thread caller = new Thread(() -> {
+            try {
+                scheduler.execute(job, scheduler.getWorkerCount(), CHUNK_SIZE,
+                    Collections.singletonList(new JobScheduler.Range(0, LENGTH_10_PREFIXES)),
+                    (start, end) -> {
+                        chunks.add(new long[] {start, end});
+                        if (chunks.size() >= CHUNKS_BEFORE_STOP) {
+                            job.stop();
+                        }
+                    });
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        });
+        caller.start();
+        caller.join(TIMEOUT_MS);
+        scheduler.shutdown();
+        check(!caller.isAlive(), label + ": execute did not return within " + TIMEOUT_MS + " ms");
+        check(failure[0] == null, label + ": execute failed: " + failure[0]);
+
+        List<long[]> sorted;
+        synchronized (chunks) {
+            sorted = new ArrayList<>(chunks);
+        }
+        check(sorted.size() >= CHUNKS_BEFORE_STOP, label + ": only " + sorted.size() + " chunks searched");
+        sorted.sort(Comparator.comparingLong(chunk -> chunk[0]));
+        long previousEnd = 0;
+        for (long[] chunk : sorted) {
+            check(chunk[0] >= previousEnd && chunk[0] < chunk[1] && chunk[1] <= LENGTH_10_PREFIXES
+                  && chunk[1] - chunk[0] <= CHUNK_SIZE,
+                  label + ": bad chunk [" + chunk[0] + ", " + chunk[1] + ")");
+            previousEnd = chunk[1];
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
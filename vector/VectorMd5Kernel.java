@@ -0,0 +1,173 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Multi-lane MD5 kernel built on the incubating Java Vector API.
+ *
+ * Consecutive last-position characters of a prefix are hashed in lock-step,
+ * one per vector lane (4, 8 or 16 lanes depending on the CPU's preferred
+ * vector width). All message words except the one holding the last
+ * character are identical across lanes, so they are folded into per-step
+ * scalar constants once per prefix. The prefix bookkeeping - cached round-1
+ * state and the inverted target - is delegated to a scalar
+ * {@link Md5Kernel} in target-reversal mode, which also confirms any lane
+ * that survives the early check.
+ *
+ * This class needs the jdk.incubator.vector module and is therefore kept
+ * out of the default {@code javac *.java} build:
+ * <pre>
+ *   javac --add-modules jdk.incubator.vector -cp . -d . vector/VectorMd5Kernel.java
+ * </pre>
+ * {@link SearchEngine} loads it reflectively and falls back to the scalar
+ * kernel when the class or the module is missing.
+ */
+public final class VectorMd5Kernel implements HashKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private final Md5Kernel scalar;
+    private final int lanes;
+    private final int lastPosition;
+    private final int varyingWord;
+    private final int laneShift;
+
+    // Per-prefix step constants (K[i] plus the message word when it is shared by all lanes)
+    private final int[] stepConstants = new int[64];
+    private final int[] laneWords;
+
+    private long candidates;
+    private long earlyExits;
+
+    public VectorMd5Kernel(byte[] targetDigest, int length) {
+        this.scalar = new Md5Kernel(targetDigest, length, true);
+        this.lanes = SPECIES.length();
+        this.lastPosition = length - 1;
+        this.varyingWord = lastPosition >>> 2;
+        this.laneShift = (lastPosition & 3) << 3;
+        this.laneWords = new int[lanes];
+    }
+
+    /**
+     * Returns the number of candidates hashed per vector operation on this CPU.
+     */
+    public static int laneCount() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public int getLength() {
+        return scalar.getLength();
+    }
+
+    @Override
+    public void setByte(int position, int value) {
+        scalar.setByte(position, value);
+    }
+
+    @Override
+    public void prepare() {
+        scalar.prepare();
+        for (int i = scalar.getResumeStep(); i <= scalar.getCheckStep(); i++) {
+            int word = Md5Kernel.WORD[i];
+            stepConstants[i] = word == varyingWord
+                ? Md5Kernel.K[i]
+                : Md5Kernel.K[i] + scalar.getMessageWord(word);
+        }
+    }
+
+    @Override
+    public int sweepLastPosition(char[] alphabet, int from, int to) {
+        int base = scalar.getMessageWord(varyingWord) & ~(0xff << laneShift);
+
+        for (int i = from; i < to; i += lanes) {
+            int count = Math.min(lanes, to - i);
+            for (int lane = 0; lane < lanes; lane++) {
+                // Lanes past the end of the range repeat the last character and are ignored
+                int ch = alphabet[i + Math.min(lane, count - 1)] & 0xff;
+                laneWords[lane] = base | (ch << laneShift);
+            }
+            candidates += count;
+
+            VectorMask<Integer> hits = compress(IntVector.fromArray(SPECIES, laneWords, 0));
+            int survivors = 0;
+            if (hits.anyTrue()) {
+                for (int lane = 0; lane < count; lane++) {
+                    if (hits.laneIsSet(lane)) {
+                        survivors++;
+                        scalar.setByte(lastPosition, alphabet[i + lane]);
+                        if (scalar.matches()) {
+                            return i + lane;
+                        }
+                    }
+                }
+            }
+            earlyExits += count - survivors;
+        }
+        return -1;
+    }
+
+    @Override
+    public long getCandidates() {
+        return candidates;
+    }
+
+    @Override
+    public long getEarlyExits() {
+        return earlyExits;
+    }
+
+    @Override
+    public long getStepsSaved() {
+        return candidates * scalar.getResumeStep() + earlyExits * (63 - scalar.getCheckStep());
+    }
+
+    /**
+     * Runs the steps between the cached prefix state and the check step for
+     * every lane and returns the lanes whose state word matches the target.
+     */
+    private VectorMask<Integer> compress(IntVector varying) {
+        int resume = scalar.getResumeStep();
+        int check = scalar.getCheckStep();
+
+        // Loop form of the registers: a = Q[i-4], b = Q[i-1], c = Q[i-2], d = Q[i-3]
+        IntVector a = IntVector.broadcast(SPECIES, scalar.getCachedStateWord(resume - 4));
+        IntVector b = IntVector.broadcast(SPECIES, scalar.getCachedStateWord(resume - 1));
+        IntVector c = IntVector.broadcast(SPECIES, scalar.getCachedStateWord(resume - 2));
+        IntVector d = IntVector.broadcast(SPECIES, scalar.getCachedStateWord(resume - 3));
+
+        int i = resume;
+        for (; i < 16 && i <= check; i++) {
+            IntVector f = d.lanewise(VectorOperators.XOR, b.lanewise(VectorOperators.AND, c.lanewise(VectorOperators.XOR, d)));
+            IntVector next = step(a, f, b, varying, i);
+            a = d; d = c; c = b; b = next;
+        }
+        for (; i < 32 && i <= check; i++) {
+            IntVector f = b.lanewise(VectorOperators.AND, d)
+                .lanewise(VectorOperators.OR, c.lanewise(VectorOperators.AND, d.lanewise(VectorOperators.NOT)));
+            IntVector next = step(a, f, b, varying, i);
+            a = d; d = c; c = b; b = next;
+        }
+        for (; i < 48 && i <= check; i++) {
+            IntVector f = b.lanewise(VectorOperators.XOR, c).lanewise(VectorOperators.XOR, d);
+            IntVector next = step(a, f, b, varying, i);
+            a = d; d = c; c = b; b = next;
+        }
+        for (; i <= check; i++) {
+            IntVector f = c.lanewise(VectorOperators.XOR, b.lanewise(VectorOperators.OR, d.lanewise(VectorOperators.NOT)));
+            IntVector next = step(a, f, b, varying, i);
+            a = d; d = c; c = b; b = next;
+        }
+
+        return b.eq(scalar.getCheckValue());
+    }
+
+    private IntVector step(IntVector a, IntVector f, IntVector b, IntVector varying, int i) {
+        IntVector sum = a.add(f).add(stepConstants[i]);
+        if (Md5Kernel.WORD[i] == varyingWord) {
+            sum = sum.add(varying);
+        }
+        return sum.lanewise(VectorOperators.ROL, Md5Kernel.SHIFT[i]).add(b);
+    }
+}